@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.ILink;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Weighted longest path analysis of a dataflow graph.</br>
+ *
+ * Each leaf and each link has a weight (e.g. a processing time or a transfer time) supplied by callbacks. The length
+ * of a path is the sum of the weights of its leaves and links. The critical path is the longest path of the graph,
+ * the slack of an element is how much its weight can grow before it lengthens the critical path.</br>
+ *
+ * The analysis is bound to the structure of the graph at construction time, a new analyzer must be created when
+ * leaves or links are added or removed. When a single weight changes, {@link #updateWeight(ILeaf)} and
+ * {@link #updateWeight(ILink)} only recompute the leaves whose longest paths are impacted, the end of the critical
+ * path being tracked by a heap of heads instead of scanning all leaves.</br>
+ * Leaves belonging to a cycle, or downstream of a cycle, are ignored.
+ */
+public class CriticalPathAnalyzer {
+
+    /** Tolerance used to compare path lengths */
+    private static final double EPSILON = 1e-9;
+
+    private final DataflowIndex index;
+    private final ToDoubleFunction<ILeaf> leafWeight;
+    private final ToDoubleFunction<ILink> linkWeight;
+
+    private final double[] leafWeights;
+    private final double[] linkWeights;
+    /** Length of the longest path ending with each leaf (leaf weight included) */
+    private final double[] heads;
+    /** Length of the longest path starting with each leaf (leaf weight included) */
+    private final double[] tails;
+    /** Input link used by the longest path ending with each leaf, -1 if none */
+    private final int[] bestInputs;
+
+    private final PositionQueue queue;
+    /** Positions of ordered leaves by decreasing head, the top one ends a critical path */
+    private final PositionMaxHeap headHeap;
+
+    /**
+     * @param graph
+     *            the graph to analyze
+     * @param leafWeight
+     *            supply the weight of a leaf
+     * @param linkWeight
+     *            supply the weight of a link
+     */
+    public CriticalPathAnalyzer(final NodeContainer graph, final ToDoubleFunction<ILeaf> leafWeight,
+            final ToDoubleFunction<ILink> linkWeight) {
+        this.index = new DataflowIndex(graph);
+        this.leafWeight = leafWeight;
+        this.linkWeight = linkWeight;
+
+        final int leafCount = index.leaves.length;
+        this.leafWeights = new double[leafCount];
+        this.linkWeights = new double[index.links.length];
+        this.heads = new double[leafCount];
+        this.tails = new double[leafCount];
+        this.bestInputs = new int[leafCount];
+        this.queue = new PositionQueue(leafCount);
+        this.headHeap = new PositionMaxHeap(leafCount);
+
+        for (int i = 0; i < leafCount; i++) {
+            leafWeights[i] = leafWeight.applyAsDouble(index.leaves[i]);
+            heads[i] = Double.NaN;
+            tails[i] = Double.NaN;
+            bestInputs[i] = -1;
+        }
+        for (int i = 0; i < index.links.length; i++) {
+            linkWeights[i] = linkWeight.applyAsDouble(index.links[i]);
+        }
+
+        for (int position = 0; position < index.orderedCount; position++) {
+            computeHead(index.order[position]);
+        }
+        for (int position = index.orderedCount - 1; position >= 0; position--) {
+            computeTail(index.order[position]);
+        }
+    }
+
+    /**
+     * Read again the weight of a leaf and update the analysis
+     *
+     * @param leaf
+     *            the leaf which weight changed
+     */
+    public void updateWeight(final ILeaf leaf) {
+        final int leafIndex = index.indexOf((Leaf) leaf);
+        leafWeights[leafIndex] = leafWeight.applyAsDouble(leaf);
+        if (index.isOrdered(leafIndex)) {
+            propagateHeads(leafIndex);
+            propagateTails(leafIndex);
+        }
+    }
+
+    /**
+     * Read again the weight of a link and update the analysis
+     *
+     * @param link
+     *            the link which weight changed
+     */
+    public void updateWeight(final ILink link) {
+        final int linkIndex = index.indexOf((Link) link);
+        linkWeights[linkIndex] = linkWeight.applyAsDouble(link);
+        final int source = index.linkSources[linkIndex];
+        final int target = index.linkTargets[linkIndex];
+        if (index.isOrdered(source) && index.isOrdered(target)) {
+            propagateHeads(target);
+            propagateTails(source);
+        }
+    }
+
+    /**
+     * @return the length of the critical path, 0 if the graph is empty
+     */
+    public double getCriticalPathLength() {
+        return headHeap.isEmpty() ? 0 : headHeap.peekValue();
+    }
+
+    /**
+     * @param leaf
+     *            an analyzed leaf
+     * @return the length of the longest path going through the leaf, NaN if the leaf is part of a cycle
+     */
+    public double getLongestPathThrough(final ILeaf leaf) {
+        final int leafIndex = index.indexOf((Leaf) leaf);
+        return heads[leafIndex] + tails[leafIndex] - leafWeights[leafIndex];
+    }
+
+    /**
+     * @param leaf
+     *            an analyzed leaf
+     * @return the slack of the leaf, NaN if the leaf is part of a cycle
+     */
+    public double getSlack(final ILeaf leaf) {
+        return getCriticalPathLength() - getLongestPathThrough(leaf);
+    }
+
+    /**
+     * @param link
+     *            an analyzed link
+     * @return the slack of the link, NaN if the link is part of a cycle
+     */
+    public double getSlack(final ILink link) {
+        final int linkIndex = index.indexOf((Link) link);
+        return getCriticalPathLength() - (heads[index.linkSources[linkIndex]] + linkWeights[linkIndex]
+                + tails[index.linkTargets[linkIndex]]);
+    }
+
+    /**
+     * @param leaf
+     *            an analyzed leaf
+     * @return true if the leaf is on a critical path
+     */
+    public boolean isCritical(final ILeaf leaf) {
+        return getSlack(leaf) <= EPSILON;
+    }
+
+    /**
+     * @param link
+     *            an analyzed link
+     * @return true if the link is on a critical path
+     */
+    public boolean isCritical(final ILink link) {
+        return getSlack(link) <= EPSILON;
+    }
+
+    /**
+     * Retrieve one of the critical paths.</br>
+     * The path is rebuilt on each call from its tracked end, its cost is proportional to its length.
+     *
+     * @return leaves of the critical path, from upstream to downstream
+     */
+    public List<ILeaf> getCriticalPath() {
+        final LinkedList<ILeaf> path = new LinkedList<>();
+        int leaf = findCriticalPathEnd();
+        while (leaf >= 0) {
+            path.addFirst(index.leaves[leaf]);
+            leaf = bestInputs[leaf] < 0 ? -1 : index.linkSources[bestInputs[leaf]];
+        }
+        return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Retrieve links of the critical path returned by {@link #getCriticalPath()}
+     *
+     * @return links of the critical path, from upstream to downstream
+     */
+    public List<ILink> getCriticalPathLinks() {
+        final List<ILink> path = new ArrayList<>();
+        int leaf = findCriticalPathEnd();
+        while (leaf >= 0 && bestInputs[leaf] >= 0) {
+            path.add(index.links[bestInputs[leaf]]);
+            leaf = index.linkSources[bestInputs[leaf]];
+        }
+        Collections.reverse(path);
+        return Collections.unmodifiableList(path);
+    }
+
+    private int findCriticalPathEnd() {
+        return headHeap.isEmpty() ? -1 : index.order[headHeap.peek()];
+    }
+
+    /**
+     * Recompute heads downstream of a leaf, in topological order, stopping where heads do not change
+     */
+    private void propagateHeads(final int origin) {
+        queue.offer(index.positions[origin]);
+        while (!queue.isEmpty()) {
+            final int leaf = index.order[queue.poll()];
+            if (computeHead(leaf)) {
+                for (int j = index.outOffsets[leaf]; j < index.outOffsets[leaf + 1]; j++) {
+                    final int target = index.linkTargets[index.outLinks[j]];
+                    if (index.isOrdered(target)) {
+                        queue.offer(index.positions[target]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute tails upstream of a leaf, in reverse topological order, stopping where tails do not change
+     */
+    private void propagateTails(final int origin) {
+        final int last = index.orderedCount - 1;
+        queue.offer(last - index.positions[origin]);
+        while (!queue.isEmpty()) {
+            final int leaf = index.order[last - queue.poll()];
+            if (computeTail(leaf)) {
+                for (int j = index.inOffsets[leaf]; j < index.inOffsets[leaf + 1]; j++) {
+                    queue.offer(last - index.positions[index.linkSources[index.inLinks[j]]]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the head of the leaf changed
+     */
+    private boolean computeHead(final int leaf) {
+        double best = 0;
+        int bestInput = -1;
+        for (int j = index.inOffsets[leaf]; j < index.inOffsets[leaf + 1]; j++) {
+            final int link = index.inLinks[j];
+            final double candidate = heads[index.linkSources[link]] + linkWeights[link];
+            if (bestInput < 0 || candidate > best) {
+                best = candidate;
+                bestInput = link;
+            }
+        }
+        bestInputs[leaf] = bestInput;
+        final double head = leafWeights[leaf] + best;
+        final boolean changed = Double.compare(head, heads[leaf]) != 0;
+        heads[leaf] = head;
+        if (changed) {
+            headHeap.update(index.positions[leaf], head);
+        }
+        return changed;
+    }
+
+    /**
+     * @return true if the tail of the leaf changed
+     */
+    private boolean computeTail(final int leaf) {
+        double best = 0;
+        boolean found = false;
+        for (int j = index.outOffsets[leaf]; j < index.outOffsets[leaf + 1]; j++) {
+            final int link = index.outLinks[j];
+            final int target = index.linkTargets[link];
+            if (index.isOrdered(target)) {
+                final double candidate = linkWeights[link] + tails[target];
+                if (!found || candidate > best) {
+                    best = candidate;
+                    found = true;
+                }
+            }
+        }
+        final double tail = leafWeights[leaf] + best;
+        final boolean changed = Double.compare(tail, tails[leaf]) != 0;
+        tails[leaf] = tail;
+        return changed;
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Compact index of the leaves and links of a container.</br>
+ *
+ * Leaves and links are numbered and adjacency is stored in compressed arrays (one offset array and one link array per
+ * direction) to let analysis run on primitive arrays. Only links between two leaves of the container are indexed.
+ * </br>
+ * A topological order is computed with Kahn's algorithm. Leaves which belong to a cycle or are downstream of a cycle
+ * are not part of this order.
+ */
+final class DataflowIndex {
+
+    final Leaf[] leaves;
+    final Link[] links;
+
+    final Map<Leaf, Integer> leafIndexes = new HashMap<>();
+    final Map<Link, Integer> linkIndexes = new HashMap<>();
+
+    /** Source leaf index of each link */
+    final int[] linkSources;
+    /** Target leaf index of each link */
+    final int[] linkTargets;
+
+    /** Output links of leaf i are outLinks[outOffsets[i]] to outLinks[outOffsets[i + 1] - 1] */
+    final int[] outOffsets;
+    final int[] outLinks;
+    /** Input links of leaf i are inLinks[inOffsets[i]] to inLinks[inOffsets[i + 1] - 1] */
+    final int[] inOffsets;
+    final int[] inLinks;
+
+    /** Leaf indexes in topological order, only the first {@link #orderedCount} entries are valid */
+    final int[] order;
+    /** Position of each leaf in the topological order, -1 if the leaf is not ordered */
+    final int[] positions;
+    final int orderedCount;
+
+    DataflowIndex(final NodeContainer container) {
+        this.leaves = new TreeSet<>(container.getAllLeaves()).toArray(new Leaf[0]);
+        for (int i = 0; i < leaves.length; i++) {
+            leafIndexes.put(leaves[i], i);
+        }
+
+        final List<Link> internalLinks = new ArrayList<>();
+        for (final Leaf leaf : leaves) {
+            leaf.getLinkedOutputLinks().forEach(link -> {
+                if (leafIndexes.containsKey(link.getInput().getLeaf())) {
+                    internalLinks.add(link);
+                }
+            });
+        }
+        this.links = internalLinks.toArray(new Link[internalLinks.size()]);
+        this.linkSources = new int[links.length];
+        this.linkTargets = new int[links.length];
+        for (int i = 0; i < links.length; i++) {
+            linkIndexes.put(links[i], i);
+            linkSources[i] = leafIndexes.get(links[i].getOutput().getLeaf());
+            linkTargets[i] = leafIndexes.get(links[i].getInput().getLeaf());
+        }
+
+        this.outOffsets = new int[leaves.length + 1];
+        this.outLinks = new int[links.length];
+        this.inOffsets = new int[leaves.length + 1];
+        this.inLinks = new int[links.length];
+        fillAdjacency(linkSources, outOffsets, outLinks);
+        fillAdjacency(linkTargets, inOffsets, inLinks);
+
+        this.order = new int[leaves.length];
+        this.positions = new int[leaves.length];
+        this.orderedCount = sortTopologically();
+    }
+
+    /**
+     * Counting sort of links by their extremity
+     */
+    private void fillAdjacency(final int[] extremities, final int[] offsets, final int[] adjacency) {
+        for (final int leaf : extremities) {
+            offsets[leaf + 1]++;
+        }
+        for (int i = 0; i < leaves.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        final int[] next = new int[leaves.length];
+        System.arraycopy(offsets, 0, next, 0, leaves.length);
+        for (int link = 0; link < extremities.length; link++) {
+            adjacency[next[extremities[link]]++] = link;
+        }
+    }
+
+    private int sortTopologically() {
+        final int[] remainingInputs = new int[leaves.length];
+        int count = 0;
+        for (int i = 0; i < leaves.length; i++) {
+            remainingInputs[i] = inOffsets[i + 1] - inOffsets[i];
+            positions[i] = -1;
+            if (remainingInputs[i] == 0) {
+                order[count++] = i;
+            }
+        }
+        // The order array is used as the queue of ready leaves
+        for (int head = 0; head < count; head++) {
+            final int leaf = order[head];
+            positions[leaf] = head;
+            for (int j = outOffsets[leaf]; j < outOffsets[leaf + 1]; j++) {
+                final int target = linkTargets[outLinks[j]];
+                if (--remainingInputs[target] == 0) {
+                    order[count++] = target;
+                }
+            }
+        }
+        return count;
+    }
+
+    int indexOf(final Leaf leaf) {
+        final Integer index = leafIndexes.get(leaf);
+        if (index == null) {
+            throw new IllegalArgumentException("The leaf is not part of the analyzed graph");
+        }
+        return index;
+    }
+
+    int indexOf(final Link link) {
+        final Integer index = linkIndexes.get(link);
+        if (index == null) {
+            throw new IllegalArgumentException("The link is not part of the analyzed graph");
+        }
+        return index;
+    }
+
+    boolean isOrdered(final int leaf) {
+        return positions[leaf] >= 0;
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap of distinct positions in [0, capacity), keyed by a value which can be updated.</br>
+ *
+ * Used to track the leaf with the longest head without scanning all leaves after an update. Among positions with the
+ * same value, the smallest position is on top.
+ */
+final class PositionMaxHeap {
+
+    private final int[] heap;
+    /** Index of each position in the heap, -1 if the position is not in the heap */
+    private final int[] slots;
+    private final double[] values;
+    private int size = 0;
+
+    PositionMaxHeap(final int capacity) {
+        this.heap = new int[capacity];
+        this.slots = new int[capacity];
+        this.values = new double[capacity];
+        Arrays.fill(slots, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the position with the highest value
+     */
+    int peek() {
+        assert size > 0 : "The heap is empty";
+        return heap[0];
+    }
+
+    /**
+     * @return the highest value
+     */
+    double peekValue() {
+        return values[peek()];
+    }
+
+    /**
+     * Add a position or change its value
+     */
+    void update(final int position, final double value) {
+        final double previous = values[position];
+        values[position] = value;
+        if (slots[position] < 0) {
+            heap[size] = position;
+            slots[position] = size;
+            siftUp(size++);
+        } else if (value > previous) {
+            siftUp(slots[position]);
+        } else {
+            siftDown(slots[position]);
+        }
+    }
+
+    private boolean before(final int first, final int second) {
+        final int compare = Double.compare(values[first], values[second]);
+        return compare > 0 || compare == 0 && first < second;
+    }
+
+    private void siftUp(final int slot) {
+        final int position = heap[slot];
+        int child = slot;
+        while (child > 0) {
+            final int parent = (child - 1) >>> 1;
+            if (!before(position, heap[parent])) {
+                break;
+            }
+            move(heap[parent], child);
+            child = parent;
+        }
+        move(position, child);
+    }
+
+    private void siftDown(final int slot) {
+        final int position = heap[slot];
+        int parent = slot;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], position)) {
+                break;
+            }
+            move(heap[child], parent);
+            parent = child;
+        }
+        move(position, parent);
+    }
+
+    private void move(final int position, final int slot) {
+        heap[slot] = position;
+        slots[position] = slot;
+    }
+
+}
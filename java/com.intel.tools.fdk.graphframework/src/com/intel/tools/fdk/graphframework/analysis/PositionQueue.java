@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.analysis;
+
+/**
+ * Binary min-heap of distinct positions in [0, capacity).</br>
+ *
+ * Used to process leaves impacted by an update in topological order, each leaf being queued at most once.
+ */
+final class PositionQueue {
+
+    private final int[] heap;
+    private final boolean[] queued;
+    private int size = 0;
+
+    PositionQueue(final int capacity) {
+        this.heap = new int[capacity];
+        this.queued = new boolean[capacity];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Queue a position if it is not already queued
+     */
+    void offer(final int position) {
+        if (queued[position]) {
+            return;
+        }
+        queued[position] = true;
+        int child = size++;
+        while (child > 0) {
+            final int parent = (child - 1) >>> 1;
+            if (heap[parent] <= position) {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = position;
+    }
+
+    /**
+     * @return the smallest queued position
+     */
+    int poll() {
+        assert size > 0 : "The queue is empty";
+        final int result = heap[0];
+        queued[result] = false;
+        final int last = heap[--size];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = last;
+        return result;
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.analysis;
+
+import java.util.Optional;
+import java.util.function.ToDoubleFunction;
+
+import com.intel.tools.fdk.graphframework.graph.IGroup;
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.ILink;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Static throughput estimation of a dataflow graph.</br>
+ *
+ * Leaves are annotated with a service rate, links with a bandwidth and groups with an optional rate limit applying to
+ * every leaf they contain (directly or not). All rates are expressed in the same unit (e.g. messages per second).
+ * </br>
+ * The throughput of a leaf is the lowest of its effective service rate (its own rate capped by the limits of its
+ * enclosing groups) and of the flows of its linked inputs. The flow of a link is the lowest of its bandwidth and of
+ * the throughput of its source leaf.</br>
+ * For each leaf, the engine reports the bottleneck leaf and the bottleneck link of the path limiting its throughput.
+ * </br>
+ * The engine is bound to the structure of the graph at construction time. When a single annotation changes, the
+ * update methods only recompute the downstream cone of the modified element, and stop where throughputs do not change.
+ * Leaves belonging to a cycle, or downstream of a cycle, are ignored.
+ */
+public class RatePropagation {
+
+    /** Rate limit of a group which does not limit its leaves */
+    public static final double UNLIMITED = Double.POSITIVE_INFINITY;
+
+    private final NodeContainer graph;
+    private final DataflowIndex index;
+    private final ToDoubleFunction<ILeaf> serviceRate;
+    private final ToDoubleFunction<ILink> bandwidth;
+    private final ToDoubleFunction<IGroup> groupRate;
+
+    private final double[] serviceRates;
+    /** Lowest rate limit of groups enclosing each leaf */
+    private final double[] groupLimits;
+    private final double[] bandwidths;
+
+    private final double[] throughputs;
+    /** Input link limiting the throughput of each leaf, -1 if the leaf is limited by its own rate */
+    private final int[] limitingInputs;
+    /** Leaf with the lowest effective rate along the limiting path of each leaf */
+    private final int[] bottleneckLeaves;
+    /** Link with the lowest bandwidth along the limiting path of each leaf, -1 if the path has no link */
+    private final int[] bottleneckLinks;
+    /**
+     * Effective rate of the bottleneck leaf and bandwidth of the bottleneck link of each leaf, as used by downstream
+     * leaves to choose their own bottlenecks
+     */
+    private final double[] bottleneckRates;
+    private final double[] bottleneckBandwidths;
+
+    private final PositionQueue queue;
+
+    /**
+     * Create an engine without group limits
+     *
+     * @param graph
+     *            the analyzed graph
+     * @param serviceRate
+     *            supply the service rate of a leaf
+     * @param bandwidth
+     *            supply the bandwidth of a link
+     */
+    public RatePropagation(final NodeContainer graph, final ToDoubleFunction<ILeaf> serviceRate,
+            final ToDoubleFunction<ILink> bandwidth) {
+        this(graph, serviceRate, bandwidth, group -> UNLIMITED);
+    }
+
+    /**
+     * @param graph
+     *            the analyzed graph
+     * @param serviceRate
+     *            supply the service rate of a leaf
+     * @param bandwidth
+     *            supply the bandwidth of a link
+     * @param groupRate
+     *            supply the rate limit of a group, {@link #UNLIMITED} if the group does not limit its leaves
+     */
+    public RatePropagation(final NodeContainer graph, final ToDoubleFunction<ILeaf> serviceRate,
+            final ToDoubleFunction<ILink> bandwidth, final ToDoubleFunction<IGroup> groupRate) {
+        this.graph = graph;
+        this.index = new DataflowIndex(graph);
+        this.serviceRate = serviceRate;
+        this.bandwidth = bandwidth;
+        this.groupRate = groupRate;
+
+        final int leafCount = index.leaves.length;
+        this.serviceRates = new double[leafCount];
+        this.groupLimits = new double[leafCount];
+        this.bandwidths = new double[index.links.length];
+        this.throughputs = new double[leafCount];
+        this.limitingInputs = new int[leafCount];
+        this.bottleneckLeaves = new int[leafCount];
+        this.bottleneckLinks = new int[leafCount];
+        this.bottleneckRates = new double[leafCount];
+        this.bottleneckBandwidths = new double[leafCount];
+        this.queue = new PositionQueue(leafCount);
+
+        for (int i = 0; i < leafCount; i++) {
+            serviceRates[i] = serviceRate.applyAsDouble(index.leaves[i]);
+            groupLimits[i] = computeGroupLimit(index.leaves[i]);
+            throughputs[i] = Double.NaN;
+            limitingInputs[i] = -1;
+            bottleneckLeaves[i] = -1;
+            bottleneckLinks[i] = -1;
+            bottleneckRates[i] = Double.NaN;
+            bottleneckBandwidths[i] = Double.NaN;
+        }
+        for (int i = 0; i < index.links.length; i++) {
+            bandwidths[i] = bandwidth.applyAsDouble(index.links[i]);
+        }
+        for (int position = 0; position < index.orderedCount; position++) {
+            compute(index.order[position]);
+        }
+    }
+
+    /**
+     * Read again the service rate of a leaf and update throughputs
+     *
+     * @param leaf
+     *            the leaf which rate changed
+     */
+    public void updateRate(final ILeaf leaf) {
+        final int leafIndex = index.indexOf((Leaf) leaf);
+        serviceRates[leafIndex] = serviceRate.applyAsDouble(leaf);
+        propagate(leafIndex);
+    }
+
+    /**
+     * Read again the rate limit of a group and update throughputs
+     *
+     * @param group
+     *            the group which limit changed
+     */
+    public void updateRate(final IGroup group) {
+        ((Group) group).getAllLeaves().forEach(leaf -> {
+            final int leafIndex = index.indexOf(leaf);
+            groupLimits[leafIndex] = computeGroupLimit(leaf);
+            if (index.isOrdered(leafIndex)) {
+                queue.offer(index.positions[leafIndex]);
+            }
+        });
+        propagateQueued();
+    }
+
+    /**
+     * Read again the bandwidth of a link and update throughputs
+     *
+     * @param link
+     *            the link which bandwidth changed
+     */
+    public void updateBandwidth(final ILink link) {
+        final int linkIndex = index.indexOf((Link) link);
+        bandwidths[linkIndex] = bandwidth.applyAsDouble(link);
+        propagate(index.linkTargets[linkIndex]);
+    }
+
+    /**
+     * @param leaf
+     *            an analyzed leaf
+     * @return the throughput of the leaf, NaN if the leaf is part of a cycle
+     */
+    public double getThroughput(final ILeaf leaf) {
+        return throughputs[index.indexOf((Leaf) leaf)];
+    }
+
+    /**
+     * @param leaf
+     *            an analyzed leaf
+     * @return the leaf with the lowest effective rate on the path limiting the throughput of the given leaf, empty if
+     *         the leaf is part of a cycle
+     */
+    public Optional<ILeaf> getBottleneckLeaf(final ILeaf leaf) {
+        final int bottleneck = bottleneckLeaves[index.indexOf((Leaf) leaf)];
+        return bottleneck < 0 ? Optional.empty() : Optional.of(index.leaves[bottleneck]);
+    }
+
+    /**
+     * @param leaf
+     *            an analyzed leaf
+     * @return the link with the lowest bandwidth on the path limiting the throughput of the given leaf, empty if this
+     *         path has no link
+     */
+    public Optional<ILink> getBottleneckLink(final ILeaf leaf) {
+        final int bottleneck = bottleneckLinks[index.indexOf((Leaf) leaf)];
+        return bottleneck < 0 ? Optional.empty() : Optional.of(index.links[bottleneck]);
+    }
+
+    /**
+     * @param leaf
+     *            an analyzed leaf
+     * @return the input link limiting the throughput of the leaf, empty if the leaf is limited by its own rate
+     */
+    public Optional<ILink> getLimitingInput(final ILeaf leaf) {
+        final int input = limitingInputs[index.indexOf((Leaf) leaf)];
+        return input < 0 ? Optional.empty() : Optional.of(index.links[input]);
+    }
+
+    private double computeGroupLimit(final Leaf leaf) {
+        double limit = UNLIMITED;
+        NodeContainer parent = leaf.getParent();
+        while (parent instanceof Group && parent != graph) {
+            limit = Math.min(limit, groupRate.applyAsDouble((Group) parent));
+            parent = ((Group) parent).getParent();
+        }
+        return limit;
+    }
+
+    private void propagate(final int origin) {
+        if (index.isOrdered(origin)) {
+            queue.offer(index.positions[origin]);
+            propagateQueued();
+        }
+    }
+
+    /**
+     * Recompute queued leaves and their downstream cone in topological order
+     */
+    private void propagateQueued() {
+        while (!queue.isEmpty()) {
+            final int leaf = index.order[queue.poll()];
+            if (compute(leaf)) {
+                for (int j = index.outOffsets[leaf]; j < index.outOffsets[leaf + 1]; j++) {
+                    final int target = index.linkTargets[index.outLinks[j]];
+                    if (index.isOrdered(target)) {
+                        queue.offer(index.positions[target]);
+                    }
+                }
+            }
+        }
+    }
+
+    private double effectiveRate(final int leaf) {
+        return Math.min(serviceRates[leaf], groupLimits[leaf]);
+    }
+
+    /**
+     * @return true if the throughput or the bottlenecks of the leaf changed, including the rate of the bottleneck leaf
+     *         and the bandwidth of the bottleneck link which downstream leaves compare to their own
+     */
+    private boolean compute(final int leaf) {
+        double throughput = effectiveRate(leaf);
+        int limitingInput = -1;
+        for (int j = index.inOffsets[leaf]; j < index.inOffsets[leaf + 1]; j++) {
+            final int link = index.inLinks[j];
+            final double flow = Math.min(bandwidths[link], throughputs[index.linkSources[link]]);
+            if (flow < throughput) {
+                throughput = flow;
+                limitingInput = link;
+            }
+        }
+
+        int bottleneckLeaf = leaf;
+        int bottleneckLink = -1;
+        if (limitingInput >= 0) {
+            final int source = index.linkSources[limitingInput];
+            if (effectiveRate(bottleneckLeaves[source]) < effectiveRate(leaf)) {
+                bottleneckLeaf = bottleneckLeaves[source];
+            }
+            bottleneckLink = bottleneckLinks[source];
+            if (bottleneckLink < 0 || bandwidths[limitingInput] < bandwidths[bottleneckLink]) {
+                bottleneckLink = limitingInput;
+            }
+        }
+
+        final double bottleneckRate = effectiveRate(bottleneckLeaf);
+        final double bottleneckBandwidth = bottleneckLink < 0 ? UNLIMITED : bandwidths[bottleneckLink];
+
+        final boolean changed = Double.compare(throughput, throughputs[leaf]) != 0
+                || limitingInput != limitingInputs[leaf] || bottleneckLeaf != bottleneckLeaves[leaf]
+                || bottleneckLink != bottleneckLinks[leaf]
+                || Double.compare(bottleneckRate, bottleneckRates[leaf]) != 0
+                || Double.compare(bottleneckBandwidth, bottleneckBandwidths[leaf]) != 0;
+        throughputs[leaf] = throughput;
+        limitingInputs[leaf] = limitingInput;
+        bottleneckLeaves[leaf] = bottleneckLeaf;
+        bottleneckLinks[leaf] = bottleneckLink;
+        bottleneckRates[leaf] = bottleneckRate;
+        bottleneckBandwidths[leaf] = bottleneckBandwidth;
+        return changed;
+    }
+
+}
@@ -54,12 +54,16 @@ public class GraphDisplayer {
     private final ScalableFreeformLayeredPane scalablePane = new ScalableFreeformLayeredPane();
 
     private final FDKViewPort viewport;
+    /** Delivers model events to the figures of this displayer on the UI thread */
+    private final GraphEventDispatcher eventDispatcher;
 
     public GraphDisplayer(final Composite parent, final int style) {
         this.changeSupport = new PropertyChangeSupport(this);
         // Create a new canvas with scrollbars
         canvas = new FigureCanvas(parent, style);
         canvas.setScrollBarVisibility(FigureCanvas.AUTOMATIC);
+        // Figures created from now on the UI thread find the dispatcher through GraphEventDispatcher.getCurrent()
+        eventDispatcher = GraphEventDispatcher.getDispatcher(canvas.getDisplay());
 
         // Add needed layers
         scalablePane.add(new BackgroundLayer(), BACKGROUND_LAYER);
@@ -85,6 +89,13 @@ public class GraphDisplayer {
         return canvas;
     }
 
+    /**
+     * @return the dispatcher delivering model events to the displayed figures, shared by the displayers of the display
+     */
+    public GraphEventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
     /** Retrieves Layer holder of this displayer */
     public Layer getScalableLayers() {
         return scalablePane;
@@ -159,16 +170,22 @@ public class GraphDisplayer {
         changeSupport.firePropertyChange(SCALE_PROPERTY, old, newZoom);
     }
 
+    /** Remove all figures and property change listeners */
     public void reset() {
+        clear();
+        for (final PropertyChangeListener listener : changeSupport.getPropertyChangeListeners()) {
+            changeSupport.removePropertyChangeListener(listener);
+        }
+    }
+
+    /** Remove all figures, property change listeners are kept */
+    public void clear() {
         getContentLayer().removeAll();
         scalablePane.getLayer(CONNECTION_LAYER).removeAll();
         scalablePane.getLayer(FEEDBACK_LAYER).removeAll();
         scalablePane.getLayer(BACKGROUND_LAYER).removeAll();
         layers.getLayer(DECORATION_LAYER).removeAll();
         layers.getLayer(TOOLS_LAYER).removeAll();
-        for (final PropertyChangeListener listener : changeSupport.getPropertyChangeListeners()) {
-            changeSupport.removePropertyChangeListener(listener);
-        }
     }
 
     public synchronized void addPropertyChangeListener(final PropertyChangeListener listener) {
@@ -0,0 +1,395 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.displayer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+
+import com.intel.tools.fdk.graphframework.graph.IGraph;
+import com.intel.tools.fdk.graphframework.graph.IGroup;
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.INodeContainer.INodeContainerListener;
+import com.intel.tools.fdk.graphframework.graph.Style.IStyleListener;
+import com.intel.tools.fdk.graphframework.graph.adapter.IAdapter.IGraphListener;
+
+/**
+ * Deliver graph model events to the UI thread.</br>
+ *
+ * Model listeners are notified on the thread which modifies the model. A listener wrapped by this dispatcher only
+ * queues the received event, the queue is delivered on the UI thread through {@link Display#asyncExec(Runnable)} at
+ * most once per frame.</br>
+ * Redundant events are merged while they are waiting for delivery:
+ * <ul>
+ * <li>only the last value of a style property is delivered,</li>
+ * <li>a node added then removed (or removed then added) from a container is not delivered,</li>
+ * <li>only the last graph update is delivered.</li>
+ * </ul>
+ *
+ * Listeners implementing {@link ISynchronousListener} are not wrapped and keep being notified synchronously.</br>
+ * The wrapper returned at registration must be used to unregister the listener, it should then be
+ * {@link #cancel(Object) canceled} to drop its pending events.</br>
+ *
+ * Displayers of a display share the dispatcher returned by {@link #getDispatcher(Display)}. Figures and presenters,
+ * which do not know their displayer, wrap their listeners with {@link #wrapCurrent(IStyleListener)}: the dispatcher of
+ * the current UI thread is used if a displayer has been created on it.
+ */
+public class GraphEventDispatcher {
+
+    /** Marker interface for listeners which must be notified synchronously on the modifying thread */
+    public interface ISynchronousListener {
+    }
+
+    /** Minimal duration between two deliveries (a frame at 60 fps) */
+    private static final long FRAME_DURATION = TimeUnit.MILLISECONDS.toNanos(16);
+
+    /** Kinds of events, used with the listener to identify events which can be merged */
+    private enum EventKind {
+        LABEL, ICON, FOREGROUND, BACKGROUND, NODE, GRAPH
+    }
+
+    /** Dispatcher of each display, guarded by itself */
+    private static final Map<Display, GraphEventDispatcher> DISPATCHERS = new HashMap<>();
+
+    private final Display display;
+
+    /** Events waiting for delivery, protected by their own monitor */
+    private final Map<EventKey, PendingEvent> pendingEvents = new LinkedHashMap<>();
+    private boolean deliveryScheduled = false;
+    /** Time of the last delivery, only accessed from the UI thread */
+    private long lastDelivery = System.nanoTime() - FRAME_DURATION;
+
+    /**
+     * @param display
+     *            the display which thread receives events
+     */
+    public GraphEventDispatcher(final Display display) {
+        this.display = display;
+    }
+
+    /**
+     * Get the dispatcher shared by the displayers of a display, it is created on first use and forgotten once the
+     * display is disposed
+     *
+     * @param display
+     *            the display which thread receives events
+     * @return the dispatcher of the display
+     */
+    public static GraphEventDispatcher getDispatcher(final Display display) {
+        synchronized (DISPATCHERS) {
+            GraphEventDispatcher dispatcher = DISPATCHERS.get(display);
+            if (dispatcher == null) {
+                dispatcher = new GraphEventDispatcher(display);
+                DISPATCHERS.put(display, dispatcher);
+                display.disposeExec(() -> {
+                    synchronized (DISPATCHERS) {
+                        DISPATCHERS.remove(display);
+                    }
+                });
+            }
+            return dispatcher;
+        }
+    }
+
+    /**
+     * @return the dispatcher of the display of the current thread, empty if the current thread is not a UI thread or
+     *         if no dispatcher has been created for its display
+     */
+    public static Optional<GraphEventDispatcher> getCurrent() {
+        final Display display = Display.getCurrent();
+        if (display == null) {
+            return Optional.empty();
+        }
+        synchronized (DISPATCHERS) {
+            return Optional.ofNullable(DISPATCHERS.get(display));
+        }
+    }
+
+    /**
+     * Wrap a style listener with the dispatcher of the current thread, if any
+     *
+     * @param listener
+     *            the listener to wrap
+     * @return the listener to register, the listener itself if there is no current dispatcher
+     */
+    public static IStyleListener wrapCurrent(final IStyleListener listener) {
+        return getCurrent().map(dispatcher -> dispatcher.wrap(listener)).orElse(listener);
+    }
+
+    /**
+     * Wrap a node container listener with the dispatcher of the current thread, if any
+     *
+     * @param listener
+     *            the listener to wrap
+     * @return the listener to register, the listener itself if there is no current dispatcher
+     */
+    public static INodeContainerListener wrapCurrent(final INodeContainerListener listener) {
+        return getCurrent().map(dispatcher -> dispatcher.wrap(listener)).orElse(listener);
+    }
+
+    /**
+     * Drop pending and future events of an unregistered listener
+     *
+     * @param listener
+     *            a listener returned by a wrap method, nothing is done for a listener which is not a wrapper
+     */
+    public static void cancel(final Object listener) {
+        if (listener instanceof DispatchedListener) {
+            ((DispatchedListener) listener).canceled = true;
+        }
+    }
+
+    /**
+     * Wrap a style listener to deliver its events on the UI thread
+     *
+     * @param listener
+     *            the listener to wrap
+     * @return the listener to register on a {@link com.intel.tools.fdk.graphframework.graph.Style}
+     */
+    public IStyleListener wrap(final IStyleListener listener) {
+        if (listener instanceof ISynchronousListener) {
+            return listener;
+        }
+        return new StyleListener(listener);
+    }
+
+    /**
+     * Wrap a node container listener to deliver its events on the UI thread
+     *
+     * @param listener
+     *            the listener to wrap
+     * @return the listener to register on a {@link com.intel.tools.fdk.graphframework.graph.INodeContainer}
+     */
+    public INodeContainerListener wrap(final INodeContainerListener listener) {
+        if (listener instanceof ISynchronousListener) {
+            return listener;
+        }
+        return new NodeContainerListener(listener);
+    }
+
+    /**
+     * Wrap a graph listener to deliver its events on the UI thread
+     *
+     * @param listener
+     *            the listener to wrap
+     * @return the listener to register on a {@link com.intel.tools.fdk.graphframework.graph.adapter.IAdapter}
+     */
+    public IGraphListener wrap(final IGraphListener listener) {
+        if (listener instanceof ISynchronousListener) {
+            return listener;
+        }
+        return new GraphListener(listener);
+    }
+
+    /**
+     * Deliver immediately all pending events.</br>
+     * This method must be called from the UI thread.
+     */
+    public void flush() {
+        assert Display.getCurrent() == display : "Events must be delivered on the UI thread";
+        final PendingEvent[] events;
+        synchronized (pendingEvents) {
+            events = pendingEvents.values().toArray(new PendingEvent[pendingEvents.size()]);
+            pendingEvents.clear();
+            deliveryScheduled = false;
+        }
+        lastDelivery = System.nanoTime();
+        Arrays.stream(events).forEach(event -> event.delivery.run());
+    }
+
+    /**
+     * Queue an event replacing any pending event with the same key
+     */
+    private void post(final EventKey key, final Runnable delivery) {
+        final boolean schedule;
+        synchronized (pendingEvents) {
+            // A merged event keeps the position of the first one and the delivery of the latest one
+            pendingEvents.merge(key, new PendingEvent(delivery, false), (pending, latest) -> latest);
+            schedule = !deliveryScheduled;
+            deliveryScheduled = true;
+        }
+        if (schedule) {
+            scheduleDelivery();
+        }
+    }
+
+    /**
+     * Queue a membership event, an addition and a removal of the same node cancel each other
+     */
+    private void postMembership(final EventKey key, final boolean addition, final Runnable delivery) {
+        final boolean schedule;
+        synchronized (pendingEvents) {
+            // A merged event keeps the position of the first one, opposite events are both dropped
+            pendingEvents.compute(key, (unused, pending) -> pending == null || pending.addition == addition
+                    ? new PendingEvent(delivery, addition) : null);
+            schedule = !deliveryScheduled && !pendingEvents.isEmpty();
+            deliveryScheduled |= schedule;
+        }
+        if (schedule) {
+            scheduleDelivery();
+        }
+    }
+
+    private void scheduleDelivery() {
+        if (!display.isDisposed()) {
+            display.asyncExec(() -> {
+                if (display.isDisposed()) {
+                    return;
+                }
+                final long wait = lastDelivery + FRAME_DURATION - System.nanoTime();
+                if (wait > 0) {
+                    display.timerExec((int) TimeUnit.NANOSECONDS.toMillis(wait) + 1, this::flush);
+                } else {
+                    flush();
+                }
+            });
+        }
+    }
+
+    /**
+     * Wrapper of a listener, its events are dropped once canceled
+     */
+    private abstract static class DispatchedListener {
+        private volatile boolean canceled = false;
+
+        Runnable deliver(final Runnable delivery) {
+            return () -> {
+                if (!canceled) {
+                    delivery.run();
+                }
+            };
+        }
+    }
+
+    private final class StyleListener extends DispatchedListener implements IStyleListener {
+        private final IStyleListener listener;
+
+        private StyleListener(final IStyleListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void labelUpdated(final Optional<String> label) {
+            post(new EventKey(listener, EventKind.LABEL), deliver(() -> listener.labelUpdated(label)));
+        }
+
+        @Override
+        public void iconUpdated(final Optional<Image> icon) {
+            post(new EventKey(listener, EventKind.ICON), deliver(() -> listener.iconUpdated(icon)));
+        }
+
+        @Override
+        public void foregroundUpdated(final Color color) {
+            post(new EventKey(listener, EventKind.FOREGROUND), deliver(() -> listener.foregroundUpdated(color)));
+        }
+
+        @Override
+        public void backgroundUpdated(final Color color) {
+            post(new EventKey(listener, EventKind.BACKGROUND), deliver(() -> listener.backgroundUpdated(color)));
+        }
+    }
+
+    private final class NodeContainerListener extends DispatchedListener implements INodeContainerListener {
+        private final INodeContainerListener listener;
+
+        private NodeContainerListener(final INodeContainerListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void leafAdded(final ILeaf addedLeaf) {
+            postMembership(new EventKey(listener, EventKind.NODE, addedLeaf), true,
+                    deliver(() -> listener.leafAdded(addedLeaf)));
+        }
+
+        @Override
+        public void groupAdded(final IGroup addedGroup) {
+            postMembership(new EventKey(listener, EventKind.NODE, addedGroup), true,
+                    deliver(() -> listener.groupAdded(addedGroup)));
+        }
+
+        @Override
+        public void leafRemoved(final ILeaf removedLeaf) {
+            postMembership(new EventKey(listener, EventKind.NODE, removedLeaf), false,
+                    deliver(() -> listener.leafRemoved(removedLeaf)));
+        }
+
+        @Override
+        public void groupRemoved(final IGroup removedGroup) {
+            postMembership(new EventKey(listener, EventKind.NODE, removedGroup), false,
+                    deliver(() -> listener.groupRemoved(removedGroup)));
+        }
+    }
+
+    private final class GraphListener extends DispatchedListener implements IGraphListener {
+        private final IGraphListener listener;
+
+        private GraphListener(final IGraphListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void graphUpdated(final IGraph graph) {
+            post(new EventKey(listener, EventKind.GRAPH), deliver(() -> listener.graphUpdated(graph)));
+        }
+    }
+
+    /** Event waiting for delivery */
+    private static final class PendingEvent {
+        private final Runnable delivery;
+        /** Used by membership events to know if the event is an addition or a removal */
+        private final boolean addition;
+
+        private PendingEvent(final Runnable delivery, final boolean addition) {
+            this.delivery = delivery;
+            this.addition = addition;
+        }
+    }
+
+    /** Identify events which can be merged: same listener, same kind and same subject */
+    private static final class EventKey {
+        private final Object listener;
+        private final EventKind kind;
+        private final INode subject;
+
+        private EventKey(final Object listener, final EventKind kind) {
+            this(listener, kind, null);
+        }
+
+        private EventKey(final Object listener, final EventKind kind, final INode subject) {
+            this.listener = listener;
+            this.kind = kind;
+            this.subject = subject;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof EventKey)) {
+                return false;
+            }
+            final EventKey other = (EventKey) obj;
+            return listener == other.listener && kind == other.kind && subject == other.subject;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(listener) * 31 + kind.hashCode()) * 31 + System.identityHashCode(subject);
+        }
+    }
+
+}
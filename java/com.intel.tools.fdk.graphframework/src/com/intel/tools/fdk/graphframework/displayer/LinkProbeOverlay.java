@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.displayer;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.draw2d.Label;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.widgets.Display;
+
+import com.intel.tools.fdk.graphframework.figure.link.LinkFigure;
+import com.intel.tools.fdk.graphframework.graph.ILink;
+import com.intel.tools.fdk.graphframework.runtime.probe.LinkStatistics;
+import com.intel.tools.utils.IntelPalette;
+
+/**
+ * Display live link statistics on a {@link GraphDisplayer}.</br>
+ *
+ * Statistics are written in the label of the link style and displayed in the tools layer, at the middle of the link.
+ * The previous label of a link style is restored once the link is not observed anymore or when the overlay is
+ * disposed.</br>
+ * {@link #update(Map)} can be called from any thread: figures are updated in a single UI task, and statistics
+ * received while a task is pending replace the pending ones.
+ */
+public class LinkProbeOverlay {
+
+    private final GraphDisplayer displayer;
+    private final Display display;
+    private final Map<ILink, Label> labels = new HashMap<>();
+    /** Label of each observed link style before statistics were written in it */
+    private final Map<ILink, Optional<String>> savedLabels = new HashMap<>();
+
+    /** Statistics waiting to be displayed, null if no UI task is pending */
+    private final AtomicReference<Map<ILink, LinkStatistics>> pending = new AtomicReference<>();
+
+    /**
+     * @param displayer
+     *            the displayer showing the observed links
+     */
+    public LinkProbeOverlay(final GraphDisplayer displayer) {
+        this.displayer = displayer;
+        this.display = displayer.getControl().getDisplay();
+    }
+
+    /**
+     * Display new statistics, links absent from the given map are not decorated anymore
+     *
+     * @param statistics
+     *            the last statistics of links
+     */
+    public void update(final Map<ILink, LinkStatistics> statistics) {
+        if (pending.getAndSet(statistics) == null && !display.isDisposed()) {
+            display.asyncExec(new Runnable() {
+                @Override
+                public void run() {
+                    apply(pending.getAndSet(null));
+                }
+            });
+        }
+    }
+
+    /**
+     * Remove all decorations and restore link style labels, must be called from the UI thread
+     */
+    public void dispose() {
+        labels.values().forEach(this::removeLabel);
+        labels.clear();
+        savedLabels.forEach(LinkProbeOverlay::restoreLabel);
+        savedLabels.clear();
+    }
+
+    private void apply(final Map<ILink, LinkStatistics> statistics) {
+        if (statistics == null || displayer.getControl().isDisposed()) {
+            return;
+        }
+        final Map<ILink, LinkFigure> linkFigures = new HashMap<>();
+        for (final Object figure : displayer.getConnectionLayer().getChildren()) {
+            if (figure instanceof LinkFigure) {
+                linkFigures.put(((LinkFigure) figure).getLink(), (LinkFigure) figure);
+            }
+        }
+
+        final Iterator<Entry<ILink, Label>> iterator = labels.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Entry<ILink, Label> entry = iterator.next();
+            if (!statistics.containsKey(entry.getKey())) {
+                removeLabel(entry.getValue());
+                iterator.remove();
+            }
+        }
+        final Iterator<Entry<ILink, Optional<String>>> savedIterator = savedLabels.entrySet().iterator();
+        while (savedIterator.hasNext()) {
+            final Entry<ILink, Optional<String>> entry = savedIterator.next();
+            if (!statistics.containsKey(entry.getKey())) {
+                restoreLabel(entry.getKey(), entry.getValue());
+                savedIterator.remove();
+            }
+        }
+
+        statistics.forEach((link, statistic) -> {
+            final String text = statistic.toString();
+            savedLabels.computeIfAbsent(link, key -> key.getStyle().getLabel());
+            link.getStyle().setLabel(text);
+            final LinkFigure linkFigure = linkFigures.get(link);
+            if (linkFigure != null) {
+                final Label label = labels.computeIfAbsent(link, key -> createLabel());
+                if (label.getParent() == null) {
+                    // Tools layer is cleared when the graph is displayed again
+                    displayer.getToolsLayer().add(label);
+                }
+                label.setText(text);
+                placeLabel(label, linkFigure);
+            }
+        });
+    }
+
+    private static void restoreLabel(final ILink link, final Optional<String> label) {
+        link.getStyle().setLabel(label.orElse(null));
+    }
+
+    private Label createLabel() {
+        final Label label = new Label();
+        label.setForegroundColor(IntelPalette.INTEL_BLUE);
+        return label;
+    }
+
+    private void removeLabel(final Label label) {
+        if (label.getParent() != null) {
+            label.getParent().remove(label);
+        }
+    }
+
+    /**
+     * Center the label on the middle of the link, the link being in a scaled layer
+     */
+    private void placeLabel(final Label label, final LinkFigure linkFigure) {
+        final Point middle = linkFigure.getPoints().getMidpoint().getCopy();
+        linkFigure.translateToAbsolute(middle);
+        label.translateToRelative(middle);
+        final Dimension size = label.getPreferredSize();
+        label.setBounds(new Rectangle(middle.x - size.width / 2,
+                middle.y - size.height / 2, size.width, size.height));
+    }
+
+}
@@ -11,6 +11,9 @@ package com.intel.tools.fdk.graphframework.displayer.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.eclipse.draw2d.GhostImageFigure;
 import org.eclipse.draw2d.IFigure;
@@ -20,15 +23,19 @@ import org.eclipse.draw2d.MouseMotionListener;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.widgets.Display;
 
 import com.intel.tools.fdk.graphframework.displayer.GraphDisplayer;
 import com.intel.tools.fdk.graphframework.figure.IGraphFigure;
 import com.intel.tools.fdk.graphframework.figure.node.GroupBodyFigure;
 import com.intel.tools.fdk.graphframework.figure.node.LeafBodyFigure;
+import com.intel.tools.fdk.graphframework.graph.INode;
 
 /**
  * Controller allowing to move a figure which is in the content layer.</br>
- * Only Node Figure of the {@link GraphDisplayer} will be moved.
+ * Only Node Figure of the {@link GraphDisplayer} will be moved.</br>
+ * During a drag, the figure is moved at most once per frame: mouse events received in between only update the
+ * destination, links and labels following the figure are thus updated once per frame.
  */
 public class NodeMoveController {
 
@@ -37,6 +44,8 @@ public class NodeMoveController {
 
     /** Ghost alpha value in range 0-255 */
     private static final int GHOST_ALPHA = 128;
+    /** Minimal duration between two moves during a drag (a frame at 60 fps) */
+    private static final long FRAME_DURATION = TimeUnit.MILLISECONDS.toNanos(16);
 
     public interface FigureMoveListener {
         /** This event is fired when the movement has ended (once the mouse is released) */
@@ -56,17 +65,28 @@ public class NodeMoveController {
     /** Snap figure to grid */
     private boolean snapToGrid;
 
+    private final Display display;
+    /** Location waiting to be applied to the moving figure, null if none */
+    private Point pendingLocation;
+    private boolean moveScheduled = false;
+    /** Time of the last move during the drag */
+    private long lastMove = System.nanoTime() - FRAME_DURATION;
+
     private final List<FigureMoveListener> listeners = new ArrayList<>();
+    /** Called with the moved node once its figure is at its destination */
+    private Optional<Consumer<INode>> overlapRemoval = Optional.empty();
 
     /**
      * @param displayer
      *            the displayer which will allow component move
      */
     public NodeMoveController(final GraphDisplayer displayer) {
+        display = displayer.getControl().getDisplay();
         displayer.getContentLayer().addMouseListener(new MouseListener.Stub() {
             @Override
             public void mouseReleased(final MouseEvent event) {
                 if (movedFigure != null) {
+                    applyPendingMove();
                     displayer.getFeedbackLayer().remove(ghost);
                     final Point destination = new Point(event.x, event.y);
                     final Rectangle figureBounds = movingFigure.getBounds().getCopy();
@@ -79,6 +99,7 @@ public class NodeMoveController {
 
                     fireFigureMoved(movedFigure, destination);
                     movedFigure.setBounds(figureBounds);
+                    overlapRemoval.ifPresent(removal -> removal.accept(getNode(movedFigure)));
 
                     // Reset state
                     offset.setWidth(0);
@@ -118,14 +139,42 @@ public class NodeMoveController {
             @Override
             public void mouseDragged(final MouseEvent event) {
                 if (movedFigure != null) {
-                    final Rectangle bounds = movingFigure.getBounds().getCopy();
-                    bounds.setLocation(event.x - offset.width(), event.y - offset.height());
-                    movingFigure.setBounds(bounds);
+                    pendingLocation = new Point(event.x - offset.width(), event.y - offset.height());
+                    scheduleMove();
                 }
             }
         });
     }
 
+    private void scheduleMove() {
+        if (moveScheduled) {
+            return;
+        }
+        final long wait = lastMove + FRAME_DURATION - System.nanoTime();
+        if (wait > 0) {
+            moveScheduled = true;
+            display.timerExec((int) TimeUnit.NANOSECONDS.toMillis(wait) + 1, () -> {
+                moveScheduled = false;
+                applyPendingMove();
+            });
+        } else {
+            applyPendingMove();
+        }
+    }
+
+    /**
+     * Move the figure to the last dragged location
+     */
+    private void applyPendingMove() {
+        if (pendingLocation != null && movingFigure != null) {
+            final Rectangle bounds = movingFigure.getBounds().getCopy();
+            bounds.setLocation(pendingLocation);
+            movingFigure.setBounds(bounds);
+            lastMove = System.nanoTime();
+        }
+        pendingLocation = null;
+    }
+
     /**
      * @param visible
      *            true if the ghost should be moved and visible, false if the ghost should be hidden and static
@@ -142,6 +191,22 @@ public class NodeMoveController {
         this.snapToGrid = snapToGrid;
     }
 
+    /**
+     * @param overlapRemoval
+     *            called with the moved node once released, to move the nodes it overlaps (e.g.
+     *            LayoutGenerator::removeOverlaps), null to leave overlaps
+     */
+    public void setOverlapRemoval(final Consumer<INode> overlapRemoval) {
+        this.overlapRemoval = Optional.ofNullable(overlapRemoval);
+    }
+
+    private static INode getNode(final IFigure figure) {
+        if (figure instanceof LeafBodyFigure) {
+            return ((LeafBodyFigure) figure).getLeaf();
+        }
+        return ((GroupBodyFigure) figure).getGroup();
+    }
+
     private void fireFigureMoved(final IFigure figure, final Point destination) {
         listeners.forEach(listener -> listener.figureMoved(figure, destination));
     }
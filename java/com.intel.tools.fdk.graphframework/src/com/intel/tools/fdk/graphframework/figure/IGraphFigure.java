@@ -23,4 +23,11 @@ public interface IGraphFigure extends IFigure {
     /** Remove the highlight decoration of the figure */
     void unselect();
 
+    /**
+     * Release listeners registered by the figure on the graph model.</br>
+     * The figure must not be used anymore once disposed.
+     */
+    default void dispose() {
+    }
+
 }
@@ -13,11 +13,12 @@ import java.util.Optional;
 import java.util.function.Consumer;
 
 import org.eclipse.draw2d.AncestorListener;
+import org.eclipse.draw2d.FigureListener;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.Label;
-import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
 
+import com.intel.tools.fdk.graphframework.displayer.GraphEventDispatcher;
 import com.intel.tools.fdk.graphframework.graph.IGraphElement;
 import com.intel.tools.fdk.graphframework.graph.Style.IStyleListener;
 import com.intel.tools.utils.IntelPalette;
@@ -25,12 +26,26 @@ import com.intel.tools.utils.IntelPalette;
 /**
  * Decorates a sub-figure of the graph with a label.
  *
- * The label will be placed right under the binded figure and will follow its movement.
+ * The label will be placed right under the binded figure, or at another {@link LabelPosition}, and will follow its
+ * movement.
  */
 public class LabelFigure extends Label {
 
     private final Consumer<Object> layoutLabel;
 
+    private final IGraphElement element;
+    private final IFigure boundFigure;
+    /** Style listener registered on the model, events are delivered on the UI thread */
+    private final IStyleListener styleListener = GraphEventDispatcher.wrapCurrent(new IStyleListener() {
+        @Override
+        public void labelUpdated(final Optional<String> label) {
+            updateLabel(label);
+        }
+    });
+    private final FigureListener boundFigureListener;
+    private final AncestorListener ancestorListener;
+    private LabelPosition position = LabelPosition.BOTTOM;
+
     /**
      * @param element
      *            the decorated graph element which supply the label to display
@@ -38,25 +53,23 @@ public class LabelFigure extends Label {
      *            the figure under which the label will be positioned
      */
     public LabelFigure(final IGraphElement element, final IFigure boundFigure) {
+        this.element = element;
+        this.boundFigure = boundFigure;
         setForegroundColor(IntelPalette.INTEL_BLUE);
 
-        element.getStyle().addListener(new IStyleListener() {
-            @Override
-            public void labelUpdated(final Optional<String> label) {
-                updateLabel(label);
-            }
-        });
+        element.getStyle().addListener(styleListener);
 
         this.layoutLabel = source -> {
             final Rectangle bounds = boundFigure.getBounds().getCopy();
             if (getParent() != null && boundFigure.getParent() != null) {
                 boundFigure.getParent().translateToAbsolute(bounds);
                 getParent().translateToRelative(bounds);
-                setLocation(new Point(bounds.x + (bounds.width - getSize().width) / 2, bounds.y + bounds.height));
+                setLocation(position.getBounds(bounds, getSize()).getLocation());
             }
         };
 
-        final AncestorListener ancestorListener = new AncestorListener() {
+        this.boundFigureListener = layoutLabel::accept;
+        this.ancestorListener = new AncestorListener() {
             @Override
             public void ancestorAdded(final IFigure ancestor) {
                 layoutLabel.accept(boundFigure);
@@ -70,13 +83,52 @@ public class LabelFigure extends Label {
             public void ancestorRemoved(final IFigure ancestor) {
             }
         };
-        boundFigure.addFigureListener(layoutLabel::accept);
+        boundFigure.addFigureListener(boundFigureListener);
         boundFigure.addAncestorListener(ancestorListener);
         addAncestorListener(ancestorListener);
 
         updateLabel(element.getStyle().getLabel());
     }
 
+    /**
+     * @return the figure the label is positioned around
+     */
+    public IFigure getBoundFigure() {
+        return boundFigure;
+    }
+
+    /**
+     * @return the position of the label around its bound figure
+     */
+    public LabelPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Move the label around its bound figure
+     *
+     * @param position
+     *            the new position of the label
+     */
+    public void setPosition(final LabelPosition position) {
+        if (this.position != position) {
+            this.position = position;
+            layoutLabel.accept(this);
+        }
+    }
+
+    /**
+     * Stop following the bound figure and the label of the decorated element.</br>
+     * The label must not be used anymore once disposed.
+     */
+    public void dispose() {
+        element.getStyle().removeListener(styleListener);
+        GraphEventDispatcher.cancel(styleListener);
+        boundFigure.removeFigureListener(boundFigureListener);
+        boundFigure.removeAncestorListener(ancestorListener);
+        removeAncestorListener(ancestorListener);
+    }
+
     /**
      * Update label text and position
      *
@@ -85,7 +137,7 @@ public class LabelFigure extends Label {
      */
     private void updateLabel(final Optional<String> label) {
         setText(label.orElse(""));
-        // Label width is expanded to avoid cutting some text, then it is centered under the main rectangle
+        // Label width is expanded to avoid cutting some text, then it is placed around the main rectangle
         final int labelWidth = (int) Math.round(getTextBounds().width * 1.1);
         setSize(labelWidth, getTextBounds().height);
         layoutLabel.accept(this);
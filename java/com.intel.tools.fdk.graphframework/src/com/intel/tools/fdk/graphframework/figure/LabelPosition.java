@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.figure;
+
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Position of a {@link LabelFigure} around its bound figure.</br>
+ *
+ * Positions are declared by decreasing preference, the label touches the bound figure without overlapping it.
+ */
+public enum LabelPosition {
+
+    /** Centered under the figure, the default position */
+    BOTTOM(0, 1),
+    /** Centered above the figure */
+    TOP(0, -1),
+    BOTTOM_RIGHT(1, 1),
+    BOTTOM_LEFT(-1, 1),
+    TOP_RIGHT(1, -1),
+    TOP_LEFT(-1, -1),
+    /** Vertically centered on the right of the figure */
+    RIGHT(1, 0),
+    /** Vertically centered on the left of the figure */
+    LEFT(-1, 0);
+
+    /** -1 to place the label on the left of the figure, 1 on the right, 0 to center it */
+    private final int horizontal;
+    /** -1 to place the label above the figure, 1 under it, 0 to center it */
+    private final int vertical;
+
+    LabelPosition(final int horizontal, final int vertical) {
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+    }
+
+    /**
+     * Compute the bounds of a label
+     *
+     * @param figureBounds
+     *            bounds of the labeled figure
+     * @param labelSize
+     *            size of the label
+     * @return the label bounds at this position
+     */
+    public Rectangle getBounds(final Rectangle figureBounds, final Dimension labelSize) {
+        return new Rectangle(locate(horizontal, figureBounds.x, figureBounds.width, labelSize.width),
+                locate(vertical, figureBounds.y, figureBounds.height, labelSize.height), labelSize.width,
+                labelSize.height);
+    }
+
+    private static int locate(final int side, final int figureStart, final int figureLength, final int labelLength) {
+        if (side < 0) {
+            return figureStart - labelLength;
+        } else if (side > 0) {
+            return figureStart + figureLength;
+        }
+        return figureStart + (figureLength - labelLength) / 2;
+    }
+
+}
@@ -29,6 +29,11 @@ public class GhostPinFigure extends PolylineShape {
     private static final int CONNECTOR_SIZE = IGraphFigure.SIZE_UNIT / 2 + 4;
     private static final int SELECTION_PADDING = 1;
 
+    /** Width of a pin figure */
+    public static final int WIDTH = ARROW_SIZE + CONNECTOR_SIZE + SELECTION_PADDING * 2;
+    /** Height of a pin figure */
+    public static final int HEIGHT = Math.max(ARROW_SIZE, CONNECTOR_SIZE) + SELECTION_PADDING * 2;
+
     private final ArrowFigure arrow = new ArrowFigure(ARROW_SIZE, LINE_WIDTH);
     private final Ellipse connector = new Ellipse();
 
@@ -62,11 +67,11 @@ public class GhostPinFigure extends PolylineShape {
     }
 
     private int getDesiredWidth() {
-        return ARROW_SIZE + CONNECTOR_SIZE + SELECTION_PADDING * 2;
+        return WIDTH;
     }
 
     private int getDesiredHeight() {
-        return Math.max(ARROW_SIZE, CONNECTOR_SIZE) + SELECTION_PADDING * 2;
+        return HEIGHT;
     }
 
     protected ArrowFigure getArrow() {
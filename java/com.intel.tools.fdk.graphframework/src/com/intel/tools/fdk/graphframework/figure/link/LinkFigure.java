@@ -11,6 +11,7 @@ package com.intel.tools.fdk.graphframework.figure.link;
 
 import org.eclipse.swt.graphics.Color;
 
+import com.intel.tools.fdk.graphframework.displayer.GraphEventDispatcher;
 import com.intel.tools.fdk.graphframework.figure.IGraphFigure;
 import com.intel.tools.fdk.graphframework.figure.ghost.GhostLinkFigure;
 import com.intel.tools.fdk.graphframework.graph.ILink;
@@ -20,6 +21,8 @@ import com.intel.tools.fdk.graphframework.graph.Style.IStyleListener;
 public class LinkFigure extends GhostLinkFigure implements IGraphFigure, IStyleListener {
 
     private final ILink link;
+    /** Style listener registered on the model, events are delivered on the UI thread */
+    private final IStyleListener styleListener = GraphEventDispatcher.wrapCurrent(this);
 
     /**
      * @param link
@@ -33,7 +36,7 @@ public class LinkFigure extends GhostLinkFigure implements IGraphFigure, IStyleL
         super(source, target);
         this.link = link;
         setForegroundColor(link.getStyle().getForeground());
-        this.link.getStyle().addListener(this);
+        link.getStyle().addListener(styleListener);
     }
 
     @Override
@@ -46,6 +49,12 @@ public class LinkFigure extends GhostLinkFigure implements IGraphFigure, IStyleL
         setLineWidth(getLineWidth() - 1);
     }
 
+    @Override
+    public void dispose() {
+        link.getStyle().removeListener(styleListener);
+        GraphEventDispatcher.cancel(styleListener);
+    }
+
     /**
      * @return the link graph element associated to the figure
      */
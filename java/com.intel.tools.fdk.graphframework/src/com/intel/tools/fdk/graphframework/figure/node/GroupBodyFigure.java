@@ -15,6 +15,7 @@ import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
 
+import com.intel.tools.fdk.graphframework.displayer.GraphEventDispatcher;
 import com.intel.tools.fdk.graphframework.figure.IGraphFigure;
 import com.intel.tools.fdk.graphframework.graph.IGroup;
 import com.intel.tools.fdk.graphframework.graph.Style.IStyleListener;
@@ -26,6 +27,8 @@ public class GroupBodyFigure extends RoundedRectangle implements IGraphFigure, I
 
     /** The graph group this figure represents */
     private final IGroup group;
+    /** Style listener registered on the model, events are delivered on the UI thread */
+    private final IStyleListener styleListener = GraphEventDispatcher.wrapCurrent(this);
 
     private final RectangleFigure selection = new RectangleFigure();
 
@@ -54,7 +57,7 @@ public class GroupBodyFigure extends RoundedRectangle implements IGraphFigure, I
         selection.setVisible(false);
 
         add(selection);
-        group.getStyle().addListener(this);
+        group.getStyle().addListener(styleListener);
     }
 
     @Override
@@ -77,6 +80,12 @@ public class GroupBodyFigure extends RoundedRectangle implements IGraphFigure, I
         selection.setVisible(false);
     }
 
+    @Override
+    public void dispose() {
+        group.getStyle().removeListener(styleListener);
+        GraphEventDispatcher.cancel(styleListener);
+    }
+
     /**
      * @return the graph element associated to this figure
      */
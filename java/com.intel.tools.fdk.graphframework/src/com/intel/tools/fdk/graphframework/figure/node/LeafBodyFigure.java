@@ -13,6 +13,7 @@ import org.eclipse.draw2d.RectangleFigure;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.swt.graphics.Color;
 
+import com.intel.tools.fdk.graphframework.displayer.GraphEventDispatcher;
 import com.intel.tools.fdk.graphframework.figure.IGraphFigure;
 import com.intel.tools.fdk.graphframework.graph.ILeaf;
 import com.intel.tools.fdk.graphframework.graph.Style.IStyleListener;
@@ -31,6 +32,8 @@ public class LeafBodyFigure extends RectangleFigure implements IGraphFigure, ISt
 
     /** The graph leaf this figure represents */
     private final ILeaf leaf;
+    /** Style listener registered on the model, events are delivered on the UI thread */
+    private final IStyleListener styleListener = GraphEventDispatcher.wrapCurrent(this);
 
     /**
      * Creates a new {@link LeafBodyFigure}
@@ -63,7 +66,7 @@ public class LeafBodyFigure extends RectangleFigure implements IGraphFigure, ISt
         selection.setBounds(getBounds());
 
         add(selection);
-        this.leaf.getStyle().addListener(this);
+        leaf.getStyle().addListener(styleListener);
     }
 
     @Override
@@ -76,6 +79,12 @@ public class LeafBodyFigure extends RectangleFigure implements IGraphFigure, ISt
         selection.setVisible(false);
     }
 
+    @Override
+    public void dispose() {
+        leaf.getStyle().removeListener(styleListener);
+        GraphEventDispatcher.cancel(styleListener);
+    }
+
     /**
      * @return the graph element associated to this figure
      */
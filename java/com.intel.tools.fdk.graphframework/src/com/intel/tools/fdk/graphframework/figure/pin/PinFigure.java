@@ -14,6 +14,7 @@ import org.eclipse.draw2d.RectangleFigure;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.swt.graphics.Color;
 
+import com.intel.tools.fdk.graphframework.displayer.GraphEventDispatcher;
 import com.intel.tools.fdk.graphframework.figure.IGraphFigure;
 import com.intel.tools.fdk.graphframework.figure.ghost.GhostPinFigure;
 import com.intel.tools.fdk.graphframework.graph.IPin;
@@ -24,6 +25,8 @@ import com.intel.tools.utils.IntelPalette;
 public abstract class PinFigure<IOType extends IPin> extends GhostPinFigure implements IGraphFigure, IStyleListener {
 
     private final IOType pin;
+    /** Style listener registered on the model, events are delivered on the UI thread */
+    private final IStyleListener styleListener = GraphEventDispatcher.wrapCurrent(this);
 
     private final RectangleFigure selection = new RectangleFigure();
 
@@ -51,7 +54,7 @@ public abstract class PinFigure<IOType extends IPin> extends GhostPinFigure impl
         }
 
         add(selection);
-        this.pin.getStyle().addListener(this);
+        pin.getStyle().addListener(styleListener);
     }
 
     private void showPixelGrid(final IFigure figure) {
@@ -84,6 +87,12 @@ public abstract class PinFigure<IOType extends IPin> extends GhostPinFigure impl
         selection.setVisible(false);
     }
 
+    @Override
+    public void dispose() {
+        pin.getStyle().removeListener(styleListener);
+        GraphEventDispatcher.cancel(styleListener);
+    }
+
     /**
      * @return the pin graph element represented by this figure
      */
@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.intel.tools.fdk.graphframework.displayer.GraphEventDispatcher;
 import com.intel.tools.fdk.graphframework.graph.IGroup;
 import com.intel.tools.fdk.graphframework.graph.ILeaf;
 import com.intel.tools.fdk.graphframework.graph.INode;
@@ -28,6 +29,8 @@ public class DefaultPresenterManager implements IPresenterManager {
 
     private final Map<ILeaf, LeafPresenter> leafToPresenterMap = new HashMap<>();
     private final Map<IGroup, GroupPresenter> groupToPresenterMap = new HashMap<>();
+    /** Listeners registered on groups to keep their presenter children up to date */
+    private final Map<IGroup, INodeContainerListener> groupListeners = new HashMap<>();
 
     @Override
     public LeafPresenter getPresenter(final ILeaf leaf) {
@@ -39,13 +42,40 @@ public class DefaultPresenterManager implements IPresenterManager {
         return groupToPresenterMap.computeIfAbsent(group, this::setupGroupPresenter);
     }
 
+    @Override
+    public void release(final ILeaf leaf) {
+        final LeafPresenter presenter = leafToPresenterMap.remove(leaf);
+        if (presenter != null) {
+            presenter.dispose();
+        }
+    }
+
+    /**
+     * {@inheritDoc}</br>
+     * Presenters of nested groups are released too as they left the graph with their parent.
+     */
+    @Override
+    public void release(final IGroup group) {
+        group.getGroups().forEach(this::release);
+        final INodeContainerListener listener = groupListeners.remove(group);
+        if (listener != null) {
+            group.removeListener(listener);
+            GraphEventDispatcher.cancel(listener);
+        }
+        final GroupPresenter presenter = groupToPresenterMap.remove(group);
+        if (presenter != null) {
+            presenter.dispose();
+        }
+    }
+
     private GroupPresenter setupGroupPresenter(final IGroup group) {
         final Set<Presenter<? extends INode>> presenterList = new HashSet<>();
         presenterList.addAll(group.getLeaves().stream().map(this::getPresenter).collect(Collectors.toSet()));
         presenterList.addAll(group.getGroups().stream().map(this::getPresenter).collect(Collectors.toSet()));
 
         final GroupPresenter presenter = new GroupPresenter(group, presenterList);
-        group.addListener(new INodeContainerListener() {
+        // Membership events are delivered on the UI thread, once per frame
+        final INodeContainerListener listener = GraphEventDispatcher.wrapCurrent(new INodeContainerListener() {
 
             @Override
             public void leafAdded(final ILeaf addedLeaf) {
@@ -59,15 +89,25 @@ public class DefaultPresenterManager implements IPresenterManager {
 
             @Override
             public void leafRemoved(final ILeaf removedLeaf) {
-                presenter.remove(getPresenter(removedLeaf));
+                // The presenter may already have been released if the leaf has been deleted
+                final LeafPresenter removedPresenter = leafToPresenterMap.get(removedLeaf);
+                if (removedPresenter != null) {
+                    presenter.remove(removedPresenter);
+                }
             }
 
             @Override
             public void groupRemoved(final IGroup removedGroup) {
-                presenter.remove(getPresenter(removedGroup));
+                // The presenter may already have been released if the group has been deleted
+                final GroupPresenter removedPresenter = groupToPresenterMap.get(removedGroup);
+                if (removedPresenter != null) {
+                    presenter.remove(removedPresenter);
+                }
             }
 
         });
+        group.addListener(listener);
+        groupListeners.put(group, listener);
         return presenter;
     }
 
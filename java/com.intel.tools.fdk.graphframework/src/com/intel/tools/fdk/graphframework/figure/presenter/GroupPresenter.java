@@ -28,7 +28,7 @@ import com.intel.tools.fdk.graphframework.graph.INode;
 public class GroupPresenter extends Presenter<IGroup> {
 
     /** The offset used between the group figure bounds and its child */
-    private static final int OFFSET = 60;
+    public static final int OFFSET = 60;
 
     /** Track body movement to keep sub-elements together */
     private final FigureListener childListener = new FigureListener() {
@@ -142,4 +142,11 @@ public class GroupPresenter extends Presenter<IGroup> {
         updateBoundsFigure();
     }
 
+    @Override
+    public void dispose() {
+        this.childrenPresenters.forEach(presenter -> presenter.getNodeBody().removeFigureListener(childListener));
+        this.childrenPresenters.clear();
+        super.dispose();
+    }
+
 }
@@ -41,4 +41,26 @@ public interface IPresenterManager {
      */
     GroupPresenter getPresenter(final IGroup group);
 
+    /**
+     * Forget the presenter of a leaf which is not part of the graph anymore.
+     *
+     * The manager is responsible for disposing the presenters it created. By default, nothing is done.
+     *
+     * @param leaf
+     *            the removed node
+     */
+    default void release(final ILeaf leaf) {
+    }
+
+    /**
+     * Forget the presenter of a group which is not part of the graph anymore.
+     *
+     * The manager is responsible for disposing the presenters it created. By default, nothing is done.
+     *
+     * @param group
+     *            the removed node
+     */
+    default void release(final IGroup group) {
+    }
+
 }
@@ -17,10 +17,12 @@ import java.util.Map;
 import org.eclipse.draw2d.FigureListener;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.RectangleFigure;
+import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
 
 import com.intel.tools.fdk.graphframework.figure.IGraphFigure;
+import com.intel.tools.fdk.graphframework.figure.ghost.GhostPinFigure;
 import com.intel.tools.fdk.graphframework.figure.link.LinkAnchor;
 import com.intel.tools.fdk.graphframework.figure.node.LeafBodyFigure;
 import com.intel.tools.fdk.graphframework.figure.pin.InputFigure;
@@ -70,13 +72,7 @@ public class LeafPresenter extends Presenter<ILeaf> {
         this.boundsFigure.setVisible(false);
 
         // body configuration
-        int height = Integer.max(leaf.getInputs().size(), leaf.getOutputs().size());
-        if (height <= 1) {
-            height = BODY_BASE_HEIGHT;
-        } else {
-            height = height * PIN_DISTANCE + PIN_OFFSET;
-        }
-        this.body = new LeafBodyFigure(leaf, BODY_WIDTH, height);
+        this.body = new LeafBodyFigure(leaf, BODY_WIDTH, getBodyHeight(leaf));
         leaf.getInputs().forEach(pin -> setupPinFigure(pin, new InputFigure(pin), this.inputs));
         leaf.getOutputs().forEach(pin -> setupPinFigure(pin, new OutputFigure(pin), this.outputs));
 
@@ -101,6 +97,28 @@ public class LeafPresenter extends Presenter<ILeaf> {
         addLabel(leaf, body);
     }
 
+    /**
+     * Size of the bounds figure of a leaf presenter, computed without creating any figure (e.g. to lay out a graph
+     * without display)
+     *
+     * @param leaf
+     *            the represented leaf
+     * @return the size of the union of the body and pin figures
+     */
+    public static Dimension getBoundsSize(final ILeaf leaf) {
+        final int inputsWidth = leaf.getInputs().isEmpty() ? 0 : GhostPinFigure.WIDTH;
+        final int outputsWidth = leaf.getOutputs().isEmpty() ? 0 : GhostPinFigure.WIDTH;
+        return new Dimension(inputsWidth + BODY_WIDTH + outputsWidth, getBodyHeight(leaf));
+    }
+
+    private static int getBodyHeight(final ILeaf leaf) {
+        final int pinCount = Integer.max(leaf.getInputs().size(), leaf.getOutputs().size());
+        if (pinCount <= 1) {
+            return BODY_BASE_HEIGHT;
+        }
+        return pinCount * PIN_DISTANCE + PIN_OFFSET;
+    }
+
     private void layoutFigures(final IFigure source) {
         assert source == body : "The source figure is not the presenter body";
         inputs.forEach(figure -> {
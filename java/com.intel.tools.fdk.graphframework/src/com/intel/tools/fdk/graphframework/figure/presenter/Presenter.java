@@ -100,4 +100,23 @@ public abstract class Presenter<T extends INode> {
         displayableDecorations.add(new LabelFigure(element, boundFigure));
     }
 
+    /**
+     * Release listeners registered on the graph model by figures of the presenter.</br>
+     * The presenter must not be displayed anymore once disposed. Child classes registering their own listeners should
+     * override this method and call it.
+     */
+    public void dispose() {
+        displayableFigures.forEach(Presenter::disposeFigure);
+        displayableDecorations.forEach(Presenter::disposeFigure);
+        displayableTools.forEach(Presenter::disposeFigure);
+    }
+
+    private static void disposeFigure(final IFigure figure) {
+        if (figure instanceof IGraphFigure) {
+            ((IGraphFigure) figure).dispose();
+        } else if (figure instanceof LabelFigure) {
+            ((LabelFigure) figure).dispose();
+        }
+    }
+
 }
@@ -9,9 +9,9 @@
  */
 package com.intel.tools.fdk.graphframework.graph;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Image;
@@ -24,6 +24,8 @@ import com.intel.tools.utils.IntelPalette;
  * This object carry data provided by client which allows to customize the representation of a given
  * {@link IGraphElement}
  *
+ * A style can be updated from any thread. Listeners are notified on the updating thread.
+ *
  * @Todo add the alpha of the representation
  */
 public class Style {
@@ -45,12 +47,12 @@ public class Style {
         }
     }
 
-    private final List<IStyleListener> listeners = new ArrayList<>();
+    private final List<IStyleListener> listeners = new CopyOnWriteArrayList<>();
 
-    private Optional<String> label = Optional.empty();
-    private Optional<Image> icon = Optional.empty();
-    private Color foreground = IntelPalette.INTEL_BLUE;
-    private Color background = IntelPalette.INTEL_BLUE;
+    private volatile Optional<String> label = Optional.empty();
+    private volatile Optional<Image> icon = Optional.empty();
+    private volatile Color foreground = IntelPalette.INTEL_BLUE;
+    private volatile Color background = IntelPalette.INTEL_BLUE;
 
     /**
      * @return an optional object potentially carrying a label which should be displayed
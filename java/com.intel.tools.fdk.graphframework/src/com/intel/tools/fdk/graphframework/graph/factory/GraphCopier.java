@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.graph.factory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+
+import com.intel.tools.fdk.graphframework.graph.IGroup;
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.INodeContainer;
+import com.intel.tools.fdk.graphframework.graph.Style;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+import com.intel.tools.fdk.graphframework.graph.impl.Output;
+
+/**
+ * Deep copy of a selection of graph nodes.</br>
+ *
+ * Selected groups are copied with all their content. Links between two copied leaves are copied, links going out of
+ * the selection are not. Styles are copied too.</br>
+ * The copy is done in a single pass over the selected nodes and their links, each original node being associated to
+ * its copy in a remap table. Copies are not attached to any container until {@link Copy#pasteInto(INodeContainer)} is
+ * called, thus no listener is notified while the copy is built.
+ */
+public final class GraphCopier {
+
+    private GraphCopier() {
+    }
+
+    /**
+     * Result of a copy
+     */
+    public static final class Copy {
+
+        /** Original node to copy remap table */
+        private final Map<INode, INode> copies = new IdentityHashMap<>();
+        /** Copies of selected nodes which are not contained by another selected group */
+        private final List<INode> roots = new ArrayList<>();
+
+        private Copy() {
+        }
+
+        /**
+         * @return copies of the selection roots (i.e. nodes which are not included in a copied group)
+         */
+        public List<INode> getRoots() {
+            return Collections.unmodifiableList(roots);
+        }
+
+        /**
+         * @param original
+         *            a copied leaf
+         * @return the copy of the leaf
+         */
+        public ILeaf getCopy(final ILeaf original) {
+            return (ILeaf) copies.get(original);
+        }
+
+        /**
+         * @param original
+         *            a copied group
+         * @return the copy of the group
+         */
+        public IGroup getCopy(final IGroup original) {
+            return (IGroup) copies.get(original);
+        }
+
+        /**
+         * Associate data of original nodes to their copies (e.g. coordinates).</br>
+         * Nodes which have not been copied are ignored.
+         *
+         * @param data
+         *            data associated to original nodes
+         * @param copyValue
+         *            function used to copy a value, mutable values (such as points) must not be shared by both nodes
+         * @return a new map associating copied nodes to the copied values
+         */
+        public <N extends INode, T> Map<INode, T> remap(final Map<N, T> data, final UnaryOperator<T> copyValue) {
+            final Map<INode, T> remapped = new IdentityHashMap<>();
+            data.forEach((node, value) -> {
+                final INode copy = copies.get(node);
+                if (copy != null) {
+                    remapped.put(copy, copyValue.apply(value));
+                }
+            });
+            return remapped;
+        }
+
+        /**
+         * Add copied roots to a container
+         *
+         * @param container
+         *            the container which receives the copy
+         */
+        public void pasteInto(final INodeContainer container) {
+            roots.forEach(root -> {
+                if (root instanceof ILeaf) {
+                    container.add((ILeaf) root);
+                } else {
+                    container.add((IGroup) root);
+                }
+            });
+        }
+
+    }
+
+    /**
+     * Copy a selection of nodes
+     *
+     * @param selection
+     *            leaves and groups to copy, nodes already included in a selected group are accepted
+     * @return the copy result
+     */
+    public static Copy copy(final Collection<? extends INode> selection) {
+        return copy(selection, false);
+    }
+
+    /**
+     * Copy the whole content of a container, keeping identifiers.</br>
+     *
+     * Copied nodes compare as their originals, a snapshot is thus processed in the same order as the original graph
+     * (e.g. by layout algorithms). Snapshot nodes must not be added to the graph they are copied from.
+     *
+     * @param container
+     *            the container to copy, usually a graph
+     * @return the copy result, roots are copies of the container leaves and groups
+     */
+    public static Copy snapshot(final NodeContainer container) {
+        final List<INode> content = new ArrayList<>(new TreeSet<>(container.getLeaves()));
+        content.addAll(new TreeSet<>(container.getGroups()));
+        return copy(content, true);
+    }
+
+    private static Copy copy(final Collection<? extends INode> selection, final boolean keepIds) {
+        final Copy copy = new Copy();
+        final Set<INode> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        selected.addAll(selection);
+        final List<Leaf> copiedLeaves = new ArrayList<>();
+
+        // Copy nodes, content of groups is copied recursively with the group
+        selection.forEach(node -> {
+            if (!copy.copies.containsKey(node) && !hasSelectedAncestor(node, selected)) {
+                if (node instanceof Leaf) {
+                    copy.roots.add(copyLeaf((Leaf) node, copy, copiedLeaves, keepIds));
+                } else {
+                    copy.roots.add(copyGroup((Group) node, copy, copiedLeaves, keepIds));
+                }
+            }
+        });
+
+        // Copy internal links, each link is reached once through its output
+        copiedLeaves.forEach(leaf -> leaf.getLinkedOutputLinks().forEach(link -> {
+            final Leaf target = (Leaf) copy.copies.get(link.getInput().getLeaf());
+            if (target != null) {
+                final Leaf source = (Leaf) copy.copies.get(leaf);
+                final Output output = source.getOutputs().get(link.getOutput().getId());
+                final Link copiedLink = new Link(output, target.getInputs().get(link.getInput().getId()));
+                copyStyle(link.getStyle(), copiedLink.getStyle());
+            }
+        }));
+
+        return copy;
+    }
+
+    private static boolean hasSelectedAncestor(final INode node, final Set<INode> selected) {
+        INodeContainer parent = node.getParent();
+        while (parent instanceof IGroup) {
+            if (selected.contains(parent)) {
+                return true;
+            }
+            parent = ((IGroup) parent).getParent();
+        }
+        return false;
+    }
+
+    private static Leaf copyLeaf(final Leaf original, final Copy copy, final List<Leaf> copiedLeaves,
+            final boolean keepIds) {
+        final Leaf leaf = keepIds ? new Leaf(original)
+                : new Leaf(original.getInputs().size(), original.getOutputs().size());
+        copyStyle(original.getStyle(), leaf.getStyle());
+        for (int i = 0; i < original.getInputs().size(); i++) {
+            copyStyle(original.getInputs().get(i).getStyle(), leaf.getInputs().get(i).getStyle());
+        }
+        for (int i = 0; i < original.getOutputs().size(); i++) {
+            copyStyle(original.getOutputs().get(i).getStyle(), leaf.getOutputs().get(i).getStyle());
+        }
+        copy.copies.put(original, leaf);
+        copiedLeaves.add(original);
+        return leaf;
+    }
+
+    private static Group copyGroup(final Group original, final Copy copy, final List<Leaf> copiedLeaves,
+            final boolean keepIds) {
+        final Set<Leaf> leaves = new HashSet<>();
+        original.getLeaves().forEach(leaf -> leaves.add(copyLeaf(leaf, copy, copiedLeaves, keepIds)));
+        final Set<Group> groups = new HashSet<>();
+        original.getGroups().forEach(group -> groups.add(copyGroup(group, copy, copiedLeaves, keepIds)));
+
+        final Group group = keepIds ? new Group(original, leaves, groups) : new Group(leaves, groups);
+        copyStyle(original.getStyle(), group.getStyle());
+        copy.copies.put(original, group);
+        return group;
+    }
+
+    private static void copyStyle(final Style original, final Style copy) {
+        copy.setLabel(original.getLabel().orElse(null));
+        copy.setIcon(original.getIcon().orElse(null));
+        copy.setForeground(original.getForeground());
+        copy.setBackground(original.getBackground());
+    }
+
+}
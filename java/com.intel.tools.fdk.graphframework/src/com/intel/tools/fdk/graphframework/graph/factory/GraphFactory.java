@@ -83,10 +83,7 @@ public final class GraphFactory {
      *             if the output or the input is already linked to a link
      */
     public static ILink createLink(final IOutput output, final IInput input) throws GraphException {
-        if (input.getLink().isPresent() || output.getLink().isPresent()) {
-            throw new GraphException("While connecting nodes: I/O are already used");
-        }
-        return new Link((Output) output, (Input) input);
+        return Link.create((Output) output, (Input) input);
     }
 
 }
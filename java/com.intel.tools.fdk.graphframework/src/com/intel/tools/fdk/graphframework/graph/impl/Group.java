@@ -10,6 +10,7 @@
 package com.intel.tools.fdk.graphframework.graph.impl;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.intel.tools.fdk.graphframework.graph.IGroup;
 import com.intel.tools.fdk.graphframework.graph.INode;
@@ -21,15 +22,35 @@ import com.intel.tools.utils.IntelPalette;
 public class Group extends NodeContainer implements IGroup, Comparable<Group> {
 
     /** Instance counter used to generate instanceId, this is required to handle Group ordered Set */
-    private static int instanceCounter = 0;
+    private static final AtomicInteger instanceCounter = new AtomicInteger();
 
     private final int id;
 
-    private NodeContainer parent;
+    private volatile NodeContainer parent;
 
     public Group(final Set<Leaf> leaves, final Set<Group> groups) {
+        this(instanceCounter.getAndIncrement(), leaves, groups);
+    }
+
+    /**
+     * Create a new group with the given content </br>
+     * Both groups share the same id.</br>
+     * Content of the copied group is not copied.
+     *
+     * @param group
+     *            the group to copy
+     * @param leaves
+     *            leaves of the new group
+     * @param groups
+     *            groups of the new group
+     */
+    public Group(final Group group, final Set<Leaf> leaves, final Set<Group> groups) {
+        this(group.id, leaves, groups);
+    }
+
+    private Group(final int id, final Set<Leaf> leaves, final Set<Group> groups) {
         super(leaves, groups);
-        this.id = instanceCounter++;
+        this.id = id;
 
         getStyle().setBackground(IntelPalette.GREY_1);
     }
@@ -39,19 +60,24 @@ public class Group extends NodeContainer implements IGroup, Comparable<Group> {
         return parent;
     }
 
+    /**
+     * Update the parent reference.</br>
+     * The membership itself is handled by {@link NodeContainer} which calls this method.
+     *
+     * @param parent
+     *            the new parent or null if the group has been removed
+     */
     protected void setParent(final NodeContainer parent) {
         assert parent != this : "A node cannot be its own parent";
-        if (this.parent != null) {
-            this.parent.remove(this);
-        }
         this.parent = parent;
     }
 
     @Override
     public void delete() {
         getExternalLinks().forEach(Link::delete);
-        if (this.parent != null) {
-            this.parent.remove(this);
+        final NodeContainer currentParent = this.parent;
+        if (currentParent != null) {
+            currentParent.remove(this);
         }
     }
 
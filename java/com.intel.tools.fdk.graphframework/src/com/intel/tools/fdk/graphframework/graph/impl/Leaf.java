@@ -12,6 +12,7 @@ package com.intel.tools.fdk.graphframework.graph.impl;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.intel.tools.fdk.graphframework.graph.ILeaf;
@@ -27,13 +28,13 @@ import com.intel.tools.utils.IntelPalette;
 public final class Leaf implements ILeaf, Comparable<Leaf> {
 
     /** Instance counter used to generate instanceId, this is required to handle Leaf ordered Set */
-    private static int instanceCounter = 0;
+    private static final AtomicInteger instanceCounter = new AtomicInteger();
 
     private final Style style = new Style();
 
     private final int id;
 
-    private NodeContainer parent;
+    private volatile NodeContainer parent;
     /** Unmodifiable list (by construction) of {@link Pin} representing inputs. */
     private final List<Input> inputLinks;
     /** Unmodifiable list (by construction) of {@link Pin} representing outputs. */
@@ -48,7 +49,7 @@ public final class Leaf implements ILeaf, Comparable<Leaf> {
      *            desired output number
      */
     public Leaf(final int inputNumber, final int outputNumber) {
-        this(instanceCounter++, inputNumber, outputNumber);
+        this(instanceCounter.getAndIncrement(), inputNumber, outputNumber);
     }
 
     /**
@@ -136,10 +137,14 @@ public final class Leaf implements ILeaf, Comparable<Leaf> {
         return parent;
     }
 
+    /**
+     * Update the parent reference.</br>
+     * The membership itself is handled by {@link NodeContainer} which calls this method.
+     *
+     * @param parent
+     *            the new parent or null if the leaf has been removed
+     */
     protected void setParent(final NodeContainer parent) {
-        if (this.parent != null) {
-            this.parent.remove(this);
-        }
         this.parent = parent;
     }
 
@@ -152,8 +157,9 @@ public final class Leaf implements ILeaf, Comparable<Leaf> {
     public void delete() {
         getLinkedInputLinks().forEach(Link::delete);
         getLinkedOutputLinks().forEach(Link::delete);
-        if (this.parent != null) {
-            this.parent.remove(this);
+        final NodeContainer currentParent = this.parent;
+        if (currentParent != null) {
+            currentParent.remove(this);
         }
     }
 
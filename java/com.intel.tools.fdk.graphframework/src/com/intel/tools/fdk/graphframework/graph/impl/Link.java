@@ -9,6 +9,7 @@
  */
 package com.intel.tools.fdk.graphframework.graph.impl;
 
+import com.intel.tools.fdk.graphframework.graph.GraphException;
 import com.intel.tools.fdk.graphframework.graph.ILink;
 import com.intel.tools.fdk.graphframework.graph.Style;
 import com.intel.tools.utils.IntelPalette;
@@ -29,12 +30,41 @@ public final class Link implements ILink {
     public Link(final Output output, final Input input) {
         this.input = input;
         this.output = output;
-        this.input.connect(this);
-        this.output.connect(this);
+        StripedLock.lock(output.getLeaf(), input.getLeaf());
+        try {
+            this.input.connect(this);
+            this.output.connect(this);
+        } finally {
+            StripedLock.unlock(output.getLeaf(), input.getLeaf());
+        }
 
         getStyle().setForeground(IntelPalette.GREY);
     }
 
+    /**
+     * Connect an output to an input if both are free.</br>
+     * The check and the connection are done atomically, thus concurrent callers cannot connect the same pin twice.
+     *
+     * @param output
+     *            the output pin to connect
+     * @param input
+     *            the input pin to connect
+     * @return the created link
+     * @throws GraphException
+     *             if the output or the input is already linked to a link
+     */
+    public static Link create(final Output output, final Input input) throws GraphException {
+        StripedLock.lock(output.getLeaf(), input.getLeaf());
+        try {
+            if (input.getLink().isPresent() || output.getLink().isPresent()) {
+                throw new GraphException("While connecting nodes: I/O are already used");
+            }
+            return new Link(output, input);
+        } finally {
+            StripedLock.unlock(output.getLeaf(), input.getLeaf());
+        }
+    }
+
     @Override
     public Input getInput() {
         return input;
@@ -47,8 +77,18 @@ public final class Link implements ILink {
 
     @Override
     public void delete() {
-        this.input.disconnect();
-        this.output.disconnect();
+        StripedLock.lock(output.getLeaf(), input.getLeaf());
+        try {
+            // A link can be deleted twice (e.g. with both of its leaves), pins may already hold another link
+            if (this.input.getLink().orElse(null) == this) {
+                this.input.disconnect();
+            }
+            if (this.output.getLink().orElse(null) == this) {
+                this.output.disconnect();
+            }
+        } finally {
+            StripedLock.unlock(output.getLeaf(), input.getLeaf());
+        }
     }
 
     @Override
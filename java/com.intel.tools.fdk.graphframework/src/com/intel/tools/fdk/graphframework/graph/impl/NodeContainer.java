@@ -9,11 +9,11 @@
  */
 package com.intel.tools.fdk.graphframework.graph.impl;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -25,15 +25,19 @@ import com.intel.tools.fdk.graphframework.graph.Style;
 
 /**
  * Container of {@link INode} objects
+ *
+ * Containers can be modified from any thread: membership updates of a node are serialized on the node lock and
+ * listeners are notified outside of it. Returned sets are weakly consistent views which never throw
+ * {@link java.util.ConcurrentModificationException}.
  */
 public abstract class NodeContainer implements INodeContainer {
 
     private final Style style = new Style();
 
-    private final List<INodeContainerListener> listeners = new ArrayList<>();
+    private final List<INodeContainerListener> listeners = new CopyOnWriteArrayList<>();
 
-    private final Set<Leaf> leaves = new HashSet<>();
-    private final Set<Group> groups = new HashSet<>();
+    private final Set<Leaf> leaves = ConcurrentHashMap.newKeySet();
+    private final Set<Group> groups = ConcurrentHashMap.newKeySet();
 
     /**
      * Create a new container.
@@ -106,24 +110,59 @@ public abstract class NodeContainer implements INodeContainer {
     @Override
     public void add(final ILeaf leaf) {
         final Leaf leafToAdd = (Leaf) leaf;
-        leafToAdd.setParent(this);
-        this.leaves.add(leafToAdd);
+        final NodeContainer oldParent;
+        StripedLock.lock(leafToAdd);
+        try {
+            oldParent = leafToAdd.getParent();
+            if (oldParent != null) {
+                oldParent.leaves.remove(leafToAdd);
+            }
+            leafToAdd.setParent(this);
+            this.leaves.add(leafToAdd);
+        } finally {
+            StripedLock.unlock(leafToAdd);
+        }
+        if (oldParent != null) {
+            oldParent.listeners.forEach(l -> l.leafRemoved(leaf));
+        }
         listeners.forEach(l -> l.leafAdded(leaf));
     }
 
     @Override
     public void add(final IGroup group) {
         final Group groupToAdd = (Group) group;
-        groupToAdd.setParent(this);
-        this.groups.add(groupToAdd);
+        final NodeContainer oldParent;
+        StripedLock.lock(groupToAdd);
+        try {
+            oldParent = groupToAdd.getParent();
+            if (oldParent != null) {
+                oldParent.groups.remove(groupToAdd);
+            }
+            groupToAdd.setParent(this);
+            this.groups.add(groupToAdd);
+        } finally {
+            StripedLock.unlock(groupToAdd);
+        }
+        if (oldParent != null) {
+            oldParent.listeners.forEach(l -> l.groupRemoved(group));
+        }
         listeners.forEach(l -> l.groupAdded(group));
     }
 
     @Override
     public void remove(final ILeaf leaf) {
         final Leaf leafToRemove = (Leaf) leaf;
-        if (this.leaves.remove(leafToRemove)) {
-            leafToRemove.setParent(null);
+        final boolean removed;
+        StripedLock.lock(leafToRemove);
+        try {
+            removed = this.leaves.remove(leafToRemove);
+            if (removed) {
+                leafToRemove.setParent(null);
+            }
+        } finally {
+            StripedLock.unlock(leafToRemove);
+        }
+        if (removed) {
             listeners.forEach(l -> l.leafRemoved(leaf));
         }
     }
@@ -131,8 +170,17 @@ public abstract class NodeContainer implements INodeContainer {
     @Override
     public void remove(final IGroup group) {
         final Group groupToRemove = (Group) group;
-        if (this.groups.remove(groupToRemove)) {
-            groupToRemove.setParent(null);
+        final boolean removed;
+        StripedLock.lock(groupToRemove);
+        try {
+            removed = this.groups.remove(groupToRemove);
+            if (removed) {
+                groupToRemove.setParent(null);
+            }
+        } finally {
+            StripedLock.unlock(groupToRemove);
+        }
+        if (removed) {
             listeners.forEach(l -> l.groupRemoved(group));
         }
     }
@@ -24,7 +24,7 @@ public abstract class Pin implements IPin {
 
     private final int id;
     private final Leaf leaf;
-    private Optional<Link> link = Optional.empty();
+    private volatile Optional<Link> link = Optional.empty();
 
     public Pin(final int id, final Leaf leaf) {
         this.id = id;
@@ -50,7 +50,8 @@ public abstract class Pin implements IPin {
 
     /**
      * Connect this pin to a link.</br>
-     * This method is used at {@link Link} creation and thus is not exposed everywhere
+     * This method is used at {@link Link} creation and thus is not exposed everywhere.</br>
+     * The caller must hold the lock of the pin leaf.
      *
      * @param link
      *            to connect
@@ -61,7 +62,8 @@ public abstract class Pin implements IPin {
 
     /**
      * Disonnect this pin from a link.</br>
-     * This method is used at {@link Link} deletion and thus is not exposed everywhere
+     * This method is used at {@link Link} deletion and thus is not exposed everywhere.</br>
+     * The caller must hold the lock of the pin leaf.
      */
     void disconnect() {
         this.link = Optional.empty();
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.graph.impl;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by all graph elements.</br>
+ *
+ * Each element is mapped on a stripe through its identity hash code. Modifications of the same element are serialized
+ * while unrelated elements can be modified concurrently without allocating a lock per element.
+ */
+final class StripedLock {
+
+    /** Stripe count, must be a power of two */
+    private static final int STRIPE_COUNT = 64;
+    private static final int STRIPE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(STRIPE_COUNT);
+
+    private static final ReentrantLock[] STRIPES = new ReentrantLock[STRIPE_COUNT];
+
+    static {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            STRIPES[i] = new ReentrantLock();
+        }
+    }
+
+    private StripedLock() {
+    }
+
+    /**
+     * Lock the stripe of an element
+     *
+     * @param element
+     *            the element to lock
+     */
+    static void lock(final Object element) {
+        STRIPES[indexOf(element)].lock();
+    }
+
+    /**
+     * Unlock the stripe of an element
+     *
+     * @param element
+     *            the element to unlock
+     */
+    static void unlock(final Object element) {
+        STRIPES[indexOf(element)].unlock();
+    }
+
+    /**
+     * Lock stripes of two elements.</br>
+     * Stripes are always taken in the same order to prevent dead locks.
+     *
+     * @param first
+     *            the first element to lock
+     * @param second
+     *            the second element to lock
+     */
+    static void lock(final Object first, final Object second) {
+        final int firstIndex = indexOf(first);
+        final int secondIndex = indexOf(second);
+        STRIPES[Math.min(firstIndex, secondIndex)].lock();
+        if (firstIndex != secondIndex) {
+            STRIPES[Math.max(firstIndex, secondIndex)].lock();
+        }
+    }
+
+    /**
+     * Unlock stripes of two elements previously locked with {@link #lock(Object, Object)}
+     *
+     * @param first
+     *            the first element to unlock
+     * @param second
+     *            the second element to unlock
+     */
+    static void unlock(final Object first, final Object second) {
+        final int firstIndex = indexOf(first);
+        final int secondIndex = indexOf(second);
+        if (firstIndex != secondIndex) {
+            STRIPES[Math.max(firstIndex, secondIndex)].unlock();
+        }
+        STRIPES[Math.min(firstIndex, secondIndex)].unlock();
+    }
+
+    private static int indexOf(final Object element) {
+        // Fibonacci hashing spreads identity hash codes which are often close to each other
+        return (System.identityHashCode(element) * 0x9E3779B9) >>> STRIPE_SHIFT;
+    }
+
+}
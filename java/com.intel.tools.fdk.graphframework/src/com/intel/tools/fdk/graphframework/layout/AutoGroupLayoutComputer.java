@@ -9,41 +9,114 @@
  */
 package com.intel.tools.fdk.graphframework.layout;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import org.eclipse.draw2d.geometry.PrecisionPoint;
 
 import com.intel.tools.fdk.graphframework.graph.INode;
 import com.intel.tools.fdk.graphframework.graph.impl.Group;
 import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
 import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
 
 /**
  * Layout algorithm which layout Group of a Graph before the entire graph. </br>
- * The AutoGroupLayoutComputer is used on each group.
+ * The AutoGroupLayoutComputer is used on each group.</br>
+ * Each container, groups being compacted as simple nodes, is computed by a layout function which defaults to
+ * {@link AutoLayoutComputer}.</br>
+ * Groups are computed concurrently on the fork join pool of the calling thread, or on the common pool, the layout
+ * function must thus be thread safe. Results do not depend on the execution order.</br>
+ * With a {@link LayoutCache}, the graph and each group are first looked up in the cache, only containers which
+ * structure is unknown are computed.
  */
 public class AutoGroupLayoutComputer {
 
-    private final GraphCompacter compacter;
+    private final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout;
+    private final Optional<LayoutCache> cache;
 
     private final Map<INode, PrecisionPoint> coordinates = new HashMap<>();
 
     public AutoGroupLayoutComputer(final NodeContainer graph) {
+        this(graph, container -> new AutoLayoutComputer(container).getCoordinates());
+    }
+
+    /**
+     * @param graph
+     *            the graph to compute
+     * @param layout
+     *            compute the raw coordinates of the leaves of a container without groups
+     */
+    public AutoGroupLayoutComputer(final NodeContainer graph,
+            final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout) {
+        this(graph, layout, Optional.empty());
+    }
+
+    /**
+     * Compute only containers which coordinates are not already cached
+     *
+     * @param graph
+     *            the graph to compute
+     * @param layout
+     *            compute the raw coordinates of the leaves of a container without groups
+     * @param cache
+     *            the cache dedicated to the layout function, updated with computed containers
+     */
+    public AutoGroupLayoutComputer(final NodeContainer graph,
+            final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout, final LayoutCache cache) {
+        this(graph, layout, Optional.of(cache));
+    }
+
+    private AutoGroupLayoutComputer(final NodeContainer graph,
+            final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout, final Optional<LayoutCache> cache) {
+        this.layout = layout;
+        this.cache = cache;
+
+        final Optional<StructuralKey> key = cache.map(unused -> new StructuralKey(graph));
+        final Optional<Map<INode, PrecisionPoint>> cached = key.flatMap(structure -> cache.get().load(structure));
+        if (cached.isPresent()) {
+            this.coordinates.putAll(cached.get());
+        } else {
+            compute(graph);
+            key.ifPresent(structure -> cache.get().store(structure, this.coordinates));
+        }
+    }
 
-        this.compacter = new GraphCompacter(graph);
-        computeCompactedContainer();
+    private void compute(final NodeContainer graph) {
+        if (graph.getGroups().isEmpty() && isClosed(graph)) {
+            // Nothing to compact, copying the container would give the same layout
+            this.coordinates.putAll(layout.apply(graph));
+            return;
+        }
+        final GraphCompacter compacter = new GraphCompacter(graph);
+
+        // Sub groups are independent until they are merged, compute them while this container is computed
+        final Map<Group, ForkJoinTask<AutoGroupLayoutComputer>> tasks = new TreeMap<>();
+        graph.getGroups().forEach(group -> tasks.put(group,
+                ForkJoinTask.adapt(() -> new AutoGroupLayoutComputer(group, layout, cache)).fork()));
+        computeCompactedContainer(compacter);
 
-        if (!graph.getGroups().isEmpty()) {
-            final Map<Group, AutoGroupLayoutComputer> computers = graph.getGroups().stream()
-                    .collect(Collectors.toMap(Function.identity(), AutoGroupLayoutComputer::new));
+        if (!tasks.isEmpty()) {
+            // Results are merged in group order to always get the same layout
+            final Map<Group, AutoGroupLayoutComputer> computers = new TreeMap<>();
+            tasks.forEach((group, task) -> computers.put(group, task.join()));
 
             // Analyse sub group size, here order is essential to always get the same layout
-            computers.keySet().stream().collect(Collectors.toCollection(TreeSet::new)).forEach(group -> {
-                final Leaf compactedNode = compacter.getCompactedGroup(group);
+            final List<Leaf> compactedNodes = new ArrayList<>();
+            final double[] widths = new double[computers.size()];
+            final double[] heights = new double[computers.size()];
+            computers.keySet().forEach(group -> {
+                final int index = compactedNodes.size();
+                compactedNodes.add(compacter.getCompactedGroup(group));
                 double xMax = 0;
                 double xMin = 0;
                 double yMax = 0;
@@ -52,11 +125,12 @@ public class AutoGroupLayoutComputer {
                     xMax = location.x > xMax ? location.x : xMax;
                     yMax = location.y > yMax ? location.y : yMax;
                     xMin = location.x < xMin ? location.x : xMin;
-                    yMin = location.y < xMin ? location.y : yMin;
+                    yMin = location.y < yMin ? location.y : yMin;
                 }
-                pushLeft(compactedNode, Math.abs(xMax - xMin));
-                pushDown(compactedNode, Math.abs(yMax - yMin));
+                widths[index] = Math.abs(xMax - xMin);
+                heights[index] = Math.abs(yMax - yMin);
             });
+            pushNodes(compactedNodes, widths, heights);
             // Get coordinates of all nodes
             computers.forEach((group, computer) -> {
                 final Leaf compactedNode = compacter.getCompactedGroup(group);
@@ -75,32 +149,164 @@ public class AutoGroupLayoutComputer {
         }
     }
 
-    private void computeCompactedContainer() {
-        final AutoLayoutComputer computer = new AutoLayoutComputer(this.compacter.getCompactedGraph());
-        computer.getCoordinates().keySet().forEach(leaf -> {
+    /**
+     * @return true if no link of the container leaves reaches a leaf outside of the container
+     */
+    private static boolean isClosed(final NodeContainer container) {
+        final Set<Leaf> leaves = container.getLeaves();
+        for (final Leaf leaf : leaves) {
+            for (final Link link : leaf.getLinkedInputLinks()) {
+                if (!leaves.contains(link.getOutput().getLeaf())) {
+                    return false;
+                }
+            }
+            for (final Link link : leaf.getLinkedOutputLinks()) {
+                if (!leaves.contains(link.getInput().getLeaf())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void computeCompactedContainer(final GraphCompacter compacter) {
+        final Map<Leaf, PrecisionPoint> computed = layout.apply(compacter.getCompactedGraph());
+        computed.keySet().forEach(leaf -> {
             if (!compacter.getCompactedGroups().contains(leaf)) {
-                this.coordinates.put(this.compacter.getOriginalOf(leaf), computer.getCoordinates().get(leaf));
+                this.coordinates.put(compacter.getOriginalOf(leaf), computed.get(leaf));
             } else {
                 // Put group copies into coordinates, those nodes will be removed later
-                this.coordinates.put(leaf, computer.getCoordinates().get(leaf));
+                this.coordinates.put(leaf, computed.get(leaf));
             }
         });
     }
 
-    private void pushLeft(final Leaf base, final double offset) {
-        this.coordinates.keySet().forEach(leaf -> {
-            if (this.coordinates.get(leaf).x >= this.coordinates.get(base).x && leaf != base) {
-                this.coordinates.get(leaf).translate(offset, 0);
+    /**
+     * Make room for group contents.</br>
+     * Groups are processed in order: every node on the right of a group is pushed by the group width, every node above
+     * it is pushed by the group height, the group itself does not move.
+     *
+     * @param compactedNodes
+     *            nodes representing groups, in processing order
+     * @param widths
+     *            group widths
+     * @param heights
+     *            group heights
+     */
+    private void pushNodes(final List<Leaf> compactedNodes, final double[] widths, final double[] heights) {
+        final List<INode> nodes = new ArrayList<>(this.coordinates.keySet());
+        final Map<INode, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            indexes.put(nodes.get(i), i);
+        }
+        final int[] bases = compactedNodes.stream().mapToInt(indexes::get).toArray();
+        final double[] xOffsets = new OffsetPropagation(
+                nodes.stream().mapToInt(node -> this.coordinates.get(node).x).toArray()).push(bases, widths);
+        final double[] yOffsets = new OffsetPropagation(
+                nodes.stream().mapToInt(node -> this.coordinates.get(node).y).toArray()).push(bases, heights);
+        for (int i = 0; i < nodes.size(); i++) {
+            if (xOffsets[i] != 0 || yOffsets[i] != 0) {
+                this.coordinates.get(nodes.get(i)).translate(xOffsets[i], yOffsets[i]);
             }
-        });
+        }
     }
 
-    private void pushDown(final Leaf base, final double offset) {
-        this.coordinates.keySet().forEach(leaf -> {
-            if (this.coordinates.get(leaf).y >= this.coordinates.get(base).y && leaf != base) {
-                this.coordinates.get(leaf).translate(0, offset);
+    /**
+     * Cumulative offsets of nodes on one axis.</br>
+     *
+     * Pushing nodes preserves their order, ties excepted: the base of a push stays before nodes sharing its position.
+     * Nodes are thus sorted once by position, a push moves a suffix of this order, after the base has been swapped at
+     * the start of its tie. Offsets of suffixes are accumulated in a Fenwick tree, making each push O(log&sup2; n).
+     */
+    private static final class OffsetPropagation {
+
+        private final int[] initialPositions;
+        /** Initial position at each rank, the current one adds the rank offset */
+        private final int[] positions;
+        private final int[] nodesByRank;
+        private final int[] ranks;
+        /** Fenwick tree of offset differences between consecutive ranks */
+        private final double[] tree;
+
+        private OffsetPropagation(final int[] positions) {
+            final int count = positions.length;
+            this.initialPositions = positions;
+            final long[] keys = new long[count];
+            for (int node = 0; node < count; node++) {
+                keys[node] = (long) positions[node] << Integer.SIZE | node;
             }
-        });
+            Arrays.sort(keys);
+            this.positions = new int[count];
+            this.nodesByRank = new int[count];
+            this.ranks = new int[count];
+            for (int rank = 0; rank < count; rank++) {
+                final int node = (int) keys[rank];
+                this.positions[rank] = positions[node];
+                this.nodesByRank[rank] = node;
+                this.ranks[node] = rank;
+            }
+            this.tree = new double[count + 1];
+        }
+
+        /**
+         * @param bases
+         *            nodes which do not move, in processing order
+         * @param offsets
+         *            offset applied to the nodes at or after each base
+         * @return the total offset of each node
+         */
+        private double[] push(final int[] bases, final double[] offsets) {
+            for (int i = 0; i < bases.length; i++) {
+                final int baseRank = ranks[bases[i]];
+                final double basePosition = positionAt(baseRank);
+                // First rank sharing the base position, positions are sorted
+                int low = 0;
+                int high = baseRank;
+                while (low < high) {
+                    final int middle = (low + high) >>> 1;
+                    if (positionAt(middle) < basePosition) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                swap(low, baseRank);
+                if (offsets[i] != 0) {
+                    for (int index = low + 2; index < tree.length; index += index & -index) {
+                        tree[index] += offsets[i];
+                    }
+                }
+            }
+            final double[] result = new double[ranks.length];
+            for (int node = 0; node < ranks.length; node++) {
+                result[node] = positionAt(ranks[node]) - initialPositions[node];
+            }
+            return result;
+        }
+
+        private double positionAt(final int rank) {
+            return positions[rank] + offsetAt(rank);
+        }
+
+        private double offsetAt(final int rank) {
+            double offset = 0;
+            for (int index = rank + 1; index > 0; index -= index & -index) {
+                offset += tree[index];
+            }
+            return offset;
+        }
+
+        /**
+         * Swap nodes at two ranks of the same current position
+         */
+        private void swap(final int first, final int second) {
+            final int node = nodesByRank[first];
+            nodesByRank[first] = nodesByRank[second];
+            nodesByRank[second] = node;
+            ranks[nodesByRank[first]] = first;
+            ranks[nodesByRank[second]] = second;
+        }
+
     }
 
     /**
@@ -119,4 +325,11 @@ public class AutoGroupLayoutComputer {
         }
     }
 
+    /**
+     * @return raw coordinates of leaves and of groups without leaf
+     */
+    public Map<INode, PrecisionPoint> getCoordinates() {
+        return Collections.unmodifiableMap(coordinates);
+    }
+
 }
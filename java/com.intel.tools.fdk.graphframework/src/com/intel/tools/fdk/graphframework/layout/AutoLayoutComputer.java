@@ -12,13 +12,15 @@ package com.intel.tools.fdk.graphframework.layout;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Set;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.eclipse.draw2d.geometry.Point;
@@ -33,65 +35,184 @@ import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
  *
  * The algorithm is adapted from the dominance drawing technique called Left/Right numbering method More info:
  * http://graphdrawing.org/literature/gd-constraints.pdf -> p54
+ *
+ * The computation runs in linear time: each link is browsed a constant number of times per numbering, traversals are
+ * iterative so long chains do not overflow the stack.</br>
+ * Disconnected components are computed separately then packed together, see {@link SkylinePacker}.
  */
 public class AutoLayoutComputer {
 
-    /** Browsed inputs */
-    private final List<Link> visitedLinks = new ArrayList<>();
+    /** Empty columns and lines kept between disconnected components */
+    private static final int COMPONENT_GAP = 1;
+
+    /** Browsed links of the current numbering */
+    private final Set<Link> visitedLinks = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Number of linked inputs not browsed yet by the current numbering, for leaves it reached */
+    private final Map<Leaf, Integer> unvisitedInputCounts = new IdentityHashMap<>();
     private final Map<Leaf, Integer> abscisses = new HashMap<>();
     private final Map<Leaf, Integer> ordinates = new HashMap<>();
 
     /** Usable coordinates */
     private final Map<Leaf, PrecisionPoint> coordinates;
 
-    /** Current coordinate */
-    private int currentCoordinate = 0;
-
-    /** Predicate used to know if a link as been visited or not */
-    private final Predicate<Link> unvisitedLinkPredicate = link -> !visitedLinks.contains(link);
+    /** Current coordinates, never reset so sources computed later are placed after previous ones */
+    private int currentAbscissa = 0;
+    private int currentOrdinate = 0;
 
     public AutoLayoutComputer(final NodeContainer graph) {
-        // Find all component which are sources
-        final SortedSet<Leaf> sources = new TreeSet<>(graph.getAllLeaves().stream()
-                .filter(this::isSourceInstance).collect(Collectors.toSet()));
+        this(sort(new ArrayList<>(graph.getAllLeaves())));
+    }
+
+    /**
+     * @param leaves
+     *            the leaves to compute, sorted
+     */
+    private AutoLayoutComputer(final List<Leaf> leaves) {
+        final List<List<Leaf>> components = findComponents(leaves);
+        if (components.size() > 1) {
+            this.coordinates = pack(components);
+            return;
+        }
+
+        // Find all component which are sources, filtering a sorted list keeps it sorted
+        final List<Leaf> sources = leaves.stream().filter(this::isSourceInstance).collect(Collectors.toList());
         compute(sources);
 
         // Retrieve potential uncomputed nodes
-        final SortedSet<Leaf> remaining = new TreeSet<>(graph.getAllLeaves().stream()
-                .filter(leaf -> !abscisses.keySet().contains(leaf)).collect(Collectors.toList()));
+        final List<Leaf> remaining = leaves.stream()
+                .filter(leaf -> !abscisses.containsKey(leaf)).collect(Collectors.toList());
         compute(remaining);
 
         this.coordinates = unifyCalculatedCoordinates();
         removeCoordinatesEmptyLines();
     }
 
+    /**
+     * Sorting a list is much cheaper than filling a tree set on large graphs
+     *
+     * @param leaves
+     *            the leaves to sort
+     * @return the same list, sorted
+     */
+    private static List<Leaf> sort(final List<Leaf> leaves) {
+        Collections.sort(leaves);
+        return leaves;
+    }
+
+    /**
+     * @param leaves
+     *            the leaves to split, sorted
+     * @return leaves linked together, directly or not, components being ordered by their first leaf
+     */
+    private static List<List<Leaf>> findComponents(final List<Leaf> leaves) {
+        final List<List<Leaf>> components = new ArrayList<>();
+        // Leaves to split, mapped to whether they were reached, a single lookup per browsed link
+        final Map<Leaf, Boolean> reached = new IdentityHashMap<>(leaves.size());
+        leaves.forEach(leaf -> reached.put(leaf, false));
+        for (final Leaf leaf : leaves) {
+            if (!reached.replace(leaf, false, true)) {
+                continue;
+            }
+            final List<Leaf> component = new ArrayList<>();
+            component.add(leaf);
+            // The component list is also the queue of leaves to browse
+            for (int i = 0; i < component.size(); i++) {
+                final Leaf current = component.get(i);
+                current.getInputs().forEach(input -> input.getLink().ifPresent(
+                        link -> reach(link.getOutput().getLeaf(), reached, component)));
+                current.getOutputs().forEach(output -> output.getLink().ifPresent(
+                        link -> reach(link.getInput().getLeaf(), reached, component)));
+            }
+            components.add(component);
+        }
+        return components;
+    }
+
+    private static void reach(final Leaf leaf, final Map<Leaf, Boolean> reached, final List<Leaf> component) {
+        // Leaves out of the split ones are not mapped and never replaced
+        if (reached.replace(leaf, false, true)) {
+            component.add(leaf);
+        }
+    }
+
+    /**
+     * Compute each component on its own, then tile them from the top left corner with a {@link SkylinePacker}.</br>
+     * The strip is as wide as a square of the total component area, tall components first, so that the graph
+     * extent stays close to a square whatever the number of components.
+     *
+     * @param components
+     *            the components to compute
+     * @return coordinates of all leaves
+     */
+    private static Map<Leaf, PrecisionPoint> pack(final List<List<Leaf>> components) {
+        final List<Map<Leaf, PrecisionPoint>> layouts = new ArrayList<>();
+        final int[] widths = new int[components.size()];
+        final int[] lines = new int[components.size()];
+        long area = 0;
+        int widthMax = 0;
+        for (int i = 0; i < components.size(); i++) {
+            final Map<Leaf, PrecisionPoint> layout =
+                    new AutoLayoutComputer(sort(components.get(i))).coordinates;
+            final double xMin = layout.values().stream().mapToDouble(PrecisionPoint::preciseX).min().getAsDouble();
+            final double xMax = layout.values().stream().mapToDouble(PrecisionPoint::preciseX).max().getAsDouble();
+            // Lines are contiguous from zero once empty lines are removed
+            lines[i] = layout.values().stream().mapToInt(point -> point.y).max().getAsInt();
+            layout.values().forEach(point -> point.translate(-xMin, 0));
+            widths[i] = (int) Math.ceil(xMax - xMin) + 1 + COMPONENT_GAP;
+            area += (long) widths[i] * (lines[i] + 1 + COMPONENT_GAP);
+            widthMax = Math.max(widthMax, widths[i]);
+            layouts.add(layout);
+        }
+
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < components.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.<Integer> comparingInt(i -> -lines[i]).thenComparingInt(i -> -widths[i]));
+        final SkylinePacker packer = new SkylinePacker(Math.max(widthMax, (int) Math.ceil(Math.sqrt(area))));
+        final Point[] locations = new Point[components.size()];
+        order.forEach(i -> locations[i] = packer.add(widths[i], lines[i] + 1 + COMPONENT_GAP));
+
+        // The packer stacks downwards from its origin, ordinates grow upwards
+        final Map<Leaf, PrecisionPoint> packed = new HashMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            final Point location = locations[i];
+            final int yOffset = packer.getHeight() - 1 - location.y - lines[i];
+            layouts.get(i).forEach((leaf, point) -> {
+                point.translate(location.x, yOffset);
+                packed.put(leaf, point);
+            });
+        }
+        return packed;
+    }
+
     /**
      * Run the algorithm on a given source set
      *
      * @param sources
-     *            the source set
+     *            the sorted sources
      */
-    private void compute(final SortedSet<Leaf> sources) {
+    private void compute(final List<Leaf> sources) {
         // Reset algorithm
-        visitedLinks.clear();
-        currentCoordinate = abscisses.values().stream().mapToInt(Integer::valueOf).max().orElse(0);
-
+        resetVisits();
         sources.forEach(node -> {
             // Simulate the fact that all sources come from the same point
-            abscisses.put(node, ++currentCoordinate);
+            abscisses.put(node, ++currentAbscissa);
             leftNumbering(node);
         });
 
         // Reset algorithm
-        visitedLinks.clear();
-        currentCoordinate = ordinates.values().stream().mapToInt(Integer::valueOf).max().orElse(0);
+        resetVisits();
+        for (int i = sources.size() - 1; i >= 0; i--) {
+            final Leaf node = sources.get(i);
+            ordinates.put(node, ++currentOrdinate);
+            rightNumbering(node);
+        }
+    }
 
-        sources.stream().collect(Collectors.toCollection(ArrayDeque::new))
-                .descendingIterator()
-                .forEachRemaining(node -> {
-                    ordinates.put(node, ++currentCoordinate);
-                    rightNumbering(node);
-                });
+    private void resetVisits() {
+        visitedLinks.clear();
+        unvisitedInputCounts.clear();
     }
 
     private Map<Leaf, PrecisionPoint> unifyCalculatedCoordinates() {
@@ -143,42 +264,72 @@ public class AutoLayoutComputer {
     }
 
     /**
-     * Check if some linked input of a node has not been browsed
+     * Mark a link as browsed
      *
-     * @param linked
-     *            the node to check
-     * @return true if some inputs have not been visited, false otherwise
+     * @param link
+     *            the browsed link
+     * @return true if every linked input of the link target has been browsed
      */
-    private boolean hasUnvisitedLinkedInput(final Leaf linked) {
-        return linked.getLinkedInputLinks().stream().anyMatch(unvisitedLinkPredicate);
+    private boolean visit(final Link link) {
+        final Leaf linked = link.getInput().getLeaf();
+        if (visitedLinks.add(link)) {
+            final Integer count = unvisitedInputCounts.get(linked);
+            final int unvisited = (count == null ? linked.getLinkedInputLinks().size() : count) - 1;
+            unvisitedInputCounts.put(linked, unvisited);
+            return unvisited == 0;
+        }
+        return unvisitedInputCounts.get(linked) == 0;
     }
 
     private void leftNumbering(final Leaf origin) {
-        origin.getLinkedOutputLinks().stream().filter(unvisitedLinkPredicate).forEach(link -> {
-            visitedLinks.add(link);
-            final Leaf linked = link.getInput().getLeaf();
-            if (!hasUnvisitedLinkedInput(linked)) {
+        final Deque<Iterator<Link>> stack = new ArrayDeque<>();
+        stack.push(origin.getLinkedOutputLinks().iterator());
+        while (!stack.isEmpty()) {
+            final Iterator<Link> links = stack.peek();
+            if (!links.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            final Link link = links.next();
+            // Links may have been browsed from a deeper node since the iteration started
+            if (!visitedLinks.contains(link) && visit(link)) {
                 // Last link to the node let's check it
-                abscisses.put(linked, ++currentCoordinate);
-                leftNumbering(linked);
+                final Leaf linked = link.getInput().getLeaf();
+                abscisses.put(linked, ++currentAbscissa);
+                stack.push(linked.getLinkedOutputLinks().iterator());
             }
-        });
+        }
     }
 
     private void rightNumbering(final Leaf origin) {
-        origin.getLinkedOutputLinks().stream().filter(unvisitedLinkPredicate)
+        final Deque<Iterator<Link>> stack = new ArrayDeque<>();
+        stack.push(getUnvisitedOutputLinks(origin));
+        while (!stack.isEmpty()) {
+            final Iterator<Link> links = stack.peek();
+            if (!links.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            final Link link = links.next();
+            // Check that linked instance has no unvisited linked link
+            if (visit(link)) {
+                // Last link to the node let's check it
+                final Leaf linked = link.getInput().getLeaf();
+                ordinates.put(linked, ++currentOrdinate);
+                stack.push(getUnvisitedOutputLinks(linked));
+            }
+        }
+    }
+
+    /**
+     * @param origin
+     *            the browsed node
+     * @return links of the node outputs which are not browsed yet, from the last to the first one
+     */
+    private Iterator<Link> getUnvisitedOutputLinks(final Leaf origin) {
+        return origin.getLinkedOutputLinks().stream().filter(link -> !visitedLinks.contains(link))
                 .collect(Collectors.toCollection(ArrayDeque::new))
-                .descendingIterator()
-                .forEachRemaining(link -> {
-                    visitedLinks.add(link);
-                    final Leaf linked = link.getInput().getLeaf();
-                    // Check that linked instance has no unvisited linked link
-                    if (!hasUnvisitedLinkedInput(linked)) {
-                        // Last link to the node let's check it
-                        ordinates.put(linked, ++currentCoordinate);
-                        rightNumbering(linked);
-                    }
-                });
+                .descendingIterator();
     }
 
     /**
@@ -188,20 +339,24 @@ public class AutoLayoutComputer {
      * the layout.
      */
     private void removeCoordinatesEmptyLines() {
-        int line = 0;
-        do {
-            final int currentLine = line;
-            if (!this.coordinates.values().stream().mapToInt(point -> point.y).anyMatch(y -> y == currentLine)) {
-                // No node on this line, let's remove it
-                this.coordinates.values().forEach(point -> {
-                    if (point.y > currentLine) {
-                        point.translate(0, -1);
-                    }
-                });
-            } else {
-                line++;
+        final int maxLine = this.coordinates.values().stream().mapToInt(point -> point.y).max().orElse(-1);
+        final boolean[] occupiedLines = new boolean[maxLine + 1];
+        this.coordinates.values().forEach(point -> occupiedLines[point.y] = true);
+
+        // Each node moves up by the number of empty lines above it
+        final int[] offsets = new int[maxLine + 1];
+        int emptyLines = 0;
+        for (int line = 0; line <= maxLine; line++) {
+            offsets[line] = emptyLines;
+            if (!occupiedLines[line]) {
+                emptyLines++;
             }
-        } while (line <= this.coordinates.values().stream().mapToInt(point -> point.y).max().orElse(-1));
+        }
+        this.coordinates.values().forEach(point -> {
+            if (offsets[point.y] > 0) {
+                point.translate(0, -offsets[point.y]);
+            }
+        });
     }
 
 }
@@ -9,18 +9,37 @@
  */
 package com.intel.tools.fdk.graphframework.layout;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.draw2d.FigureCanvas;
 import org.eclipse.draw2d.geometry.PrecisionPoint;
-import org.eclipse.draw2d.geometry.Rectangle;
 
 import com.intel.tools.fdk.graphframework.displayer.GraphDisplayer;
 import com.intel.tools.fdk.graphframework.figure.presenter.DefaultPresenterManager;
 import com.intel.tools.fdk.graphframework.figure.presenter.IPresenterManager;
-import com.intel.tools.fdk.graphframework.figure.presenter.LeafPresenter;
 import com.intel.tools.fdk.graphframework.figure.presenter.Presenter;
+import com.intel.tools.fdk.graphframework.graph.IGroup;
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
 import com.intel.tools.fdk.graphframework.graph.INode;
 import com.intel.tools.fdk.graphframework.graph.adapter.IAdapter;
+import com.intel.tools.fdk.graphframework.graph.factory.GraphCopier;
+import com.intel.tools.fdk.graphframework.graph.factory.GraphCopier.Copy;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
 
 /**
  * Graph layout which choose a position for each graph node.
@@ -29,10 +48,13 @@ import com.intel.tools.fdk.graphframework.graph.adapter.IAdapter;
  */
 public class AutoLayoutGenerator extends LayoutGenerator {
 
-    /** Max element width, initialized at 40 to potentially separate empty groups */
-    private int widthMax = 40;
-    /** Max element height, initialized at 40 to potentially separate empty groups */
-    private int heightMax = 40;
+    /** Minimal size of the layout cell, used to potentially separate empty groups */
+    public static final int MIN_CELL_SIZE = 40;
+
+    private final Optional<LayoutCache> cache;
+
+    /** Last scheduled layout job, only accessed from the UI thread */
+    private Job layoutJob;
 
     /**
      * Create a layout generator which initialize the displayed graph with position computed through a dedicated
@@ -66,9 +88,92 @@ public class AutoLayoutGenerator extends LayoutGenerator {
      */
     public AutoLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
             final GraphDisplayer displayer) {
+        this(adapter, presenterManager, displayer, Optional.empty());
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with position computed through a dedicated
+     * algorithm, reusing coordinates of unchanged groups from a previous layout. </br>
+     *
+     * After a graph update notification, the layout algorithm will not be computed again. Only the original graph is
+     * computed.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     * @param cache
+     *            the layout cache dedicated to this generator algorithm
+     */
+    public AutoLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final LayoutCache cache) {
+        this(adapter, presenterManager, displayer, Optional.of(cache));
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with position computed through a dedicated
+     * algorithm, the initial layout being computed in background if required. </br>
+     *
+     * After a graph update notification, the layout algorithm will not be computed again. Only the original graph is
+     * computed.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     * @param async
+     *            true to compute the initial layout with {@link #layoutAsync()}, the graph is displayed at once and
+     *            nodes are moved when the layout is done
+     */
+    public AutoLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final boolean async) {
+        this(adapter, presenterManager, displayer, Optional.empty(), async);
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with position computed through a dedicated
+     * algorithm, reusing coordinates of unchanged groups from a previous layout, the initial layout being computed in
+     * background if required. </br>
+     *
+     * After a graph update notification, the layout algorithm will not be computed again. Only the original graph is
+     * computed.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     * @param cache
+     *            the layout cache dedicated to this generator algorithm
+     * @param async
+     *            true to compute the initial layout with {@link #layoutAsync()}, the graph is displayed at once and
+     *            nodes are moved when the layout is done
+     */
+    public AutoLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final LayoutCache cache, final boolean async) {
+        this(adapter, presenterManager, displayer, Optional.of(cache), async);
+    }
+
+    protected AutoLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final Optional<LayoutCache> cache) {
+        this(adapter, presenterManager, displayer, cache, false);
+    }
+
+    protected AutoLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final Optional<LayoutCache> cache, final boolean async) {
         super(adapter, presenterManager, displayer);
+        this.cache = cache;
         // run the first layout
-        layout();
+        if (async) {
+            layoutAsync();
+        } else {
+            layout();
+        }
     }
 
     /**
@@ -76,25 +181,169 @@ public class AutoLayoutGenerator extends LayoutGenerator {
      */
     public void layout() {
         // The first display has been done, let's compute initial positions.
-        final AutoGroupLayoutComputer computer = new AutoGroupLayoutComputer(getGraph());
-        for (final LeafPresenter presenters : getLeafPresenters()) {
-            final Rectangle bounds = presenters.getBoundsFigure().getBounds();
-            widthMax = bounds.width > widthMax ? bounds.width : widthMax;
-            heightMax = bounds.height > heightMax ? bounds.height : heightMax;
+        final AutoGroupLayoutComputer computer = createComputer(getGraph());
+        apply(computer::getCoordinate);
+    }
+
+    /**
+     * Compute the graph location in background then move elements in a single UI update.</br>
+     *
+     * The graph is copied first, the job then computes the copy and reports its progress once per computed container.
+     * Canceling the job stops the computation as soon as the containers being computed are done, nodes are not moved.
+     * A new call cancels the pending layout. Nodes added while the layout is computed keep their location.</br>
+     * Must be called from the UI thread.
+     *
+     * @return the scheduled layout job
+     */
+    public Job layoutAsync() {
+        if (layoutJob != null) {
+            layoutJob.cancel();
         }
+        layoutJob = new LayoutJob(getGraph());
+        layoutJob.schedule();
+        return layoutJob;
+    }
+
+    /**
+     * Cancel the pending background layout, if any, then stop displaying the graph
+     */
+    @Override
+    public void dispose() {
+        if (layoutJob != null) {
+            layoutJob.cancel();
+            layoutJob = null;
+        }
+        super.dispose();
+    }
+
+    /**
+     * Compute raw coordinates of the graph nodes
+     *
+     * @param graph
+     *            the graph to compute
+     * @return the computer holding coordinates
+     */
+    protected AutoGroupLayoutComputer createComputer(final Graph graph) {
+        return createComputer(graph, getLayout());
+    }
+
+    /**
+     * Compute raw coordinates of the graph nodes, through the layout cache if any
+     *
+     * @param graph
+     *            the graph to compute
+     * @param layout
+     *            compute the raw coordinates of the leaves of a container without groups
+     * @return the computer holding coordinates
+     */
+    protected final AutoGroupLayoutComputer createComputer(final Graph graph,
+            final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout) {
+        return cache.map(layoutCache -> new AutoGroupLayoutComputer(graph, layout, layoutCache))
+                .orElseGet(() -> new AutoGroupLayoutComputer(graph, layout));
+    }
 
+    /**
+     * Move nodes to their computed location, see {@link #getLocations(List, List)}
+     *
+     * @param coordinates
+     *            raw coordinates of nodes, null to keep a node location
+     */
+    private void apply(final Function<INode, PrecisionPoint> coordinates) {
+        final List<Presenter<? extends INode>> presenters = new ArrayList<>();
+        final List<PrecisionPoint> points = new ArrayList<>();
         Stream.concat(getLeafPresenters().stream(),
                       getGroupPresenters().stream().filter(presenter -> presenter.getNode().getLeaves().isEmpty()))
-                .forEach(presenter -> setupPresenter(presenter, computer.getCoordinate(presenter.getNode())));
+                .forEach(presenter -> {
+                    final PrecisionPoint coordinate = coordinates.apply(presenter.getNode());
+                    if (coordinate != null) {
+                        presenters.add(presenter);
+                        points.add(coordinate);
+                    }
+                });
+
+        final List<PrecisionPoint> locations = getLocations(presenters, points);
+        for (int i = 0; i < presenters.size(); i++) {
+            presenters.get(i).getBoundsFigure().setLocation(locations.get(i));
+        }
     }
 
-    private void setupPresenter(final Presenter<? extends INode> presenter, final PrecisionPoint coordinates) {
-        /**
-         * Ordinates are negated because draw2d uses the upper left corner as origin but the algorithm uses a standard
-         * cartesian coordinates (ordinates grows towards the upper side of the view).
-         */
-        presenter.getBoundsFigure().setLocation(
-                new PrecisionPoint(coordinates.x * widthMax * 1.5, -coordinates.y * heightMax * 2));
+    /**
+     * Compute a snapshot of the graph then apply the result on the UI thread
+     */
+    private final class LayoutJob extends Job {
+
+        private final Graph graph;
+        private final Copy snapshot;
+        /** Number of containers to compute: the graph and all its groups */
+        private final int containerCount;
+
+        private LayoutJob(final Graph graph) {
+            super("Graph layout");
+            this.graph = graph;
+            this.snapshot = GraphCopier.snapshot(graph);
+            final List<Group> groups = new ArrayList<>(graph.getGroups());
+            for (int i = 0; i < groups.size(); i++) {
+                groups.addAll(groups.get(i).getGroups());
+            }
+            this.containerCount = groups.size() + 1;
+            setPriority(LONG);
+        }
+
+        @Override
+        protected IStatus run(final IProgressMonitor monitor) {
+            monitor.beginTask(getName(), containerCount);
+            final Set<Leaf> leaves = new HashSet<>();
+            final Set<Group> groups = new HashSet<>();
+            snapshot.getRoots().forEach(root -> {
+                if (root instanceof Leaf) {
+                    leaves.add((Leaf) root);
+                } else {
+                    groups.add((Group) root);
+                }
+            });
+
+            final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout = getLayout();
+            final AutoGroupLayoutComputer computer;
+            try {
+                computer = createComputer(new Graph(leaves, groups), container -> {
+                    if (monitor.isCanceled()) {
+                        throw new OperationCanceledException();
+                    }
+                    final Map<Leaf, PrecisionPoint> coordinates = layout.apply(container);
+                    // Containers are computed concurrently, progress monitors are not thread safe
+                    synchronized (monitor) {
+                        monitor.worked(1);
+                    }
+                    return coordinates;
+                });
+            } catch (final OperationCanceledException e) {
+                return Status.CANCEL_STATUS;
+            } finally {
+                monitor.done();
+            }
+            if (monitor.isCanceled()) {
+                return Status.CANCEL_STATUS;
+            }
+
+            final FigureCanvas control = getDisplayer().getControl();
+            if (control.isDisposed()) {
+                return Status.CANCEL_STATUS;
+            }
+            control.getDisplay().asyncExec(() -> {
+                // The layout is dropped if another one has been requested or if the graph has been replaced
+                if (layoutJob != this || control.isDisposed() || getGraph() != graph) {
+                    return;
+                }
+                apply(node -> {
+                    final INode copy = node instanceof ILeaf ? snapshot.getCopy((ILeaf) node)
+                            : snapshot.getCopy((IGroup) node);
+                    return copy != null ? computer.getCoordinate(copy) : null;
+                });
+                layoutJob = null;
+            });
+            return Status.OK_STATUS;
+        }
+
     }
 
 }
@@ -0,0 +1,733 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Force directed layout algorithm, suited to loosely structured graphs with many cycles.</br>
+ *
+ * Linked nodes attract each other and every pair of nodes repulse each other (Fruchterman-Reingold model), for a
+ * given number of iterations during which node moves are progressively limited. Repulsion is approximated with a
+ * Barnes-Hut quadtree, each iteration is thus O(n log n). Forces of the nodes are computed in parallel.</br>
+ *
+ * Groups are kept as disjoint discs, sized after their content: each iteration, sibling groups and leaves which
+ * overlap are separated and the content of a group is brought back into its disc. Groups without any leaf are laid out
+ * as single nodes.</br>
+ *
+ * Coordinates are expressed in ideal link lengths, ordinates growing towards the bottom. The computation is
+ * deterministic.
+ */
+public class ForceDirectedLayoutComputer {
+
+    /** Default number of iterations */
+    public static final int DEFAULT_ITERATIONS = 100;
+
+    /** Barnes-Hut accuracy, cells seen under a lower ratio of size and distance are approximated */
+    private static final double THETA = 1.2;
+    /** Radius of a node when separated from its siblings */
+    private static final double NODE_RADIUS = 0.5;
+    /** Radius of a group relative to the square root of its node count */
+    private static final double GROUP_DENSITY = 0.75;
+    /**
+     * Pull of each node towards the center of its innermost container, proportional to the distance.</br>
+     * Repulsion of n nodes spread on a disc of radius r is about n / r on its border, this gravity balances it when r
+     * is the radius given to a group of n nodes.
+     */
+    private static final double GRAVITY = 1 / (GROUP_DENSITY * GROUP_DENSITY);
+    private static final double MIN_DISTANCE = 1e-3;
+    private static final long SEED = 0x5EED;
+    /** Nodes of which forces are computed by a same task */
+    private static final int CHUNK_SIZE = 1024;
+    /** Bits of each coordinate in the Z-order of nodes, node indexes use as many bits */
+    private static final int MORTON_BITS = 21;
+
+    private final int iterations;
+
+    /** Leaves and leafless groups, the nodes of each container are contiguous */
+    private final List<INode> nodes = new ArrayList<>();
+    private final double[] x;
+    private final double[] y;
+    private final double[] forceX;
+    private final double[] forceY;
+    /** Innermost container of each node */
+    private final int[] containerOf;
+
+    /** Undirected adjacency of the nodes */
+    private final int[] adjacencyOffsets;
+    private final int[] adjacency;
+
+    /** The graph then its groups at any depth, each container being before its content */
+    private final List<NodeContainer> containers = new ArrayList<>();
+    private final int[] parents;
+    /** Nodes of each container, at any depth, are in [first, end[ */
+    private final int[] firstNodes;
+    private final int[] endNodes;
+    private final double[] radii;
+    private final double[] centerX;
+    private final double[] centerY;
+    /** Direct leaves and groups of each container */
+    private final int[][] childNodes;
+    private final int[][] childContainers;
+
+    private final Map<INode, PrecisionPoint> coordinates = new HashMap<>();
+
+    /**
+     * @param graph
+     *            the graph to compute
+     */
+    public ForceDirectedLayoutComputer(final NodeContainer graph) {
+        this(graph, DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * @param graph
+     *            the graph to compute
+     * @param iterations
+     *            number of simulation steps, more steps give a better layout but take more time
+     */
+    public ForceDirectedLayoutComputer(final NodeContainer graph, final int iterations) {
+        this(graph, iterations, iteration -> {
+        });
+    }
+
+    /**
+     * @param graph
+     *            the graph to compute
+     * @param iterations
+     *            number of simulation steps, more steps give a better layout but take more time
+     * @param onIteration
+     *            called with the index of each done simulation step, may throw to abort the computation
+     */
+    public ForceDirectedLayoutComputer(final NodeContainer graph, final int iterations,
+            final IntConsumer onIteration) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Iteration count cannot be negative");
+        }
+        this.iterations = iterations;
+
+        final List<Integer> parentList = new ArrayList<>();
+        final List<Integer> firstList = new ArrayList<>();
+        final List<Integer> endList = new ArrayList<>();
+        final Map<Leaf, Integer> leafIndexes = new HashMap<>();
+        indexContainer(graph, -1, parentList, firstList, endList, leafIndexes);
+
+        final int count = nodes.size();
+        final int containerCount = containers.size();
+        this.x = new double[count];
+        this.y = new double[count];
+        this.forceX = new double[count];
+        this.forceY = new double[count];
+        this.containerOf = new int[count];
+        this.parents = parentList.stream().mapToInt(Integer::intValue).toArray();
+        this.firstNodes = firstList.stream().mapToInt(Integer::intValue).toArray();
+        this.endNodes = endList.stream().mapToInt(Integer::intValue).toArray();
+        this.radii = new double[containerCount];
+        this.centerX = new double[containerCount];
+        this.centerY = new double[containerCount];
+        this.childNodes = new int[containerCount][];
+        this.childContainers = new int[containerCount][];
+
+        indexChildren();
+        final int[][] edges = indexLinks(leafIndexes);
+        this.adjacencyOffsets = edges[0];
+        this.adjacency = edges[1];
+
+        initializePositions();
+        for (int iteration = 0; iteration < iterations && count > 0; iteration++) {
+            step(iteration);
+            onIteration.accept(iteration);
+        }
+        for (int i = 0; i < count; i++) {
+            coordinates.put(nodes.get(i), new PrecisionPoint(x[i], y[i]));
+        }
+    }
+
+    /**
+     * @param node
+     *            a leaf of the graph, or a group without leaf
+     * @return the node coordinates, or (0, 0) if the node is unknown
+     */
+    public PrecisionPoint getCoordinate(final INode node) {
+        return coordinates.getOrDefault(node, new PrecisionPoint(0, 0));
+    }
+
+    /**
+     * @return the coordinates of leaves and of groups without leaf
+     */
+    public Map<INode, PrecisionPoint> getCoordinates() {
+        return coordinates;
+    }
+
+    private void indexContainer(final NodeContainer container, final int parent, final List<Integer> parentList,
+            final List<Integer> firstList, final List<Integer> endList, final Map<Leaf, Integer> leafIndexes) {
+        final int index = containers.size();
+        containers.add(container);
+        parentList.add(parent);
+        firstList.add(nodes.size());
+        endList.add(0);
+        for (final Leaf leaf : new TreeSet<>(container.getLeaves())) {
+            leafIndexes.put(leaf, nodes.size());
+            nodes.add(leaf);
+        }
+        for (final Group group : new TreeSet<>(container.getGroups())) {
+            indexContainer(group, index, parentList, firstList, endList, leafIndexes);
+        }
+        if (container instanceof Group && nodes.size() == firstList.get(index)) {
+            // A group without leaf is a node of its parent
+            nodes.add((Group) container);
+        }
+        endList.set(index, nodes.size());
+    }
+
+    private void indexChildren() {
+        final List<List<Integer>> groups = new ArrayList<>();
+        containers.forEach(container -> groups.add(new ArrayList<>()));
+        for (int container = 1; container < containers.size(); container++) {
+            groups.get(parents[container]).add(container);
+        }
+        for (int container = 0; container < containers.size(); container++) {
+            childContainers[container] = groups.get(container).stream().mapToInt(Integer::intValue).toArray();
+            final int directLeaves = containers.get(container).getLeaves().size();
+            childNodes[container] = IntStream.range(firstNodes[container], firstNodes[container] + directLeaves)
+                    .toArray();
+            for (final int node : childNodes[container]) {
+                containerOf[node] = container;
+            }
+            final int nodeCount = endNodes[container] - firstNodes[container];
+            radii[container] = GROUP_DENSITY * Math.sqrt(nodeCount) + NODE_RADIUS;
+        }
+        // A group without leaf is its own single node, it belongs to its parent
+        for (int container = 1; container < containers.size(); container++) {
+            if (isLeaflessGroup(container)) {
+                containerOf[firstNodes[container]] = parents[container];
+            }
+        }
+    }
+
+    /**
+     * @return adjacency offsets and adjacency of the nodes
+     */
+    private int[][] indexLinks(final Map<Leaf, Integer> leafIndexes) {
+        final int count = nodes.size();
+        final List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (nodes.get(i) instanceof Leaf) {
+                for (final Link link : ((Leaf) nodes.get(i)).getLinkedOutputLinks()) {
+                    final Integer target = leafIndexes.get(link.getInput().getLeaf());
+                    if (target != null && target != i) {
+                        edges.add(new int[] { i, target });
+                    }
+                }
+            }
+        }
+        final int[] offsets = new int[count + 1];
+        edges.forEach(edge -> {
+            offsets[edge[0] + 1]++;
+            offsets[edge[1] + 1]++;
+        });
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        final int[] fill = Arrays.copyOf(offsets, count);
+        final int[] neighbors = new int[offsets[count]];
+        edges.forEach(edge -> {
+            neighbors[fill[edge[0]]++] = edge[1];
+            neighbors[fill[edge[1]]++] = edge[0];
+        });
+        return new int[][] { offsets, neighbors };
+    }
+
+    /**
+     * Scatter nodes randomly, each container inside the disc of its parent
+     */
+    private void initializePositions() {
+        final Random random = new Random(SEED);
+        for (int container = 0; container < containers.size(); container++) {
+            if (container > 0) {
+                final int parent = parents[container];
+                final double[] point = randomPoint(random, Math.max(0, radii[parent] - radii[container]));
+                centerX[container] = centerX[parent] + point[0];
+                centerY[container] = centerY[parent] + point[1];
+            }
+            for (final int node : childNodes[container]) {
+                final double[] point = randomPoint(random, radii[container] - NODE_RADIUS);
+                x[node] = centerX[container] + point[0];
+                y[node] = centerY[container] + point[1];
+            }
+            if (isLeaflessGroup(container)) {
+                x[firstNodes[container]] = centerX[container];
+                y[firstNodes[container]] = centerY[container];
+            }
+        }
+    }
+
+    private static double[] randomPoint(final Random random, final double radius) {
+        final double angle = random.nextDouble() * 2 * Math.PI;
+        final double distance = radius * Math.sqrt(random.nextDouble());
+        return new double[] { distance * Math.cos(angle), distance * Math.sin(angle) };
+    }
+
+    private boolean isLeaflessGroup(final int container) {
+        return container > 0 && childNodes[container].length == 0 && childContainers[container].length == 0;
+    }
+
+    private void step(final int iteration) {
+        final int count = nodes.size();
+        computeCenters();
+        final int[] order = spatialOrder();
+        final QuadTree tree = new QuadTree(x, y, order);
+
+        // Each node only writes its own force, chunks of nodes are thus computed in parallel
+        IntStream.range(0, (count + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+            final int[] stack = tree.newStack();
+            final double[] force = new double[2];
+            for (int rank = chunk * CHUNK_SIZE; rank < Math.min(count, (chunk + 1) * CHUNK_SIZE); rank++) {
+                final int node = order[rank];
+                force[0] = 0;
+                force[1] = 0;
+                tree.accumulateRepulsion(node, force, stack);
+                for (int j = adjacencyOffsets[node]; j < adjacencyOffsets[node + 1]; j++) {
+                    final int neighbor = adjacency[j];
+                    final double dx = x[neighbor] - x[node];
+                    final double dy = y[neighbor] - y[node];
+                    final double distance = Math.sqrt(dx * dx + dy * dy);
+                    force[0] += dx * distance;
+                    force[1] += dy * distance;
+                }
+                final int container = containerOf[node];
+                forceX[node] = force[0] + (centerX[container] - x[node]) * GRAVITY;
+                forceY[node] = force[1] + (centerY[container] - y[node]) * GRAVITY;
+            }
+        });
+
+        // Moves are limited by a temperature which linearly decreases
+        final double temperature = (Math.sqrt(count) / 10 + 1) * (1 - (double) iteration / iterations);
+        for (int node = 0; node < count; node++) {
+            final double force = Math.sqrt(forceX[node] * forceX[node] + forceY[node] * forceY[node]);
+            if (force > MIN_DISTANCE) {
+                final double move = Math.min(force, temperature) / force;
+                x[node] += forceX[node] * move;
+                y[node] += forceY[node] * move;
+            }
+        }
+        applyContainment();
+    }
+
+    /**
+     * Sort nodes along a Z-order curve: close nodes being processed together, the quadtree is built and traversed with
+     * far less cache misses.
+     *
+     * @return nodes in Z-order
+     */
+    private int[] spatialOrder() {
+        final int count = nodes.size();
+        if (count >= 1 << MORTON_BITS) {
+            return IntStream.range(0, count).toArray();
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int node = 0; node < count; node++) {
+            minX = Math.min(minX, x[node]);
+            minY = Math.min(minY, y[node]);
+            maxX = Math.max(maxX, x[node]);
+            maxY = Math.max(maxY, y[node]);
+        }
+        final double scale = ((1 << MORTON_BITS) - 1) / Math.max(Math.max(maxX - minX, maxY - minY), MIN_DISTANCE);
+        final long[] keys = new long[count];
+        for (int node = 0; node < count; node++) {
+            final long code = interleave((long) ((x[node] - minX) * scale))
+                    | interleave((long) ((y[node] - minY) * scale)) << 1;
+            keys[node] = code << MORTON_BITS | node;
+        }
+        Arrays.sort(keys);
+        final int[] order = new int[count];
+        for (int rank = 0; rank < count; rank++) {
+            order[rank] = (int) (keys[rank] & (1 << MORTON_BITS) - 1);
+        }
+        return order;
+    }
+
+    /**
+     * @return the bits of the value spread on even positions
+     */
+    private static long interleave(final long value) {
+        long bits = value & 0x1FFFFFL;
+        bits = (bits | bits << 16) & 0x0000FFFF0000FFFFL;
+        bits = (bits | bits << 8) & 0x00FF00FF00FF00FFL;
+        bits = (bits | bits << 4) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | bits << 2) & 0x3333333333333333L;
+        return (bits | bits << 1) & 0x5555555555555555L;
+    }
+
+    /**
+     * Compute the center of mass of each container
+     */
+    private void computeCenters() {
+        for (int container = 0; container < containers.size(); container++) {
+            double sumX = 0;
+            double sumY = 0;
+            for (int node = firstNodes[container]; node < endNodes[container]; node++) {
+                sumX += x[node];
+                sumY += y[node];
+            }
+            final int nodeCount = endNodes[container] - firstNodes[container];
+            centerX[container] = nodeCount == 0 ? 0 : sumX / nodeCount;
+            centerY[container] = nodeCount == 0 ? 0 : sumY / nodeCount;
+        }
+    }
+
+    /**
+     * Separate overlapping siblings and bring them back into their container, from the graph to the deepest groups
+     */
+    private void applyContainment() {
+        for (int container = 0; container < containers.size(); container++) {
+            if (isLeaflessGroup(container)) {
+                continue;
+            }
+            // Units are the direct leaves then the direct groups of the container
+            final int nodeUnits = childNodes[container].length;
+            final int unitCount = nodeUnits + childContainers[container].length;
+            final double[] unitX = new double[unitCount];
+            final double[] unitY = new double[unitCount];
+            final double[] unitRadii = new double[unitCount];
+            for (int unit = 0; unit < unitCount; unit++) {
+                if (unit < nodeUnits) {
+                    final int node = childNodes[container][unit];
+                    unitX[unit] = x[node];
+                    unitY[unit] = y[node];
+                    unitRadii[unit] = NODE_RADIUS;
+                } else {
+                    final int group = childContainers[container][unit - nodeUnits];
+                    computeCenter(group);
+                    unitX[unit] = centerX[group];
+                    unitY[unit] = centerY[group];
+                    unitRadii[unit] = isLeaflessGroup(group) ? NODE_RADIUS : radii[group];
+                }
+            }
+            final double[] moveX = new double[unitCount];
+            final double[] moveY = new double[unitCount];
+            separate(unitX, unitY, unitRadii, nodeUnits, moveX, moveY);
+
+            if (container > 0) {
+                computeCenter(container);
+                for (int unit = 0; unit < unitCount; unit++) {
+                    final double dx = unitX[unit] + moveX[unit] - centerX[container];
+                    final double dy = unitY[unit] + moveY[unit] - centerY[container];
+                    final double distance = Math.sqrt(dx * dx + dy * dy);
+                    final double limit = Math.max(0, radii[container] - unitRadii[unit]);
+                    if (distance > limit) {
+                        moveX[unit] -= dx * (distance - limit) / distance;
+                        moveY[unit] -= dy * (distance - limit) / distance;
+                    }
+                }
+            }
+
+            for (int unit = 0; unit < unitCount; unit++) {
+                if (moveX[unit] != 0 || moveY[unit] != 0) {
+                    final int first;
+                    final int end;
+                    if (unit < nodeUnits) {
+                        first = childNodes[container][unit];
+                        end = first + 1;
+                    } else {
+                        final int group = childContainers[container][unit - nodeUnits];
+                        first = firstNodes[group];
+                        end = endNodes[group];
+                    }
+                    for (int node = first; node < end; node++) {
+                        x[node] += moveX[unit];
+                        y[node] += moveY[unit];
+                    }
+                }
+            }
+        }
+    }
+
+    private void computeCenter(final int container) {
+        double sumX = 0;
+        double sumY = 0;
+        for (int node = firstNodes[container]; node < endNodes[container]; node++) {
+            sumX += x[node];
+            sumY += y[node];
+        }
+        centerX[container] = sumX / (endNodes[container] - firstNodes[container]);
+        centerY[container] = sumY / (endNodes[container] - firstNodes[container]);
+    }
+
+    /**
+     * Push apart overlapping discs, each one moving by half of the overlap.</br>
+     * Leaves are already kept apart by repulsion, only pairs including a group are separated. Discs are swept by
+     * increasing left side, each one being compared to the previous groups, and groups to the previous leaves, which
+     * may still overlap it on abscissas.
+     *
+     * @param nodeUnits
+     *            the number of leaves, which are the first discs
+     */
+    private static void separate(final double[] unitX, final double[] unitY, final double[] unitRadii,
+            final int nodeUnits, final double[] moveX, final double[] moveY) {
+        final int count = unitX.length;
+        if (count == nodeUnits) {
+            return;
+        }
+        final double[] lefts = new double[count];
+        final Integer[] order = new Integer[count];
+        for (int unit = 0; unit < count; unit++) {
+            lefts[unit] = unitX[unit] - unitRadii[unit];
+            order[unit] = unit;
+        }
+        Arrays.sort(order, (first, second) -> Double.compare(lefts[first], lefts[second]));
+
+        final int[] activeLeaves = new int[nodeUnits];
+        int activeLeafCount = 0;
+        final int[] activeGroups = new int[count - nodeUnits];
+        int activeGroupCount = 0;
+        for (final int unit : order) {
+            final double left = lefts[unit];
+            int kept = 0;
+            for (int i = 0; i < activeGroupCount; i++) {
+                final int group = activeGroups[i];
+                if (unitX[group] + unitRadii[group] > left) {
+                    activeGroups[kept++] = group;
+                    push(unitX, unitY, unitRadii, group, unit, moveX, moveY);
+                }
+            }
+            activeGroupCount = kept;
+            if (unit < nodeUnits) {
+                activeLeaves[activeLeafCount++] = unit;
+            } else {
+                kept = 0;
+                for (int i = 0; i < activeLeafCount; i++) {
+                    final int leaf = activeLeaves[i];
+                    if (unitX[leaf] + unitRadii[leaf] > left) {
+                        activeLeaves[kept++] = leaf;
+                        push(unitX, unitY, unitRadii, leaf, unit, moveX, moveY);
+                    }
+                }
+                activeLeafCount = kept;
+                activeGroups[activeGroupCount++] = unit;
+            }
+        }
+    }
+
+    private static void push(final double[] unitX, final double[] unitY, final double[] unitRadii, final int first,
+            final int second, final double[] moveX, final double[] moveY) {
+        double dx = unitX[second] - unitX[first];
+        double dy = unitY[second] - unitY[first];
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        final double overlap = unitRadii[first] + unitRadii[second] - distance;
+        if (overlap > 0) {
+            if (distance < MIN_DISTANCE) {
+                // Superposed discs are separated along a direction depending on their order only
+                dx = Math.cos(first + second);
+                dy = Math.sin(first + second);
+                distance = 1;
+            }
+            final double shift = overlap / 2 / distance;
+            moveX[first] -= dx * shift;
+            moveY[first] -= dy * shift;
+            moveX[second] += dx * shift;
+            moveY[second] += dy * shift;
+        }
+    }
+
+    /**
+     * Barnes-Hut quadtree of the node positions, stored in primitive arrays.</br>
+     * Each cell holds the node count and the center of mass of its content, a cell holding a single position (or
+     * several ones at the maximal depth) has no child. Data of a cell are contiguous to limit cache misses during
+     * traversals.
+     */
+    private static final class QuadTree {
+
+        private static final int MAX_DEPTH = 48;
+
+        /** Cell data: left, top, size, mass, then position sums while building, center of mass afterwards */
+        private static final int DATA = 6;
+        private static final int LEFT = 0;
+        private static final int TOP = 1;
+        private static final int SIZE = 2;
+        private static final int MASS = 3;
+        private static final int MASS_X = 4;
+        private static final int MASS_Y = 5;
+        /** Cell links: node held by a cell without child (-1 for other cells), then four children, 0 when absent */
+        private static final int LINKS = 5;
+
+        private final double[] x;
+        private final double[] y;
+
+        private int cellCount = 0;
+        private double[] data;
+        private int[] links;
+
+        /**
+         * @param order
+         *            nodes in insertion order
+         */
+        private QuadTree(final double[] x, final double[] y, final int[] order) {
+            this.x = x;
+            this.y = y;
+            final int count = order.length;
+            this.data = new double[Math.max(16, count * 2) * DATA];
+            this.links = new int[Math.max(16, count * 2) * LINKS];
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int node = 0; node < count; node++) {
+                minX = Math.min(minX, x[node]);
+                minY = Math.min(minY, y[node]);
+                maxX = Math.max(maxX, x[node]);
+                maxY = Math.max(maxY, y[node]);
+            }
+            newCell(minX, minY, Math.max(maxX - minX, maxY - minY) + MIN_DISTANCE, -1);
+            for (final int node : order) {
+                insert(node);
+            }
+            for (int cell = 0; cell < cellCount * DATA; cell += DATA) {
+                data[cell + MASS_X] /= data[cell + MASS];
+                data[cell + MASS_Y] /= data[cell + MASS];
+            }
+        }
+
+        private int[] newStack() {
+            return new int[MAX_DEPTH * 3 + 4];
+        }
+
+        private int newCell(final double left, final double top, final double size, final int content) {
+            if ((cellCount + 1) * DATA > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+                links = Arrays.copyOf(links, links.length * 2);
+            }
+            final int cell = cellCount++;
+            data[cell * DATA + LEFT] = left;
+            data[cell * DATA + TOP] = top;
+            data[cell * DATA + SIZE] = size;
+            links[cell * LINKS] = content;
+            return cell;
+        }
+
+        private void insert(final int node) {
+            if (data[MASS] == 0) {
+                links[0] = node;
+                add(0, node);
+                return;
+            }
+            int cell = 0;
+            for (int depth = 0;; depth++) {
+                add(cell, node);
+                if (links[cell * LINKS] >= 0) {
+                    // Positions superposed down to the maximal depth share the cell
+                    if (depth == MAX_DEPTH) {
+                        return;
+                    }
+                    // Split the cell, its node goes down first
+                    final int previous = links[cell * LINKS];
+                    links[cell * LINKS] = -1;
+                    final int quadrant = quadrant(cell, previous);
+                    final int child = newChild(cell, quadrant, previous);
+                    links[cell * LINKS + 1 + quadrant] = child;
+                }
+                final int quadrant = quadrant(cell, node);
+                final int child = links[cell * LINKS + 1 + quadrant];
+                if (child == 0) {
+                    final int newChild = newChild(cell, quadrant, node);
+                    links[cell * LINKS + 1 + quadrant] = newChild;
+                    return;
+                }
+                cell = child;
+            }
+        }
+
+        private int newChild(final int cell, final int quadrant, final int node) {
+            final double half = data[cell * DATA + SIZE] / 2;
+            final int child = newCell(data[cell * DATA + LEFT] + ((quadrant & 1) != 0 ? half : 0),
+                    data[cell * DATA + TOP] + ((quadrant & 2) != 0 ? half : 0), half, node);
+            add(child, node);
+            return child;
+        }
+
+        private void add(final int cell, final int node) {
+            data[cell * DATA + MASS]++;
+            data[cell * DATA + MASS_X] += x[node];
+            data[cell * DATA + MASS_Y] += y[node];
+        }
+
+        private int quadrant(final int cell, final int node) {
+            final double half = data[cell * DATA + SIZE] / 2;
+            return (x[node] >= data[cell * DATA + LEFT] + half ? 1 : 0)
+                    | (y[node] >= data[cell * DATA + TOP] + half ? 2 : 0);
+        }
+
+        /**
+         * Add the repulsion of every other node to the force of a node
+         *
+         * @param stack
+         *            a stack obtained from {@link #newStack()}, not shared with another thread
+         */
+        private void accumulateRepulsion(final int node, final double[] force, final int[] stack) {
+            final double nodeX = x[node];
+            final double nodeY = y[node];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                final int cell = stack[--top];
+                final int offset = cell * DATA;
+                double mass = data[offset + MASS];
+                double centerX = data[offset + MASS_X];
+                double centerY = data[offset + MASS_Y];
+                final int content = links[cell * LINKS];
+                if (content >= 0 && (content == node || nodeX == centerX && nodeY == centerY)) {
+                    // The node itself, possibly with superposed nodes at the maximal depth
+                    if (mass == 1) {
+                        continue;
+                    }
+                    mass--;
+                    centerX = nodeX + Math.cos(node);
+                    centerY = nodeY + Math.sin(node);
+                }
+                final double dx = nodeX - centerX;
+                final double dy = nodeY - centerY;
+                final double squaredDistance = Math.max(dx * dx + dy * dy, MIN_DISTANCE);
+                final double size = data[offset + SIZE];
+                if (content >= 0 || size * size < THETA * THETA * squaredDistance) {
+                    // Repulsion is 1 / d, hence d / d^2 along the unit vector
+                    force[0] += dx * mass / squaredDistance;
+                    force[1] += dy * mass / squaredDistance;
+                } else {
+                    for (int child = cell * LINKS + 1; child <= cell * LINKS + 4; child++) {
+                        if (links[child] != 0) {
+                            stack[top++] = links[child];
+                        }
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.draw2d.FigureCanvas;
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import com.intel.tools.fdk.graphframework.displayer.GraphDisplayer;
+import com.intel.tools.fdk.graphframework.figure.presenter.DefaultPresenterManager;
+import com.intel.tools.fdk.graphframework.figure.presenter.IPresenterManager;
+import com.intel.tools.fdk.graphframework.figure.presenter.LeafPresenter;
+import com.intel.tools.fdk.graphframework.graph.IGroup;
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.adapter.IAdapter;
+import com.intel.tools.fdk.graphframework.graph.factory.GraphCopier;
+import com.intel.tools.fdk.graphframework.graph.factory.GraphCopier.Copy;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+
+/**
+ * Graph layout which choose a position for each graph node.
+ *
+ * The algorithm used is the one defined in {@link ForceDirectedLayoutComputer}, it suits graphs with many cycles.
+ * Graphs of more than {@link #SYNC_LEAF_COUNT_MAX} leaves are computed in background, see {@link #layoutAsync()}.
+ */
+public class ForceDirectedLayoutGenerator extends LayoutGenerator {
+
+    /** Maximal number of leaves of a graph computed on the UI thread */
+    public static final int SYNC_LEAF_COUNT_MAX = 2000;
+
+    /** Max element size, initialized at 40 to potentially separate empty groups */
+    private int sizeMax = 40;
+
+    private final int iterations;
+
+    /** Last scheduled layout job, only accessed from the UI thread */
+    private Job layoutJob;
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a force directed layout.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param displayer
+     *            the graph displayer to use
+     */
+    public ForceDirectedLayoutGenerator(final IAdapter adapter, final GraphDisplayer displayer) {
+        this(adapter, new DefaultPresenterManager(), displayer);
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a force directed layout.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     */
+    public ForceDirectedLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer) {
+        this(adapter, presenterManager, displayer, ForceDirectedLayoutComputer.DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a force directed layout.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     * @param iterations
+     *            number of simulation steps of each layout, more steps give a better layout but take more time
+     */
+    public ForceDirectedLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final int iterations) {
+        super(adapter, presenterManager, displayer);
+        this.iterations = iterations;
+        // run the first layout
+        layout();
+    }
+
+    /**
+     * Compute the graph to calculate elements location.</br>
+     *
+     * Graphs of more than {@link #SYNC_LEAF_COUNT_MAX} leaves are computed with {@link #layoutAsync()}, the others
+     * are computed at once and cancel the pending background layout.
+     */
+    public void layout() {
+        if (getGraph().getAllLeaves().size() > SYNC_LEAF_COUNT_MAX) {
+            layoutAsync();
+            return;
+        }
+        if (layoutJob != null) {
+            layoutJob.cancel();
+            layoutJob = null;
+        }
+        final ForceDirectedLayoutComputer computer = new ForceDirectedLayoutComputer(getGraph(), iterations);
+        apply(computer::getCoordinate);
+    }
+
+    /**
+     * Compute the graph location in background then move elements in a single UI update.</br>
+     *
+     * The graph is copied first, the job then computes the copy and reports its progress once per simulation step.
+     * Canceling the job stops the computation at the end of the current step, nodes are not moved. A new call cancels
+     * the pending layout. Nodes added while the layout is computed keep their location.</br>
+     * Must be called from the UI thread.
+     *
+     * @return the scheduled layout job
+     */
+    public Job layoutAsync() {
+        if (layoutJob != null) {
+            layoutJob.cancel();
+        }
+        layoutJob = new LayoutJob(getGraph());
+        layoutJob.schedule();
+        return layoutJob;
+    }
+
+    /**
+     * Cancel the pending background layout, if any, then stop displaying the graph
+     */
+    @Override
+    public void dispose() {
+        if (layoutJob != null) {
+            layoutJob.cancel();
+            layoutJob = null;
+        }
+        super.dispose();
+    }
+
+    /**
+     * Move nodes to their computed location, spaced after the biggest node
+     *
+     * @param coordinates
+     *            raw coordinates of nodes, in ideal link lengths, null to keep a node location
+     */
+    private void apply(final Function<INode, PrecisionPoint> coordinates) {
+        for (final LeafPresenter presenter : getLeafPresenters()) {
+            final Rectangle bounds = presenter.getBoundsFigure().getBounds();
+            sizeMax = Math.max(sizeMax, Math.max(bounds.width, bounds.height));
+        }
+
+        // Nodes are centered on their coordinates, the unit of which is the ideal link length
+        final double spacing = sizeMax * 1.5;
+        Stream.concat(getLeafPresenters().stream(), getGroupPresenters().stream()
+                .filter(presenter -> ((Group) presenter.getNode()).getAllLeaves().isEmpty()))
+                .forEach(presenter -> {
+                    final PrecisionPoint coordinate = coordinates.apply(presenter.getNode());
+                    if (coordinate == null) {
+                        return;
+                    }
+                    final Rectangle bounds = presenter.getBoundsFigure().getBounds();
+                    presenter.getBoundsFigure().setLocation(new PrecisionPoint(
+                            coordinate.preciseX() * spacing - bounds.width / 2.0,
+                            coordinate.preciseY() * spacing - bounds.height / 2.0));
+                });
+    }
+
+    /**
+     * Compute a snapshot of the graph then apply the result on the UI thread
+     */
+    private final class LayoutJob extends Job {
+
+        private final Graph graph;
+        private final Copy snapshot;
+
+        private LayoutJob(final Graph graph) {
+            super("Graph layout");
+            this.graph = graph;
+            this.snapshot = GraphCopier.snapshot(graph);
+            setPriority(LONG);
+        }
+
+        @Override
+        protected IStatus run(final IProgressMonitor monitor) {
+            monitor.beginTask(getName(), iterations);
+            final Set<Leaf> leaves = new HashSet<>();
+            final Set<Group> groups = new HashSet<>();
+            snapshot.getRoots().forEach(root -> {
+                if (root instanceof Leaf) {
+                    leaves.add((Leaf) root);
+                } else {
+                    groups.add((Group) root);
+                }
+            });
+
+            final ForceDirectedLayoutComputer computer;
+            try {
+                computer = new ForceDirectedLayoutComputer(new Graph(leaves, groups), iterations, iteration -> {
+                    if (monitor.isCanceled()) {
+                        throw new OperationCanceledException();
+                    }
+                    monitor.worked(1);
+                });
+            } catch (final OperationCanceledException e) {
+                return Status.CANCEL_STATUS;
+            } finally {
+                monitor.done();
+            }
+
+            final FigureCanvas control = getDisplayer().getControl();
+            if (control.isDisposed()) {
+                return Status.CANCEL_STATUS;
+            }
+            control.getDisplay().asyncExec(() -> {
+                // The layout is dropped if another one has been requested or if the graph has been replaced
+                if (layoutJob != this || control.isDisposed() || getGraph() != graph) {
+                    return;
+                }
+                apply(node -> {
+                    final INode copy = node instanceof ILeaf ? snapshot.getCopy((ILeaf) node)
+                            : snapshot.getCopy((IGroup) node);
+                    return copy != null ? computer.getCoordinate(copy) : null;
+                });
+                layoutJob = null;
+            });
+            return Status.OK_STATUS;
+        }
+
+    }
+
+}
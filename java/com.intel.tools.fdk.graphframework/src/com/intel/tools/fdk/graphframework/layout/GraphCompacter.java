@@ -11,8 +11,8 @@ package com.intel.tools.fdk.graphframework.layout;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,6 +36,10 @@ import com.intel.tools.fdk.graphframework.graph.impl.Pin;
 /** Copy the graph and give the impression that groups are simple nodes */
 public class GraphCompacter {
 
+    /** An output has at most one link, links are thus ordered by output */
+    private static final Comparator<Link> LINK_ORDER = Comparator.comparing((final Link link) -> link.getOutput()
+            .getLeaf()).thenComparingInt(link -> link.getOutput().getId());
+
     private final Map<Leaf, Leaf> leavesOrig = new HashMap<>();
     private final Map<Leaf, Leaf> leavesCopy;
     private final Map<Group, Leaf> compactedGroups = new HashMap<>();
@@ -48,7 +52,9 @@ public class GraphCompacter {
         this.leavesCopy = container.getLeaves().stream().collect(Collectors.toMap(Function.identity(), Leaf::new));
         this.leavesCopy.forEach((key, value) -> leavesOrig.put(value, key));
 
-        final Set<Link> linkToCopy = new HashSet<>(container.getLinks());
+        // Links are copied in a stable order as it decides which free pin of a compacted group is used
+        final Set<Link> linkToCopy = new TreeSet<>(LINK_ORDER);
+        linkToCopy.addAll(container.getLinks());
         container.getGroups().forEach(group -> linkToCopy.addAll(group.getExternalLinks()));
         linkToCopy.forEach(this::copyLink);
 
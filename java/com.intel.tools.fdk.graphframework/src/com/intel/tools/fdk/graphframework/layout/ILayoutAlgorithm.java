@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.factory.GraphCopier;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+
+/**
+ * Algorithm computing raw coordinates of the nodes of a graph.</br>
+ *
+ * An algorithm only reads the graph it is given, usually a snapshot taken with {@link GraphCopier#snapshot}, it can
+ * thus run outside of the UI thread. Coordinates are expressed in node spacings, ordinates growing towards the upper
+ * side of the view, as computed by {@link AutoGroupLayoutComputer}. Moving presenters to those coordinates is left to
+ * layout generators.</br>
+ * Algorithms are registered in {@link LayoutAlgorithms}.
+ */
+@FunctionalInterface
+public interface ILayoutAlgorithm {
+
+    /**
+     * @param graph
+     *            the graph to compute, it is not modified
+     * @return raw coordinates of leaves and of groups without leaf
+     */
+    Map<INode, PrecisionPoint> computeCoordinates(Graph graph);
+
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import com.intel.tools.fdk.graphframework.figure.presenter.GroupPresenter;
+import com.intel.tools.fdk.graphframework.figure.presenter.LeafPresenter;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Place nodes added to a displayed graph without moving the whole graph.</br>
+ *
+ * New nodes are placed by unit: a new top level group whose leaves are all new is laid out on its own and placed as a
+ * block, any other new leaf is placed alone. A unit is placed on the right of its linked predecessors, or on the left
+ * of its linked successors if it has no placed predecessor. Units without placed neighbor stay at the hot point.</br>
+ * When the chosen location is occupied, either top level nodes of the same row on the right of the location are
+ * shifted to the right, or top level nodes of the same column under the location are shifted down, whichever
+ * moves the unit and the shifted nodes the least. Other nodes keep their location.</br>
+ *
+ * New groups are laid out with the layout function of the generator and their raw coordinates converted as in a
+ * full layout.
+ */
+final class IncrementalPlacement {
+
+    /** Minimal distance kept between placed nodes */
+    private static final int GAP = 40;
+
+    private final Graph graph;
+    private final Map<Leaf, LeafPresenter> leafPresenters;
+    private final Map<Group, GroupPresenter> groupPresenters;
+    private final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout;
+    private final BiFunction<List<LeafPresenter>, List<PrecisionPoint>, List<PrecisionPoint>> conversion;
+
+    /** Leaves which have not been placed yet */
+    private final Set<Leaf> pendingLeaves = new HashSet<>();
+
+    /**
+     * @param graph
+     *            the displayed graph
+     * @param leafPresenters
+     *            presenters of every leaf of the graph
+     * @param groupPresenters
+     *            presenters of top level groups
+     * @param layout
+     *            layout function of the generator, computing the raw coordinates of the leaves of a container without
+     *            groups
+     * @param conversion
+     *            convert raw coordinates of leaves into the location of their bounds figure
+     */
+    IncrementalPlacement(final Graph graph, final Map<Leaf, LeafPresenter> leafPresenters,
+            final Map<Group, GroupPresenter> groupPresenters,
+            final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout,
+            final BiFunction<List<LeafPresenter>, List<PrecisionPoint>, List<PrecisionPoint>> conversion) {
+        this.graph = graph;
+        this.leafPresenters = leafPresenters;
+        this.groupPresenters = groupPresenters;
+        this.layout = layout;
+        this.conversion = conversion;
+    }
+
+    /**
+     * Place new nodes
+     *
+     * @param newLeaves
+     *            leaves which presenters have just been created
+     * @param newGroups
+     *            top level groups which presenters have just been created
+     */
+    void place(final Collection<Leaf> newLeaves, final Collection<Group> newGroups) {
+        pendingLeaves.addAll(newLeaves);
+        final List<Unit> units = new ArrayList<>();
+        new TreeSet<>(newGroups).forEach(group -> {
+            if (!group.getLeaves().isEmpty() && newLeaves.containsAll(group.getAllLeaves())) {
+                units.add(new Unit(group));
+            }
+        });
+        final Set<Leaf> grouped = new HashSet<>();
+        units.forEach(unit -> grouped.addAll(unit.leaves));
+        new TreeSet<>(newLeaves).stream().filter(leaf -> !grouped.contains(leaf))
+                .forEach(leaf -> units.add(new Unit(leaf)));
+
+        // Units are placed once one of their neighbors is placed, chains of new nodes are thus placed step by step
+        boolean placed = true;
+        while (placed) {
+            placed = false;
+            final Iterator<Unit> iterator = units.iterator();
+            while (iterator.hasNext()) {
+                final Unit unit = iterator.next();
+                if (unit.place()) {
+                    pendingLeaves.removeAll(unit.leaves);
+                    iterator.remove();
+                    placed = true;
+                }
+            }
+        }
+        pendingLeaves.clear();
+    }
+
+    /**
+     * @return figures of top level nodes which are already placed
+     */
+    private List<IFigure> getPlacedFigures() {
+        final List<IFigure> figures = new ArrayList<>();
+        graph.getLeaves().stream().filter(leaf -> !pendingLeaves.contains(leaf))
+                .forEach(leaf -> figures.add(leafPresenters.get(leaf).getBoundsFigure()));
+        graph.getGroups().stream().filter(group -> !group.getAllLeaves().stream().anyMatch(pendingLeaves::contains))
+                .forEach(group -> figures.add(groupPresenters.get(group).getBoundsFigure()));
+        return figures;
+    }
+
+    /**
+     * Shift placed figures on the right of or under the target so that it does not overlap any of them
+     *
+     * @param target
+     *            the area to free, moved on the right of figures overlapping its left side or under figures
+     *            overlapping its upper side
+     */
+    private void makeRoom(final Rectangle target) {
+        final List<IFigure> figures = getPlacedFigures();
+        final Shift row = new Shift(figures, target, false);
+        final Shift column = new Shift(figures, target, true);
+        (column.cost < row.cost ? column : row).apply(target);
+    }
+
+    /**
+     * Moves needed to free a target area along one axis.</br>
+     *
+     * Computations are done on the row axis, bounds being transposed for a column shift.
+     */
+    private static final class Shift {
+
+        private final boolean vertical;
+        private final Rectangle target;
+        /** Offset of each shifted figure */
+        private final Map<IFigure, Integer> offsets = new LinkedHashMap<>();
+        /** Distance the target has been moved plus the largest shift */
+        private final int cost;
+
+        private Shift(final List<IFigure> figures, final Rectangle initialTarget, final boolean vertical) {
+            this.vertical = vertical;
+            this.target = transpose(initialTarget);
+            final Map<IFigure, Rectangle> remaining = new LinkedHashMap<>();
+            figures.forEach(figure -> remaining.put(figure, transpose(figure.getBounds())));
+            final Rectangle area = target.getExpanded(GAP / 2, GAP / 2);
+
+            // Figures starting before the target cannot be shifted, the target is moved after them instead
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (final Rectangle bounds : remaining.values()) {
+                    if (bounds.intersects(area) && bounds.getCenter().x < target.x) {
+                        target.x = bounds.right() + GAP;
+                        area.x = target.x - GAP / 2;
+                        moved = true;
+                    }
+                }
+            }
+
+            // Shift the row, then figures hit by shifted ones
+            int offset = 0;
+            for (final Rectangle bounds : remaining.values()) {
+                if (bounds.intersects(area)) {
+                    offset = Math.max(offset, target.right() + GAP - bounds.x);
+                }
+            }
+            this.cost = target.x - transpose(initialTarget).x + offset;
+            if (offset <= 0) {
+                return;
+            }
+            final List<Rectangle> hit = new ArrayList<>();
+            final Iterator<Map.Entry<IFigure, Rectangle>> shifted = remaining.entrySet().iterator();
+            while (shifted.hasNext()) {
+                final Map.Entry<IFigure, Rectangle> entry = shifted.next();
+                final Rectangle bounds = entry.getValue();
+                if (bounds.x >= target.x && bounds.bottom() > area.y && bounds.y < area.bottom()) {
+                    offsets.put(entry.getKey(), offset);
+                    hit.add(bounds.translate(offset, 0));
+                    shifted.remove();
+                }
+            }
+
+            while (!hit.isEmpty()) {
+                final Rectangle bounds = hit.remove(hit.size() - 1).getExpanded(GAP / 2, GAP / 2);
+                final Iterator<Map.Entry<IFigure, Rectangle>> iterator = remaining.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<IFigure, Rectangle> entry = iterator.next();
+                    final Rectangle figureBounds = entry.getValue();
+                    if (figureBounds.intersects(bounds) && figureBounds.x >= bounds.x) {
+                        final int push = bounds.right() + GAP / 2 - figureBounds.x;
+                        offsets.put(entry.getKey(), push);
+                        hit.add(figureBounds.translate(push, 0));
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+
+        private Rectangle transpose(final Rectangle bounds) {
+            return vertical ? bounds.getCopy().transpose() : bounds.getCopy();
+        }
+
+        /**
+         * Move shifted figures
+         *
+         * @param freed
+         *            the target to update with the freed area
+         */
+        private void apply(final Rectangle freed) {
+            freed.setBounds(transpose(target));
+            offsets.forEach((figure, offset) -> figure.setLocation(figure.getBounds().getLocation()
+                    .translate(vertical ? 0 : offset, vertical ? offset : 0)));
+        }
+
+    }
+
+    /**
+     * New nodes placed together
+     */
+    private final class Unit {
+
+        private final Set<Leaf> leaves = new HashSet<>();
+        /** Figure moved to place the unit */
+        private final IFigure figure;
+
+        private Unit(final Leaf leaf) {
+            this.leaves.add(leaf);
+            this.figure = leafPresenters.get(leaf).getBoundsFigure();
+        }
+
+        private Unit(final Group group) {
+            this.leaves.addAll(group.getAllLeaves());
+            this.figure = groupPresenters.get(group).getBoundsFigure();
+
+            // Lay out the group content from the group location, the group figure follows its children
+            final AutoGroupLayoutComputer computer = new AutoGroupLayoutComputer(group, layout);
+            final List<LeafPresenter> presenters = new ArrayList<>();
+            final List<PrecisionPoint> coordinates = new ArrayList<>();
+            new TreeSet<>(leaves).forEach(leaf -> {
+                presenters.add(leafPresenters.get(leaf));
+                coordinates.add(computer.getCoordinate(leaf));
+            });
+            final List<PrecisionPoint> locations = conversion.apply(presenters, coordinates);
+            // The upper left corner of the laid out content is moved to the group location
+            final Point origin = figure.getBounds().getLocation();
+            final double dx = origin.x - locations.stream().mapToDouble(PrecisionPoint::preciseX).min().orElse(0);
+            final double dy = origin.y - locations.stream().mapToDouble(PrecisionPoint::preciseY).min().orElse(0);
+            for (int i = 0; i < presenters.size(); i++) {
+                presenters.get(i).getBoundsFigure().setLocation(locations.get(i).getTranslated(dx, dy));
+            }
+        }
+
+        /**
+         * @return false if the unit has no placed neighbor yet
+         */
+        private boolean place() {
+            final List<Rectangle> predecessors = new ArrayList<>();
+            final List<Rectangle> successors = new ArrayList<>();
+            for (final Leaf leaf : leaves) {
+                for (final Link link : leaf.getLinkedInputLinks()) {
+                    addNeighbor(link.getOutput().getLeaf(), predecessors);
+                }
+                for (final Link link : leaf.getLinkedOutputLinks()) {
+                    addNeighbor(link.getInput().getLeaf(), successors);
+                }
+            }
+            if (predecessors.isEmpty() && successors.isEmpty()) {
+                return false;
+            }
+
+            final Rectangle target = figure.getBounds().getCopy();
+            if (!predecessors.isEmpty()) {
+                target.x = predecessors.stream().mapToInt(Rectangle::right).max().getAsInt() + GAP;
+                target.y = (int) predecessors.stream().mapToInt(bounds -> bounds.getCenter().y).average()
+                        .getAsDouble() - target.height / 2;
+            } else {
+                target.x = successors.stream().mapToInt(bounds -> bounds.x).min().getAsInt() - GAP - target.width;
+                target.y = (int) successors.stream().mapToInt(bounds -> bounds.getCenter().y).average()
+                        .getAsDouble() - target.height / 2;
+            }
+            makeRoom(target);
+            figure.setLocation(target.getLocation());
+            return true;
+        }
+
+        private void addNeighbor(final Leaf neighbor, final List<Rectangle> neighbors) {
+            final LeafPresenter presenter = leafPresenters.get(neighbor);
+            if (!leaves.contains(neighbor) && !pendingLeaves.contains(neighbor) && presenter != null) {
+                neighbors.add(presenter.getBoundsFigure().getBounds());
+            }
+        }
+
+    }
+
+}
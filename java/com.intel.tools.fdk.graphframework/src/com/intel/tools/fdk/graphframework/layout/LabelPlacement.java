@@ -0,0 +1,443 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import com.intel.tools.fdk.graphframework.figure.LabelPosition;
+
+/**
+ * Choose the {@link LabelPosition} of labels to avoid overlaps between labels, obstacles (e.g. node figures) and
+ * links.</br>
+ *
+ * Each candidate position has a cost: its rank in the preference order, the area it shares with other labels and
+ * obstacles, and the number of link segments crossing it. {@link #place()} places labels greedily then repairs
+ * conflicts by moving each label to its cheapest position until no label moves. {@link #update()} only reconsiders the
+ * labels which could be placed in a modified area, a single moved node thus only costs the repair of its
+ * neighborhood.</br>
+ *
+ * Labels, obstacles and links are indexed in {@link SpatialGrid}s, all rectangles and points must be expressed in the
+ * same coordinate system.
+ *
+ * @param <K>
+ *            type of the label keys
+ */
+public class LabelPlacement<K> {
+
+    /** Default size of the spatial index cells, close to the size of a leaf */
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    /** Cost of each rank of preference, lower than the smallest overlap of two labels */
+    private static final int PREFERENCE_COST = 1;
+    /** Cost of a link segment crossing a label */
+    private static final int LINK_COST = 100;
+    /** Repair passes are bounded, conflicts may be impossible to solve */
+    private static final int MAX_PASSES = 5;
+
+    private static final LabelPosition[] POSITIONS = LabelPosition.values();
+
+    private final Map<K, Label> labels = new LinkedHashMap<>();
+    /** Labels indexed by their current bounds */
+    private final SpatialGrid<Label> labelGrid;
+    /** Labels indexed by the area covered by their candidate positions */
+    private final SpatialGrid<Label> regionGrid;
+    private final SpatialGrid<Object> obstacleGrid;
+    private final SpatialGrid<Segment> segmentGrid;
+    private final Map<Object, List<Segment>> links = new HashMap<>();
+
+    /** Labels added or moved since the last placement */
+    private final Set<Label> dirtyLabels = new LinkedHashSet<>();
+    /** Areas modified since the last placement */
+    private final List<Rectangle> dirtyAreas = new ArrayList<>();
+
+    /**
+     * Create a placement indexed with cells of {@link #DEFAULT_CELL_SIZE}
+     */
+    public LabelPlacement() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize
+     *            size of the spatial index cells, close to the size of labels and obstacles
+     */
+    public LabelPlacement(final int cellSize) {
+        this.labelGrid = new SpatialGrid<>(cellSize);
+        this.regionGrid = new SpatialGrid<>(cellSize);
+        this.obstacleGrid = new SpatialGrid<>(cellSize);
+        this.segmentGrid = new SpatialGrid<>(cellSize);
+    }
+
+    /**
+     * Add a label, it is placed at {@link LabelPosition#BOTTOM} until the next placement
+     *
+     * @param key
+     *            the label key
+     * @param anchor
+     *            bounds of the labeled figure
+     * @param size
+     *            size of the label
+     * @throws IllegalArgumentException
+     *             if a label is already added with this key
+     */
+    public void addLabel(final K key, final Rectangle anchor, final Dimension size) {
+        if (labels.containsKey(key)) {
+            throw new IllegalArgumentException("Label already placed: " + key);
+        }
+        final Label label = new Label(key);
+        labels.put(key, label);
+        setAnchor(label, anchor, size);
+    }
+
+    /**
+     * Move or resize a label, it keeps its position until the next placement
+     *
+     * @param key
+     *            the label key
+     * @param anchor
+     *            new bounds of the labeled figure
+     * @param size
+     *            new size of the label
+     * @throws IllegalArgumentException
+     *             if no label is added with this key
+     */
+    public void moveLabel(final K key, final Rectangle anchor, final Dimension size) {
+        final Label label = getLabel(key);
+        dirtyAreas.add(label.region);
+        setAnchor(label, anchor, size);
+    }
+
+    /**
+     * @param key
+     *            key of the label to remove, nothing is done if there is none
+     */
+    public void removeLabel(final K key) {
+        final Label label = labels.remove(key);
+        if (label != null) {
+            dirtyAreas.add(label.bounds);
+            dirtyLabels.remove(label);
+            labelGrid.remove(label);
+            regionGrid.remove(label);
+        }
+    }
+
+    /**
+     * Add or move an obstacle labels should not overlap
+     *
+     * @param key
+     *            the obstacle key
+     * @param bounds
+     *            bounds of the obstacle
+     */
+    public void setObstacle(final Object key, final Rectangle bounds) {
+        removeObstacle(key);
+        final Rectangle copy = bounds.getCopy();
+        obstacleGrid.put(key, copy);
+        dirtyAreas.add(copy);
+    }
+
+    /**
+     * @param key
+     *            key of the obstacle to remove, nothing is done if there is none
+     */
+    public void removeObstacle(final Object key) {
+        final Rectangle bounds = obstacleGrid.getBounds(key);
+        if (bounds != null) {
+            obstacleGrid.remove(key);
+            dirtyAreas.add(bounds);
+        }
+    }
+
+    /**
+     * Add or move a link labels should not cross
+     *
+     * @param key
+     *            the link key
+     * @param points
+     *            points of the link polyline
+     */
+    public void setLink(final Object key, final PointList points) {
+        removeLink(key);
+        final List<Segment> segments = new ArrayList<>();
+        for (int i = 1; i < points.size(); i++) {
+            final Segment segment = new Segment(points.getPoint(i - 1).x, points.getPoint(i - 1).y,
+                    points.getPoint(i).x, points.getPoint(i).y);
+            segments.add(segment);
+            segmentGrid.put(segment, segment.bounds);
+            dirtyAreas.add(segment.bounds);
+        }
+        links.put(key, segments);
+    }
+
+    /**
+     * @param key
+     *            key of the link to remove, nothing is done if there is none
+     */
+    public void removeLink(final Object key) {
+        final List<Segment> segments = links.remove(key);
+        if (segments != null) {
+            for (final Segment segment : segments) {
+                segmentGrid.remove(segment);
+                dirtyAreas.add(segment.bounds);
+            }
+        }
+    }
+
+    /**
+     * Place every label
+     *
+     * @return keys of the labels whose position changed
+     */
+    public Set<K> place() {
+        final Map<Label, LabelPosition> previous = new HashMap<>();
+        labels.values().forEach(label -> {
+            previous.put(label, label.position);
+            labelGrid.remove(label);
+        });
+        dirtyLabels.clear();
+        dirtyAreas.clear();
+
+        for (final Label label : labels.values()) {
+            moveToCheapest(label);
+        }
+        repair(labels.values());
+        return getChanged(previous);
+    }
+
+    /**
+     * Place labels which have been added or moved and the labels around modified areas, other labels keep their
+     * position
+     *
+     * @return keys of the labels whose position changed
+     */
+    public Set<K> update() {
+        final Set<Label> affected = new LinkedHashSet<>(dirtyLabels);
+        for (final Label label : dirtyLabels) {
+            affected.addAll(regionGrid.query(label.region));
+        }
+        for (final Rectangle area : dirtyAreas) {
+            affected.addAll(regionGrid.query(area));
+        }
+        final Map<Label, LabelPosition> previous = new HashMap<>();
+        affected.forEach(label -> previous.put(label, label.position));
+
+        dirtyLabels.forEach(this::moveToCheapest);
+        dirtyLabels.clear();
+        dirtyAreas.clear();
+        repair(affected);
+        return getChanged(previous);
+    }
+
+    /**
+     * @param key
+     *            the label key
+     * @return the current position of the label
+     * @throws IllegalArgumentException
+     *             if no label is added with this key
+     */
+    public LabelPosition getPosition(final K key) {
+        return getLabel(key).position;
+    }
+
+    /**
+     * @param key
+     *            the label key
+     * @return the bounds of the label at its current position
+     * @throws IllegalArgumentException
+     *             if no label is added with this key
+     */
+    public Rectangle getBounds(final K key) {
+        return getLabel(key).bounds.getCopy();
+    }
+
+    /**
+     * @return the number of labels overlapping another label, an obstacle or a link
+     */
+    public int getConflictCount() {
+        int conflicts = 0;
+        for (final Label label : labels.values()) {
+            if (getCost(label, label.bounds, 0) > 0) {
+                conflicts++;
+            }
+        }
+        return conflicts;
+    }
+
+    private Label getLabel(final K key) {
+        final Label label = labels.get(key);
+        if (label == null) {
+            throw new IllegalArgumentException("Unknown label: " + key);
+        }
+        return label;
+    }
+
+    private void setAnchor(final Label label, final Rectangle anchor, final Dimension size) {
+        label.anchor = anchor.getCopy();
+        label.size = size.getCopy();
+        // The candidate positions surround the anchor
+        label.region = new Rectangle(anchor.x - size.width, anchor.y - size.height, anchor.width + size.width * 2,
+                anchor.height + size.height * 2);
+        regionGrid.put(label, label.region);
+        setPosition(label, label.position);
+        dirtyLabels.add(label);
+    }
+
+    private void setPosition(final Label label, final LabelPosition position) {
+        label.position = position;
+        label.bounds = position.getBounds(label.anchor, label.size);
+        labelGrid.put(label, label.bounds);
+    }
+
+    /**
+     * Move each label to its cheapest position, given the position of the others, until no label moves
+     */
+    private void repair(final Collection<Label> candidates) {
+        boolean moved = true;
+        for (int pass = 0; pass < MAX_PASSES && moved; pass++) {
+            moved = false;
+            for (final Label label : candidates) {
+                final LabelPosition position = label.position;
+                if (getCost(label, label.bounds, position.ordinal()) > position.ordinal() * PREFERENCE_COST
+                        || position.ordinal() > 0) {
+                    moved |= moveToCheapest(label) != position;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the previous position of the label
+     */
+    private LabelPosition moveToCheapest(final Label label) {
+        final LabelPosition previous = label.position;
+        labelGrid.remove(label);
+        LabelPosition best = previous;
+        long bestCost = Long.MAX_VALUE;
+        for (final LabelPosition position : POSITIONS) {
+            final long cost = getCost(label, position.getBounds(label.anchor, label.size), position.ordinal());
+            // Ties keep the current position to avoid oscillations
+            if (cost < bestCost || cost == bestCost && position == previous) {
+                best = position;
+                bestCost = cost;
+            }
+        }
+        setPosition(label, best);
+        return best;
+    }
+
+    private long getCost(final Label label, final Rectangle bounds, final int rank) {
+        long cost = (long) rank * PREFERENCE_COST;
+        for (final Label other : labelGrid.query(bounds)) {
+            if (other != label) {
+                cost += getOverlapArea(bounds, other.bounds);
+            }
+        }
+        for (final Object obstacle : obstacleGrid.query(bounds)) {
+            cost += getOverlapArea(bounds, obstacleGrid.getBounds(obstacle));
+        }
+        for (final Segment segment : segmentGrid.query(bounds)) {
+            if (segment.crosses(bounds)) {
+                cost += LINK_COST;
+            }
+        }
+        return cost;
+    }
+
+    private static long getOverlapArea(final Rectangle first, final Rectangle second) {
+        final long width = Math.min(first.x + first.width, second.x + second.width) - Math.max(first.x, second.x);
+        final long height = Math.min(first.y + first.height, second.y + second.height) - Math.max(first.y, second.y);
+        return width > 0 && height > 0 ? width * height : 0;
+    }
+
+    private Set<K> getChanged(final Map<Label, LabelPosition> previous) {
+        final Set<K> changed = new LinkedHashSet<>();
+        previous.forEach((label, position) -> {
+            if (label.position != position && labels.get(label.key) == label) {
+                changed.add(label.key);
+            }
+        });
+        return changed;
+    }
+
+    private final class Label {
+
+        private final K key;
+        private Rectangle anchor;
+        private Dimension size;
+        private Rectangle region;
+        private LabelPosition position = LabelPosition.BOTTOM;
+        private Rectangle bounds;
+
+        private Label(final K key) {
+            this.key = key;
+        }
+
+    }
+
+    private static final class Segment {
+
+        private final int x1;
+        private final int y1;
+        private final int x2;
+        private final int y2;
+        private final Rectangle bounds;
+
+        private Segment(final int x1, final int y1, final int x2, final int y2) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.bounds = new Rectangle(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+        }
+
+        /**
+         * Clip the segment on the rectangle interior (Liang-Barsky)
+         *
+         * @return true if a part of the segment lies strictly inside the rectangle
+         */
+        private boolean crosses(final Rectangle rectangle) {
+            final double dx = x2 - x1;
+            final double dy = y2 - y1;
+            final double[] p = { -dx, dx, -dy, dy };
+            final double[] q = { x1 - rectangle.x, rectangle.x + rectangle.width - x1, y1 - rectangle.y,
+                rectangle.y + rectangle.height - y1 };
+            double start = 0;
+            double end = 1;
+            for (int i = 0; i < p.length; i++) {
+                if (p[i] == 0) {
+                    if (q[i] <= 0) {
+                        return false;
+                    }
+                } else {
+                    final double t = q[i] / p[i];
+                    if (p[i] < 0) {
+                        start = Math.max(start, t);
+                    } else {
+                        end = Math.min(end, t);
+                    }
+                }
+            }
+            return start < end;
+        }
+
+    }
+
+}
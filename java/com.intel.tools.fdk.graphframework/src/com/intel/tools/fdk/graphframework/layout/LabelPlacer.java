@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.draw2d.Connection;
+import org.eclipse.draw2d.FigureListener;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import com.intel.tools.fdk.graphframework.displayer.GraphDisplayer;
+import com.intel.tools.fdk.graphframework.figure.LabelFigure;
+import com.intel.tools.fdk.graphframework.figure.link.LinkFigure;
+import com.intel.tools.fdk.graphframework.figure.presenter.LeafPresenter;
+import com.intel.tools.fdk.graphframework.figure.presenter.Presenter;
+
+/**
+ * Keep the labels of displayed presenters away from leaves, links and other labels with a {@link LabelPlacement}.</br>
+ *
+ * Leaves are obstacles, labels and links are followed: their moves are accumulated and the placement is updated in a
+ * single UI task, only the labels around moved figures are placed again. Must be used from the UI thread.
+ */
+final class LabelPlacer {
+
+    private final GraphDisplayer displayer;
+    private final LabelPlacement<LabelFigure> placement = new LabelPlacement<>();
+    /** Listener removals, run on dispose */
+    private final List<Runnable> removals = new ArrayList<>();
+    private boolean updateScheduled = false;
+    private boolean disposed = false;
+
+    /**
+     * Place labels of the given presenters then follow their moves
+     *
+     * @param displayer
+     *            the displayer showing the presenters
+     * @param presenters
+     *            the displayed presenters
+     * @param linkFigures
+     *            the displayed links
+     */
+    LabelPlacer(final GraphDisplayer displayer, final Collection<? extends Presenter<?>> presenters,
+            final Collection<LinkFigure> linkFigures) {
+        this.displayer = displayer;
+        for (final Presenter<?> presenter : presenters) {
+            if (presenter instanceof LeafPresenter) {
+                final IFigure bounds = presenter.getBoundsFigure();
+                placement.setObstacle(bounds, getAbsoluteBounds(bounds));
+                addFigureListener(bounds, figure -> placement.setObstacle(bounds, getAbsoluteBounds(bounds)));
+            }
+            presenter.getDisplayableDecoration().stream().filter(LabelFigure.class::isInstance)
+                    .map(LabelFigure.class::cast).forEach(this::addLabel);
+        }
+        for (final LinkFigure linkFigure : linkFigures) {
+            placement.setLink(linkFigure, getAbsolutePoints(linkFigure));
+            final PropertyChangeListener listener = event -> {
+                placement.setLink(linkFigure, getAbsolutePoints(linkFigure));
+                scheduleUpdate();
+            };
+            linkFigure.addPropertyChangeListener(Connection.PROPERTY_POINTS, listener);
+            removals.add(() -> linkFigure.removePropertyChangeListener(Connection.PROPERTY_POINTS, listener));
+        }
+        placement.place().forEach(label -> label.setPosition(placement.getPosition(label)));
+    }
+
+    /**
+     * Stop following figures, labels keep their position
+     */
+    void dispose() {
+        disposed = true;
+        removals.forEach(Runnable::run);
+        removals.clear();
+    }
+
+    private void addLabel(final LabelFigure label) {
+        placement.addLabel(label, getAbsoluteBounds(label.getBoundFigure()), label.getSize());
+        addFigureListener(label.getBoundFigure(),
+                figure -> placement.moveLabel(label, getAbsoluteBounds(figure), label.getSize()));
+        // The label moves with its figure, only a new text changes its size
+        addFigureListener(label, figure -> {
+            if (!placement.getBounds(label).getSize().equals(label.getSize())) {
+                placement.moveLabel(label, getAbsoluteBounds(label.getBoundFigure()), label.getSize());
+            }
+        });
+    }
+
+    private void addFigureListener(final IFigure figure, final FigureListener action) {
+        final FigureListener listener = source -> {
+            action.figureMoved(source);
+            scheduleUpdate();
+        };
+        figure.addFigureListener(listener);
+        removals.add(() -> figure.removeFigureListener(listener));
+    }
+
+    private void scheduleUpdate() {
+        if (updateScheduled || displayer.getControl().isDisposed()) {
+            return;
+        }
+        updateScheduled = true;
+        displayer.getControl().getDisplay().asyncExec(() -> {
+            updateScheduled = false;
+            if (!disposed) {
+                placement.update().forEach(label -> label.setPosition(placement.getPosition(label)));
+            }
+        });
+    }
+
+    /**
+     * Bounds of a figure as computed by {@link LabelFigure}
+     */
+    private static Rectangle getAbsoluteBounds(final IFigure figure) {
+        final Rectangle bounds = figure.getBounds().getCopy();
+        if (figure.getParent() != null) {
+            figure.getParent().translateToAbsolute(bounds);
+        }
+        return bounds;
+    }
+
+    private static PointList getAbsolutePoints(final LinkFigure linkFigure) {
+        final PointList points = linkFigure.getPoints().getCopy();
+        linkFigure.translateToAbsolute(points);
+        return points;
+    }
+
+}
@@ -0,0 +1,660 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Layered graph drawing algorithm (Sugiyama framework).</br>
+ *
+ * Leaves are placed in columns so that links go from left to right:
+ * <ul>
+ * <li>cycles are broken by reversing the back links of a depth first search,</li>
+ * <li>leaves are assigned to columns by longest path, then moved to shorten links,</li>
+ * <li>links spanning several columns are split with dummy nodes,</li>
+ * <li>leaf order inside columns is computed by barycenter sweeps, keeping the order with the fewest crossings,</li>
+ * <li>positions inside columns are computed by the Brandes-K&ouml;pf method: the four vertical alignments are
+ * compacted and balanced.</li>
+ * </ul>
+ * Coordinates use the same grid as {@link AutoLayoutComputer}: abscissa is the column and ordinate grows towards the
+ * upper side of the view. Links leaving the container are ignored.
+ */
+public class LayeredLayoutComputer {
+
+    /** Maximal number of down and up sweeps */
+    private static final int MAX_SWEEPS = 24;
+    /** Maximal number of passes moving nodes to shorten links after longest path layering */
+    private static final int MAX_BALANCING_PASSES = 8;
+    /** Number of sweeps without fewer crossings after which ordering stops */
+    private static final int MAX_SWEEPS_WITHOUT_IMPROVEMENT = 4;
+
+    /** Analyzed leaves, indexed as nodes, dummy nodes follow them */
+    private final Leaf[] leaves;
+    private int nodeCount;
+
+    /** Links of the layered graph, split on dummy nodes */
+    private int[] edgeSources;
+    private int[] edgeTargets;
+    /** Incoming and outgoing edges of each node, as compressed rows of edge indexes */
+    private int[] predecessorOffsets;
+    private int[] predecessorEdges;
+    private int[] successorOffsets;
+    private int[] successorEdges;
+
+    private int[] layers;
+    private int layerCount;
+    /** Nodes of each layer, in order, as compressed rows */
+    private int[] layerOffsets;
+    private int[] layerNodes;
+    /** Position of each node in its layer */
+    private int[] positions;
+
+    /** Reusable buffers */
+    private double[] keys;
+    private int[] sortBuffer;
+
+    private final Map<Leaf, PrecisionPoint> coordinates = new HashMap<>();
+
+    public LayeredLayoutComputer(final NodeContainer graph) {
+        this.leaves = new TreeSet<>(graph.getAllLeaves()).toArray(new Leaf[0]);
+        if (leaves.length == 0) {
+            return;
+        }
+        final int[][] links = indexLinks();
+        breakCycles(links[0], links[1]);
+        assignLayers(links[0], links[1]);
+        insertDummyNodes(links[0], links[1]);
+        orderLayers();
+        final double[] ordinates = assignOrdinates();
+
+        double maxOrdinate = 0;
+        for (int v = 0; v < leaves.length; v++) {
+            maxOrdinate = Math.max(maxOrdinate, ordinates[v]);
+        }
+        for (int v = 0; v < leaves.length; v++) {
+            // First nodes of a layer are placed on the upper side
+            coordinates.put(leaves[v], new PrecisionPoint(layers[v], maxOrdinate - ordinates[v]));
+        }
+    }
+
+    /**
+     * Retrieve coordinates of the analyzed leaves, on the same grid as {@link AutoLayoutComputer}
+     *
+     * @return a map associating a leaf node to its coordinates
+     */
+    public Map<Leaf, PrecisionPoint> getCoordinates() {
+        return Collections.unmodifiableMap(coordinates);
+    }
+
+    /**
+     * @return sources and targets of links between two distinct analyzed leaves
+     */
+    private int[][] indexLinks() {
+        final Map<Leaf, Integer> indexes = new HashMap<>();
+        for (int v = 0; v < leaves.length; v++) {
+            indexes.put(leaves[v], v);
+        }
+        int count = 0;
+        int[] sources = new int[leaves.length];
+        int[] targets = new int[leaves.length];
+        for (int v = 0; v < leaves.length; v++) {
+            for (final Link link : leaves[v].getLinkedOutputLinks()) {
+                final Integer target = indexes.get(link.getInput().getLeaf());
+                if (target != null && target != v) {
+                    if (count == sources.length) {
+                        sources = Arrays.copyOf(sources, count * 2);
+                        targets = Arrays.copyOf(targets, count * 2);
+                    }
+                    sources[count] = v;
+                    targets[count] = target;
+                    count++;
+                }
+            }
+        }
+        return new int[][] { Arrays.copyOf(sources, count), Arrays.copyOf(targets, count) };
+    }
+
+    /**
+     * Reverse links closing a cycle, found by an iterative depth first search in leaf order
+     */
+    private void breakCycles(final int[] sources, final int[] targets) {
+        final int n = leaves.length;
+        final int[] offsets = new int[n + 1];
+        final int[] edges = new int[sources.length];
+        buildRows(sources, n, offsets, edges);
+
+        final byte[] states = new byte[n];
+        final int[] stack = new int[n];
+        final int[] cursors = new int[n];
+        for (int start = 0; start < n; start++) {
+            if (states[start] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = start;
+            cursors[start] = offsets[start];
+            states[start] = 1;
+            while (depth >= 0) {
+                final int v = stack[depth];
+                if (cursors[v] == offsets[v + 1]) {
+                    states[v] = 2;
+                    depth--;
+                    continue;
+                }
+                final int edge = edges[cursors[v]++];
+                final int w = targets[edge];
+                if (states[w] == 0) {
+                    states[w] = 1;
+                    cursors[w] = offsets[w];
+                    stack[++depth] = w;
+                } else if (states[w] == 1) {
+                    // Back link, the cycle is broken by reversing it
+                    targets[edge] = sources[edge];
+                    sources[edge] = w;
+                }
+            }
+        }
+    }
+
+    /**
+     * Longest path layering, nodes are then moved between their predecessors and successors to shorten links
+     */
+    private void assignLayers(final int[] sources, final int[] targets) {
+        final int n = leaves.length;
+        final int[] offsets = new int[n + 1];
+        final int[] edges = new int[sources.length];
+        buildRows(sources, n, offsets, edges);
+        final int[] inDegrees = new int[n];
+        for (final int target : targets) {
+            inDegrees[target]++;
+        }
+
+        layers = new int[n];
+        final int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegrees[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            final int v = queue[head++];
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                final int w = targets[edges[j]];
+                layers[w] = Math.max(layers[w], layers[v] + 1);
+                if (--inDegrees[w] == 0) {
+                    queue[tail++] = w;
+                }
+            }
+        }
+        assert tail == n : "Layered graph must be acyclic";
+
+        // Move each node towards the side with the most links while it reduces link spans
+        final int[] predecessorRows = new int[n + 1];
+        final int[] predecessors = new int[sources.length];
+        buildRows(targets, n, predecessorRows, predecessors);
+        boolean moved = true;
+        for (int pass = 0; pass < MAX_BALANCING_PASSES && moved; pass++) {
+            moved = false;
+            for (int k = 0; k < n; k++) {
+                final int v = pass % 2 == 0 ? queue[n - 1 - k] : queue[k];
+                final int inDegree = predecessorRows[v + 1] - predecessorRows[v];
+                final int outDegree = offsets[v + 1] - offsets[v];
+                int layer = layers[v];
+                if (outDegree > inDegree) {
+                    layer = Integer.MAX_VALUE;
+                    for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                        layer = Math.min(layer, layers[targets[edges[j]]] - 1);
+                    }
+                } else if (inDegree > outDegree) {
+                    layer = 0;
+                    for (int j = predecessorRows[v]; j < predecessorRows[v + 1]; j++) {
+                        layer = Math.max(layer, layers[sources[predecessors[j]]] + 1);
+                    }
+                }
+                if (layer != layers[v]) {
+                    layers[v] = layer;
+                    moved = true;
+                }
+            }
+        }
+        for (final int layer : layers) {
+            layerCount = Math.max(layerCount, layer + 1);
+        }
+    }
+
+    /**
+     * Split links spanning several layers so that every edge links two consecutive layers
+     */
+    private void insertDummyNodes(final int[] sources, final int[] targets) {
+        int edgeCount = 0;
+        int dummyCount = 0;
+        for (int e = 0; e < sources.length; e++) {
+            final int span = layers[targets[e]] - layers[sources[e]];
+            edgeCount += span;
+            dummyCount += span - 1;
+        }
+        nodeCount = leaves.length + dummyCount;
+        layers = Arrays.copyOf(layers, nodeCount);
+        edgeSources = new int[edgeCount];
+        edgeTargets = new int[edgeCount];
+
+        int edge = 0;
+        int dummy = leaves.length;
+        for (int e = 0; e < sources.length; e++) {
+            int previous = sources[e];
+            for (int layer = layers[sources[e]] + 1; layer < layers[targets[e]]; layer++) {
+                layers[dummy] = layer;
+                edgeSources[edge] = previous;
+                edgeTargets[edge++] = dummy;
+                previous = dummy++;
+            }
+            edgeSources[edge] = previous;
+            edgeTargets[edge++] = targets[e];
+        }
+
+        predecessorOffsets = new int[nodeCount + 1];
+        predecessorEdges = new int[edgeCount];
+        buildRows(edgeTargets, nodeCount, predecessorOffsets, predecessorEdges);
+        successorOffsets = new int[nodeCount + 1];
+        successorEdges = new int[edgeCount];
+        buildRows(edgeSources, nodeCount, successorOffsets, successorEdges);
+
+        // Initial order: leaves in index order, then dummy nodes in creation order
+        layerOffsets = new int[layerCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            layerOffsets[layers[v] + 1]++;
+        }
+        for (int layer = 0; layer < layerCount; layer++) {
+            layerOffsets[layer + 1] += layerOffsets[layer];
+        }
+        layerNodes = new int[nodeCount];
+        positions = new int[nodeCount];
+        final int[] fill = Arrays.copyOf(layerOffsets, layerCount);
+        for (int v = 0; v < nodeCount; v++) {
+            positions[v] = fill[layers[v]] - layerOffsets[layers[v]];
+            layerNodes[fill[layers[v]]++] = v;
+        }
+    }
+
+    private boolean isDummy(final int v) {
+        return v >= leaves.length;
+    }
+
+    /**
+     * Minimize crossings with alternated barycenter sweeps, the best order found is kept
+     */
+    private void orderLayers() {
+        keys = new double[nodeCount];
+        sortBuffer = new int[nodeCount];
+        int[] bestOrder = layerNodes.clone();
+        long bestCrossings = countCrossings();
+        int sweepsWithoutImprovement = 0;
+        for (int sweep = 0; sweep < MAX_SWEEPS && bestCrossings > 0
+                && sweepsWithoutImprovement < MAX_SWEEPS_WITHOUT_IMPROVEMENT; sweep++) {
+            sweep(sweep % 2 == 0);
+            final long crossings = countCrossings();
+            if (crossings < bestCrossings) {
+                bestCrossings = crossings;
+                bestOrder = layerNodes.clone();
+                sweepsWithoutImprovement = 0;
+            } else {
+                sweepsWithoutImprovement++;
+            }
+        }
+        layerNodes = bestOrder;
+        for (int layer = 0; layer < layerCount; layer++) {
+            for (int k = layerOffsets[layer]; k < layerOffsets[layer + 1]; k++) {
+                positions[layerNodes[k]] = k - layerOffsets[layer];
+            }
+        }
+    }
+
+    /**
+     * Sort each layer by the barycenter of its neighbors in the previous layer of the sweep
+     *
+     * @param downward
+     *            true to sweep from the first layer, using predecessors
+     */
+    private void sweep(final boolean downward) {
+        final int[] offsets = downward ? predecessorOffsets : successorOffsets;
+        final int[] edges = downward ? predecessorEdges : successorEdges;
+        final int[] neighbors = downward ? edgeSources : edgeTargets;
+        for (int i = 1; i < layerCount; i++) {
+            final int layer = downward ? i : layerCount - 1 - i;
+            final int start = layerOffsets[layer];
+            final int end = layerOffsets[layer + 1];
+            for (int k = start; k < end; k++) {
+                final int v = layerNodes[k];
+                if (offsets[v] == offsets[v + 1]) {
+                    // Without neighbor, the node keeps its position
+                    keys[v] = positions[v];
+                } else {
+                    double sum = 0;
+                    for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                        sum += positions[neighbors[edges[j]]];
+                    }
+                    keys[v] = sum / (offsets[v + 1] - offsets[v]);
+                }
+            }
+            sortByKeys(start, end);
+            for (int k = start; k < end; k++) {
+                positions[layerNodes[k]] = k - start;
+            }
+        }
+    }
+
+    /**
+     * Stable merge sort of a layer by node keys
+     */
+    private void sortByKeys(final int start, final int end) {
+        for (int width = 1; width < end - start; width *= 2) {
+            for (int low = start; low < end - width; low += 2 * width) {
+                final int middle = low + width;
+                final int high = Math.min(low + 2 * width, end);
+                int left = low;
+                int right = middle;
+                int k = low;
+                while (left < middle && right < high) {
+                    sortBuffer[k++] = keys[layerNodes[right]] < keys[layerNodes[left]]
+                            ? layerNodes[right++] : layerNodes[left++];
+                }
+                while (left < middle) {
+                    sortBuffer[k++] = layerNodes[left++];
+                }
+                while (right < high) {
+                    sortBuffer[k++] = layerNodes[right++];
+                }
+                System.arraycopy(sortBuffer, low, layerNodes, low, high - low);
+            }
+        }
+    }
+
+    /**
+     * Count edge crossings between consecutive layers by counting inversions with a Fenwick tree
+     */
+    private long countCrossings() {
+        long crossings = 0;
+        final int[] tree = new int[nodeCount + 1];
+        final int[] southPositions = new int[nodeCount];
+        for (int layer = 0; layer + 1 < layerCount; layer++) {
+            final int southSize = layerOffsets[layer + 2] - layerOffsets[layer + 1];
+            Arrays.fill(tree, 0, southSize + 1, 0);
+            int inserted = 0;
+            for (int k = layerOffsets[layer]; k < layerOffsets[layer + 1]; k++) {
+                final int v = layerNodes[k];
+                int degree = 0;
+                for (int j = successorOffsets[v]; j < successorOffsets[v + 1]; j++) {
+                    southPositions[degree++] = positions[edgeTargets[successorEdges[j]]];
+                }
+                Arrays.sort(southPositions, 0, degree);
+                for (int d = 0; d < degree; d++) {
+                    int lowerOrEqual = 0;
+                    for (int i = southPositions[d] + 1; i > 0; i -= i & -i) {
+                        lowerOrEqual += tree[i];
+                    }
+                    crossings += inserted - lowerOrEqual;
+                    for (int i = southPositions[d] + 1; i <= southSize; i += i & -i) {
+                        tree[i]++;
+                    }
+                    inserted++;
+                }
+            }
+        }
+        return crossings;
+    }
+
+    /**
+     * Brandes-K&ouml;pf coordinate assignment
+     *
+     * @return the position of each node inside its layer
+     */
+    private double[] assignOrdinates() {
+        final boolean[] conflicts = markConflicts();
+        final double[][] alignments = new double[4][];
+        double smallestWidth = Double.POSITIVE_INFINITY;
+        int smallest = 0;
+        for (int alignment = 0; alignment < 4; alignment++) {
+            alignments[alignment] = alignAndCompact(alignment < 2, alignment % 2 == 0, conflicts);
+            final double width = max(alignments[alignment]) - min(alignments[alignment]);
+            if (width < smallestWidth) {
+                smallestWidth = width;
+                smallest = alignment;
+            }
+        }
+        // Align each layout on the narrowest one, on its left side for left alignments, on its right side otherwise
+        for (int alignment = 0; alignment < 4; alignment++) {
+            final double shift = alignment % 2 == 0
+                    ? min(alignments[smallest]) - min(alignments[alignment])
+                    : max(alignments[smallest]) - max(alignments[alignment]);
+            for (int v = 0; v < nodeCount; v++) {
+                alignments[alignment][v] += shift;
+            }
+        }
+        final double[] ordinates = new double[nodeCount];
+        final double[] candidates = new double[4];
+        for (int v = 0; v < nodeCount; v++) {
+            for (int alignment = 0; alignment < 4; alignment++) {
+                candidates[alignment] = alignments[alignment][v];
+            }
+            Arrays.sort(candidates);
+            ordinates[v] = (candidates[1] + candidates[2]) / 2;
+        }
+        return ordinates;
+    }
+
+    /**
+     * Mark edges crossing an inner segment (an edge between two dummy nodes), they are not aligned so that long links
+     * stay straight
+     */
+    private boolean[] markConflicts() {
+        final boolean[] conflicts = new boolean[edgeSources.length];
+        for (int layer = 0; layer + 1 < layerCount; layer++) {
+            final int upperSize = layerOffsets[layer + 1] - layerOffsets[layer];
+            final int start = layerOffsets[layer + 1];
+            final int end = layerOffsets[layer + 2];
+            int lowerBound = 0;
+            int next = start;
+            for (int k = start; k < end; k++) {
+                final int v = layerNodes[k];
+                final int innerNeighbor = getInnerSegmentNeighbor(v);
+                if (k == end - 1 || innerNeighbor >= 0) {
+                    final int upperBound = innerNeighbor >= 0 ? positions[innerNeighbor] : upperSize - 1;
+                    for (; next <= k; next++) {
+                        final int w = layerNodes[next];
+                        for (int j = predecessorOffsets[w]; j < predecessorOffsets[w + 1]; j++) {
+                            final int u = edgeSources[predecessorEdges[j]];
+                            if ((positions[u] < lowerBound || positions[u] > upperBound)
+                                    && !(isDummy(u) && isDummy(w))) {
+                                conflicts[predecessorEdges[j]] = true;
+                            }
+                        }
+                    }
+                    lowerBound = upperBound;
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * @return the dummy predecessor of a dummy node, -1 if the node is not the end of an inner segment
+     */
+    private int getInnerSegmentNeighbor(final int v) {
+        if (isDummy(v)) {
+            final int u = edgeSources[predecessorEdges[predecessorOffsets[v]]];
+            if (isDummy(u)) {
+                return u;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compute one of the four Brandes-K&ouml;pf layouts.</br>
+     * Nodes are aligned with the median of their neighbors to form blocks, blocks are then placed as close as possible
+     * from the start of the layers.
+     *
+     * @param downward
+     *            true to align nodes with their predecessors, false with their successors
+     * @param forward
+     *            true to place blocks from the start of the layers, false from their end
+     * @param conflicts
+     *            edges which must not be aligned
+     * @return the position of each node inside its layer
+     */
+    private double[] alignAndCompact(final boolean downward, final boolean forward, final boolean[] conflicts) {
+        final int[] offsets = downward ? predecessorOffsets : successorOffsets;
+        final int[] edges = downward ? predecessorEdges : successorEdges;
+        final int[] neighbors = downward ? edgeSources : edgeTargets;
+
+        // Positions in the direction of the alignment
+        final int[] ranks = new int[nodeCount];
+        for (int layer = 0; layer < layerCount; layer++) {
+            final int size = layerOffsets[layer + 1] - layerOffsets[layer];
+            for (int k = layerOffsets[layer]; k < layerOffsets[layer + 1]; k++) {
+                ranks[layerNodes[k]] = forward ? positions[layerNodes[k]] : size - 1 - positions[layerNodes[k]];
+            }
+        }
+
+        // Vertical alignment
+        final int[] roots = new int[nodeCount];
+        final int[] aligns = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            roots[v] = v;
+            aligns[v] = v;
+        }
+        long[] sortedNeighbors = new long[0];
+        for (int i = 1; i < layerCount; i++) {
+            final int layer = downward ? i : layerCount - 1 - i;
+            final int size = layerOffsets[layer + 1] - layerOffsets[layer];
+            int lastRank = -1;
+            for (int rank = 0; rank < size; rank++) {
+                final int v = layerNodes[layerOffsets[layer] + (forward ? rank : size - 1 - rank)];
+                final int degree = offsets[v + 1] - offsets[v];
+                if (degree == 0) {
+                    continue;
+                }
+                if (sortedNeighbors.length < degree) {
+                    sortedNeighbors = new long[degree];
+                }
+                for (int j = 0; j < degree; j++) {
+                    final int edge = edges[offsets[v] + j];
+                    sortedNeighbors[j] = (long) ranks[neighbors[edge]] << 32 | edge;
+                }
+                Arrays.sort(sortedNeighbors, 0, degree);
+                for (int m = (degree - 1) / 2; m <= degree / 2; m++) {
+                    final int edge = (int) sortedNeighbors[m];
+                    final int u = neighbors[edge];
+                    if (aligns[v] == v && !conflicts[edge] && lastRank < ranks[u]) {
+                        aligns[u] = v;
+                        roots[v] = roots[u];
+                        aligns[v] = roots[v];
+                        lastRank = ranks[u];
+                    }
+                }
+            }
+        }
+
+        // Horizontal compaction: longest path over constraints between blocks of consecutive nodes
+        final int[] constraintSources = new int[nodeCount];
+        final int[] constraintTargets = new int[nodeCount];
+        int constraintCount = 0;
+        for (int layer = 0; layer < layerCount; layer++) {
+            for (int k = layerOffsets[layer] + 1; k < layerOffsets[layer + 1]; k++) {
+                final int previous = forward ? layerNodes[k - 1] : layerNodes[k];
+                final int following = forward ? layerNodes[k] : layerNodes[k - 1];
+                constraintSources[constraintCount] = roots[previous];
+                constraintTargets[constraintCount++] = roots[following];
+            }
+        }
+        final int[] constraintOffsets = new int[nodeCount + 1];
+        final int[] constraints = new int[constraintCount];
+        buildRows(Arrays.copyOf(constraintSources, constraintCount), nodeCount, constraintOffsets, constraints);
+        final int[] inDegrees = new int[nodeCount];
+        for (int c = 0; c < constraintCount; c++) {
+            inDegrees[constraintTargets[c]]++;
+        }
+
+        final double[] blockPositions = new double[nodeCount];
+        final int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < nodeCount; v++) {
+            if (roots[v] == v && inDegrees[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            final int block = queue[head++];
+            for (int j = constraintOffsets[block]; j < constraintOffsets[block + 1]; j++) {
+                final int following = constraintTargets[constraints[j]];
+                blockPositions[following] = Math.max(blockPositions[following], blockPositions[block] + 1);
+                if (--inDegrees[following] == 0) {
+                    queue[tail++] = following;
+                }
+            }
+        }
+
+        assert tail == Arrays.stream(roots).distinct().count()
+                : "Block constraints must be acyclic";
+
+        final double[] result = new double[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            result[v] = forward ? blockPositions[roots[v]] : -blockPositions[roots[v]];
+        }
+        return result;
+    }
+
+    private static double min(final double[] values) {
+        return Arrays.stream(values).min().orElse(0);
+    }
+
+    private static double max(final double[] values) {
+        return Arrays.stream(values).max().orElse(0);
+    }
+
+    /**
+     * Group edge indexes by key as compressed rows, keeping edge order inside a row
+     *
+     * @param edgeKeys
+     *            the row of each edge
+     * @param rowCount
+     *            the number of rows
+     * @param offsets
+     *            filled with the start of each row, of size rowCount + 1
+     * @param rows
+     *            filled with edge indexes, of the size of edgeKeys
+     */
+    private static void buildRows(final int[] edgeKeys, final int rowCount, final int[] offsets, final int[] rows) {
+        for (final int key : edgeKeys) {
+            offsets[key + 1]++;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            offsets[row + 1] += offsets[row];
+        }
+        final int[] fill = Arrays.copyOf(offsets, rowCount);
+        for (int edge = 0; edge < edgeKeys.length; edge++) {
+            rows[fill[edgeKeys[edge]]++] = edge;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.displayer.GraphDisplayer;
+import com.intel.tools.fdk.graphframework.figure.presenter.DefaultPresenterManager;
+import com.intel.tools.fdk.graphframework.figure.presenter.IPresenterManager;
+import com.intel.tools.fdk.graphframework.graph.adapter.IAdapter;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Graph layout which choose a position for each graph node.
+ *
+ * The algorithm used is the one defined in {@link LayeredLayoutComputer}, groups are computed as in
+ * {@link AutoLayoutGenerator}.
+ */
+public class LayeredLayoutGenerator extends AutoLayoutGenerator {
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a layered layout.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param displayer
+     *            the graph displayer to use
+     */
+    public LayeredLayoutGenerator(final IAdapter adapter, final GraphDisplayer displayer) {
+        this(adapter, new DefaultPresenterManager(), displayer);
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a layered layout.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     */
+    public LayeredLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer) {
+        super(adapter, presenterManager, displayer);
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a layered layout, reusing coordinates of
+     * unchanged groups from a previous layout.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     * @param cache
+     *            the layout cache dedicated to the layered algorithm
+     */
+    public LayeredLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final LayoutCache cache) {
+        super(adapter, presenterManager, displayer, cache);
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a layered layout, the initial layout being
+     * computed in background if required.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     * @param async
+     *            true to compute the initial layout in background
+     */
+    public LayeredLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final boolean async) {
+        super(adapter, presenterManager, displayer, async);
+    }
+
+    /**
+     * Create a layout generator which initialize the displayed graph with a layered layout, reusing coordinates of
+     * unchanged groups from a previous layout, the initial layout being computed in background if required.
+     *
+     * @param adapter
+     *            the model adapter which provide the graph
+     * @param presenterManager
+     *            The presenter manager responsible for creating presenters associated with graph nodes.
+     * @param displayer
+     *            the graph displayer to use
+     * @param cache
+     *            the layout cache dedicated to the layered algorithm
+     * @param async
+     *            true to compute the initial layout in background
+     */
+    public LayeredLayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
+            final GraphDisplayer displayer, final LayoutCache cache, final boolean async) {
+        super(adapter, presenterManager, displayer, cache, async);
+    }
+
+    @Override
+    protected Function<NodeContainer, Map<Leaf, PrecisionPoint>> getLayout() {
+        return getRegisteredLayout(LayoutAlgorithms.LAYERED);
+    }
+
+}
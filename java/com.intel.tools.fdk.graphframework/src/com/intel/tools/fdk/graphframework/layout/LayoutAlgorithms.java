@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Registry of the available {@link ILayoutAlgorithm}s, by name.</br>
+ *
+ * The algorithms of this package are registered under {@link #AUTO}, {@link #LAYERED} and {@link #FORCE_DIRECTED}.
+ * Algorithms computing each container on their own are registered with their container layout function, which
+ * layout generators resolve through {@link #getContainerLayout(String)} to compute groups separately, use a
+ * {@link LayoutCache} or report progress.</br>
+ * The registry is safe for concurrent use.
+ */
+public final class LayoutAlgorithms {
+
+    /** {@link AutoLayoutComputer} applied on each group by {@link AutoGroupLayoutComputer} */
+    public static final String AUTO = "auto";
+    /** {@link LayeredLayoutComputer} applied on each group by {@link AutoGroupLayoutComputer} */
+    public static final String LAYERED = "layered";
+    /** {@link ForceDirectedLayoutComputer} with its default iteration count */
+    public static final String FORCE_DIRECTED = "force-directed";
+
+    /** Algorithms in registration order */
+    private static final Map<String, ILayoutAlgorithm> ALGORITHMS = new LinkedHashMap<>();
+    /** Container layout functions of the algorithms registered with one, guarded by {@link #ALGORITHMS} */
+    private static final Map<String, Function<NodeContainer, Map<Leaf, PrecisionPoint>>> CONTAINER_LAYOUTS =
+            new HashMap<>();
+
+    static {
+        registerContainerLayout(AUTO, container -> new AutoLayoutComputer(container).getCoordinates());
+        registerContainerLayout(LAYERED, container -> new LayeredLayoutComputer(container).getCoordinates());
+        register(FORCE_DIRECTED, graph -> {
+            // Force directed ordinates grow towards the bottom
+            final Map<INode, PrecisionPoint> coordinates = new HashMap<>();
+            new ForceDirectedLayoutComputer(graph).getCoordinates().forEach(
+                    (node, coordinate) -> coordinates.put(node, new PrecisionPoint(coordinate.x, -coordinate.y)));
+            return coordinates;
+        });
+    }
+
+    private LayoutAlgorithms() {
+    }
+
+    /**
+     * Register an algorithm
+     *
+     * @param name
+     *            unique name of the algorithm
+     * @param algorithm
+     *            the algorithm
+     * @throws IllegalArgumentException
+     *             if an algorithm is already registered with this name
+     */
+    public static void register(final String name, final ILayoutAlgorithm algorithm) {
+        synchronized (ALGORITHMS) {
+            if (ALGORITHMS.putIfAbsent(name, algorithm) != null) {
+                throw new IllegalArgumentException("A layout algorithm is already registered as " + name);
+            }
+        }
+    }
+
+    /**
+     * Register an algorithm computing each container on its own, groups being compacted as simple nodes, see
+     * {@link AutoGroupLayoutComputer}
+     *
+     * @param name
+     *            unique name of the algorithm
+     * @param layout
+     *            compute the raw coordinates of the leaves of a container without groups, must be thread safe
+     * @throws IllegalArgumentException
+     *             if an algorithm is already registered with this name
+     */
+    public static void registerContainerLayout(final String name,
+            final Function<NodeContainer, Map<Leaf, PrecisionPoint>> layout) {
+        synchronized (ALGORITHMS) {
+            register(name, graph -> new AutoGroupLayoutComputer(graph, layout).getCoordinates());
+            CONTAINER_LAYOUTS.put(name, layout);
+        }
+    }
+
+    /**
+     * @param name
+     *            name of a registered algorithm
+     * @return the container layout function of the algorithm, empty if no algorithm registered with this name
+     *         computes each container on its own
+     */
+    public static Optional<Function<NodeContainer, Map<Leaf, PrecisionPoint>>> getContainerLayout(final String name) {
+        synchronized (ALGORITHMS) {
+            return Optional.ofNullable(CONTAINER_LAYOUTS.get(name));
+        }
+    }
+
+    /**
+     * @param name
+     *            name of a registered algorithm
+     * @return the algorithm, empty if no algorithm is registered with this name
+     */
+    public static Optional<ILayoutAlgorithm> get(final String name) {
+        synchronized (ALGORITHMS) {
+            return Optional.ofNullable(ALGORITHMS.get(name));
+        }
+    }
+
+    /**
+     * @return names of the registered algorithms, in registration order
+     */
+    public static List<String> getNames() {
+        synchronized (ALGORITHMS) {
+            return Collections.unmodifiableList(new ArrayList<>(ALGORITHMS.keySet()));
+        }
+    }
+
+}
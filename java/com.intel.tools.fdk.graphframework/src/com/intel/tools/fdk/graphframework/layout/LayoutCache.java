@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.log4j.Logger;
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.utils.DirectoryUtils;
+
+/**
+ * Persistent cache of raw coordinates computed by {@link AutoGroupLayoutComputer}.</br>
+ *
+ * Coordinates of a container are stored on disk under the structural key of the container, they are reused for any
+ * container of the same structure, in this session or in a later one. Structurally equivalent nodes being
+ * interchangeable, identical containers may share a layout.</br>
+ *
+ * The number of entries is bounded: once full, storing an entry removes the least recently used one. Uses are
+ * recorded in the modification date of the entries, the order is thus kept between sessions.</br>
+ *
+ * A cache must only be used with a single layout function: the function is not part of the key. The cache is safe for
+ * concurrent use, I/O errors are logged and handled as cache misses.
+ */
+public class LayoutCache {
+
+    private static final Logger LOGGER = Logger.getLogger(LayoutCache.class);
+
+    /** Name of the cache directory in the application data directory */
+    public static final String DIRECTORY = "layout-cache";
+    /** Default maximal number of stored layouts */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** Increase when the file format or the layout algorithms change */
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".layout";
+
+    private final Path directory;
+    private final int maxEntries;
+    /** Keys of the stored entries from the least to the most recently used, read from disk on first use */
+    private Map<String, Boolean> entries;
+
+    /**
+     * Create a cache in the application data directory, holding at most {@link #DEFAULT_MAX_ENTRIES} layouts
+     *
+     * @param applicationName
+     *            name of the application owning the cache
+     * @param algorithm
+     *            name of the layout algorithm, each algorithm must have its own cache
+     */
+    public LayoutCache(final String applicationName, final String algorithm) {
+        this(Paths.get(DirectoryUtils.getApplicationDataDirectory(applicationName), DIRECTORY, algorithm));
+    }
+
+    /**
+     * @param directory
+     *            directory of the cache files, created when the first entry is stored
+     */
+    public LayoutCache(final Path directory) {
+        this(directory, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param directory
+     *            directory of the cache files, created when the first entry is stored
+     * @param maxEntries
+     *            maximal number of stored layouts
+     */
+    public LayoutCache(final Path directory, final int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("A layout cache must hold at least one entry");
+        }
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Remove every stored layout
+     */
+    public void clear() {
+        synchronized (this) {
+            entries = new LinkedHashMap<>(16, 0.75f, true);
+        }
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (final Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to clear layout cache " + directory, e);
+        }
+    }
+
+    /**
+     * @param key
+     *            structural key of a container
+     * @return coordinates of the container nodes, empty if they have not been stored
+     */
+    Optional<Map<INode, PrecisionPoint>> load(final StructuralKey key) {
+        final Path file = directory.resolve(key.getKey() + EXTENSION);
+        final List<INode> nodes = key.getNodes();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != VERSION || input.readInt() != nodes.size()) {
+                return Optional.empty();
+            }
+            final int count = input.readInt();
+            final Map<INode, PrecisionPoint> coordinates = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                final int index = input.readInt();
+                if (index < 0 || index >= nodes.size()) {
+                    LOGGER.warn("Ignoring corrupted layout cache entry " + file);
+                    return Optional.empty();
+                }
+                coordinates.put(nodes.get(index), new PrecisionPoint(input.readDouble(), input.readDouble()));
+            }
+            used(key.getKey(), file);
+            return Optional.of(coordinates);
+        } catch (final NoSuchFileException e) {
+            return Optional.empty();
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to read layout cache entry " + file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param key
+     *            structural key of a container
+     * @param coordinates
+     *            coordinates of the container nodes
+     */
+    void store(final StructuralKey key, final Map<INode, PrecisionPoint> coordinates) {
+        final List<INode> nodes = key.getNodes();
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            // Entries are written aside then moved, readers never see a partial entry
+            temporary = Files.createTempFile(directory, key.getKey(), ".tmp");
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                final int count = (int) nodes.stream().filter(coordinates::containsKey).count();
+                assert count == coordinates.size() : "Coordinates must belong to the hashed container";
+                output.writeInt(VERSION);
+                output.writeInt(nodes.size());
+                output.writeInt(count);
+                for (int index = 0; index < nodes.size(); index++) {
+                    final PrecisionPoint point = coordinates.get(nodes.get(index));
+                    if (point != null) {
+                        output.writeInt(index);
+                        output.writeDouble(point.preciseX());
+                        output.writeDouble(point.preciseY());
+                    }
+                }
+            }
+            Files.move(temporary, directory.resolve(key.getKey() + EXTENSION), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            evict(key.getKey());
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to write layout cache entry " + key.getKey(), e);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (final IOException ignored) {
+                    // Nothing more can be done
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark an entry as the most recently used one
+     */
+    private void used(final String key, final Path file) {
+        synchronized (this) {
+            getEntries().put(key, Boolean.TRUE);
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to update layout cache entry date " + file, e);
+        }
+    }
+
+    /**
+     * Record a stored entry then remove the least recently used entries over the maximal count
+     */
+    private void evict(final String stored) {
+        final List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            final Map<String, Boolean> keys = getEntries();
+            keys.put(stored, Boolean.TRUE);
+            final Iterator<String> iterator = keys.keySet().iterator();
+            while (keys.size() - evicted.size() > maxEntries) {
+                evicted.add(iterator.next());
+            }
+            evicted.forEach(keys::remove);
+        }
+        for (final String key : evicted) {
+            try {
+                Files.deleteIfExists(directory.resolve(key + EXTENSION));
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to remove layout cache entry " + key, e);
+            }
+        }
+    }
+
+    /**
+     * @return keys of the stored entries in access order, must be called while holding the cache monitor
+     */
+    private Map<String, Boolean> getEntries() {
+        if (entries == null) {
+            entries = new LinkedHashMap<>(16, 0.75f, true);
+            if (Files.isDirectory(directory)) {
+                final List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+                    stream.forEach(files::add);
+                } catch (final IOException e) {
+                    LOGGER.warn("Unable to list layout cache " + directory, e);
+                }
+                files.sort(Comparator.comparing(LayoutCache::getModificationTime));
+                for (final Path file : files) {
+                    final String name = file.getFileName().toString();
+                    entries.put(name.substring(0, name.length() - EXTENSION.length()), Boolean.TRUE);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static FileTime getModificationTime(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (final IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+}
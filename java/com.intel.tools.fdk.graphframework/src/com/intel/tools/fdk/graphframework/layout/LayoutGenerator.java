@@ -11,17 +11,28 @@ package com.intel.tools.fdk.graphframework.layout;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.eclipse.draw2d.ConnectionRouter;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+import org.eclipse.draw2d.geometry.Rectangle;
 
 import com.intel.tools.fdk.graphframework.displayer.GraphDisplayer;
+import com.intel.tools.fdk.graphframework.displayer.GraphEventDispatcher;
+import com.intel.tools.fdk.graphframework.figure.LabelFigure;
+import com.intel.tools.fdk.graphframework.figure.LabelPosition;
 import com.intel.tools.fdk.graphframework.figure.link.LinkFigure;
 import com.intel.tools.fdk.graphframework.figure.presenter.DefaultPresenterManager;
 import com.intel.tools.fdk.graphframework.figure.presenter.GroupPresenter;
@@ -35,6 +46,7 @@ import com.intel.tools.fdk.graphframework.graph.adapter.IAdapter.IGraphListener;
 import com.intel.tools.fdk.graphframework.graph.impl.Graph;
 import com.intel.tools.fdk.graphframework.graph.impl.Group;
 import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
 
 /**
  * Class allowing to display a complete graph on a displayer
@@ -45,11 +57,44 @@ public class LayoutGenerator implements IGraphListener {
     private final GraphDisplayer displayer;
     private final Map<Leaf, LeafPresenter> leafPresenters = new HashMap<>();
     private final Map<Group, GroupPresenter> groupPresenters = new HashMap<>();
+    /** Link figures currently displayed, they are rebuilt on each update */
+    private final List<LinkFigure> linkFigures = new ArrayList<>();
     private final IPresenterManager presenterManager;
+    /** Receives graph updates through the event dispatcher of the displayer */
+    private final IGraphListener graphListener;
+    /**
+     * Listen for scale update to recalculate decoration position.</br>
+     * This is done by forcing the each figure to notify their listeners by calling figure translate method
+     */
+    private final PropertyChangeListener scaleListener = new PropertyChangeListener() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public void propertyChange(final PropertyChangeEvent event) {
+            if (event.getSource().equals(displayer)
+                    && event.getPropertyName().equals(GraphDisplayer.SCALE_PROPERTY)) {
+                displayer.getContentLayer().getChildren().forEach(figure -> ((IFigure) figure).translate(0, 0));
+            }
+        }
+    };
 
     /** The hotpoint is the next location which will be used for a new presenter */
     private final Point hotPoint = new Point(0, 0);
 
+    /** True to place new nodes near their neighbors instead of the hot point */
+    private boolean incremental = false;
+    /** True to move nodes overlapped by new nodes */
+    private boolean removingOverlaps = false;
+    /** Places labels of the displayed graph, null if labels stay under their figure */
+    private LabelPlacer labelPlacer;
+    private boolean placingLabels = false;
+    /** Routes links around leaves, null if the default router of the displayer is used */
+    private OrthogonalRouter orthogonalRouter;
+    /** Router of the displayer replaced by the orthogonal router, restored when the orthogonal routing stops */
+    private ConnectionRouter previousRouter;
+    private boolean bundlingLinks = false;
+    /** False until the first graph is displayed */
+    private boolean displayed = false;
+
     /**
      * Constructor using default {@link IPresenterManager} implementation.
      *
@@ -75,8 +120,10 @@ public class LayoutGenerator implements IGraphListener {
     public LayoutGenerator(final IAdapter adapter, final IPresenterManager presenterManager,
             final GraphDisplayer displayer) {
         this.adapter = adapter;
-        this.adapter.addGraphListener(this);
         this.displayer = displayer;
+        this.graphListener = displayer.getEventDispatcher().wrap(this);
+        this.adapter.addGraphListener(graphListener);
+        this.displayer.addPropertyChangeListener(scaleListener);
         this.presenterManager = presenterManager;
 
         graphUpdated(adapter.getGraph());
@@ -84,50 +131,99 @@ public class LayoutGenerator implements IGraphListener {
 
     @Override
     public final void graphUpdated(final IGraph newGraph) {
-        displayer.reset();
+        disposeLabelPlacer();
+        displayer.clear();
+        linkFigures.forEach(LinkFigure::dispose);
+        linkFigures.clear();
         final Graph graph = getGraph();
         final Set<Leaf> leaves = graph.getAllLeaves();
         final Set<Group> groups = graph.getGroups();
 
         // Create new presenters
-        leaves.forEach(leaf -> leafPresenters.computeIfAbsent(leaf,
-                key -> setupNewPresenter(presenterManager.getPresenter(key))));
-        groups.forEach(group -> groupPresenters.computeIfAbsent(group,
-                key -> setupNewPresenter(presenterManager.getPresenter(key))));
+        final List<Leaf> newLeaves = new ArrayList<>();
+        final List<Group> newGroups = new ArrayList<>();
+        leaves.forEach(leaf -> leafPresenters.computeIfAbsent(leaf, key -> {
+            newLeaves.add(key);
+            return setupNewPresenter(presenterManager.getPresenter(key));
+        }));
+        groups.forEach(group -> groupPresenters.computeIfAbsent(group, key -> {
+            newGroups.add(key);
+            return setupNewPresenter(presenterManager.getPresenter(key));
+        }));
         // Remove presenters of nodes which are not any more in the graph
-        removeOldPresenters(leafPresenters, leaves);
-        removeOldPresenters(groupPresenters, groups);
+        removeOldPresenters(leafPresenters, leaves, leaf -> presenterManager.release(leaf));
+        removeOldPresenters(groupPresenters, groups, group -> {
+            // A group moved into another group is still displayed by its new parent presenter
+            if (!isInGraph(group, graph)) {
+                presenterManager.release(group);
+            }
+        });
 
         // Display figures, groups are displayed first to let leaf be at first plan
         groupPresenters.values().forEach(this::displayPresenters);
         leafPresenters.values().forEach(this::displayPresenters);
         graph.getAllLinks().forEach(link -> {
-            displayer.getConnectionLayer().add(new LinkFigure(link,
+            final LinkFigure linkFigure = new LinkFigure(link,
                     this.leafPresenters.get(link.getInput().getLeaf()).getAnchor(link.getInput()),
-                    this.leafPresenters.get(link.getOutput().getLeaf()).getAnchor(link.getOutput())));
+                    this.leafPresenters.get(link.getOutput().getLeaf()).getAnchor(link.getOutput()));
+            linkFigures.add(linkFigure);
+            displayer.getConnectionLayer().add(linkFigure);
         });
+        updateRouterObstacles();
+
+        if (incremental && displayed) {
+            new IncrementalPlacement(graph, leafPresenters, groupPresenters, getLayout(), this::getLocations)
+                    .place(newLeaves, newGroups);
+        } else if (removingOverlaps && displayed) {
+            final List<INode> newNodes = new ArrayList<>(newLeaves);
+            newNodes.addAll(newGroups);
+            removeOverlaps(newNodes);
+        }
+        displayed = true;
+        if (placingLabels) {
+            createLabelPlacer();
+        }
 
-        /**
-         * Listen for scale update to recalculate decoration position.</br>
-         * This is done by forcing the each figure to notify their listeners by calling figure translate method
-         */
-        displayer.addPropertyChangeListener(new PropertyChangeListener() {
-            @SuppressWarnings("unchecked")
-            @Override
-            public void propertyChange(final PropertyChangeEvent event) {
-                if (event.getSource().equals(displayer)
-                        && event.getPropertyName().equals(GraphDisplayer.SCALE_PROPERTY)) {
-                    displayer.getContentLayer().getChildren().forEach(figure -> ((IFigure) figure).translate(0, 0));
-                }
-            }
-        });
+    }
+
+    /**
+     * Stop displaying the graph.</br>
+     *
+     * Listeners are unregistered, figures are removed from the displayer and presenters are released. The generator
+     * must not be used afterwards.
+     */
+    public void dispose() {
+        adapter.removeGraphListener(graphListener);
+        GraphEventDispatcher.cancel(graphListener);
+        displayer.removePropertyChangeListener(scaleListener);
+        disposeLabelPlacer();
+        disposeOrthogonalRouter();
+        displayer.clear();
+        linkFigures.forEach(LinkFigure::dispose);
+        linkFigures.clear();
+        leafPresenters.keySet().forEach(presenterManager::release);
+        leafPresenters.clear();
+        groupPresenters.keySet().forEach(presenterManager::release);
+        groupPresenters.clear();
     }
 
     private static <N extends INode> void removeOldPresenters(
-            final Map<N, ? extends Presenter<? extends INode>> presenters, final Set<N> nodes) {
+            final Map<N, ? extends Presenter<? extends INode>> presenters, final Set<N> nodes,
+            final Consumer<N> release) {
         final List<N> keysToRemove = presenters.keySet().stream().filter(node -> !nodes.contains(node))
                 .collect(Collectors.toList());
-        keysToRemove.forEach(node -> presenters.remove(node));
+        keysToRemove.forEach(node -> {
+            presenters.remove(node);
+            release.accept(node);
+        });
+    }
+
+    private static boolean isInGraph(final Group group, final Graph graph) {
+        NodeContainer parent = group.getParent();
+        while (parent instanceof Group) {
+            parent = ((Group) parent).getParent();
+        }
+        return parent == graph;
     }
 
     private void displayPresenters(final Presenter<?> presenter) {
@@ -161,6 +257,65 @@ public class LayoutGenerator implements IGraphListener {
         return (Graph) adapter.getGraph();
     }
 
+    /**
+     * @return the displayer of the graph
+     */
+    protected GraphDisplayer getDisplayer() {
+        return displayer;
+    }
+
+    /**
+     * Layout function of this generator, also used to lay out new groups placed incrementally
+     *
+     * @return compute the raw coordinates of the leaves of a container without groups, by default the one of
+     *         {@link LayoutAlgorithms#AUTO}
+     */
+    protected Function<NodeContainer, Map<Leaf, PrecisionPoint>> getLayout() {
+        return getRegisteredLayout(LayoutAlgorithms.AUTO);
+    }
+
+    /**
+     * @param name
+     *            name of an algorithm registered in {@link LayoutAlgorithms} with a container layout function
+     * @return the container layout function of the algorithm
+     * @throws IllegalStateException
+     *             if no such algorithm is registered
+     */
+    protected static Function<NodeContainer, Map<Leaf, PrecisionPoint>> getRegisteredLayout(final String name) {
+        return LayoutAlgorithms.getContainerLayout(name).orElseThrow(
+                () -> new IllegalStateException("No container layout registered as " + name));
+    }
+
+    /**
+     * Convert raw coordinates computed by the layout function into figure locations, see {@link LayoutGrid}
+     *
+     * @param presenters
+     *            presenters to locate
+     * @param coordinates
+     *            raw coordinates of each presenter
+     * @return the location of the bounds figure of each presenter
+     */
+    protected List<PrecisionPoint> getLocations(final List<? extends Presenter<? extends INode>> presenters,
+            final List<PrecisionPoint> coordinates) {
+        final int count = presenters.size();
+        final double[] xs = new double[count];
+        final double[] ys = new double[count];
+        final int[] widths = new int[count];
+        final int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = coordinates.get(i).preciseX();
+            ys[i] = coordinates.get(i).preciseY();
+            // Groups wrap their content, only leaves size the grid
+            if (presenters.get(i) instanceof LeafPresenter) {
+                final Rectangle bounds = presenters.get(i).getBoundsFigure().getBounds();
+                widths[i] = bounds.width;
+                heights[i] = bounds.height;
+            }
+        }
+        final LayoutGrid grid = new LayoutGrid(xs, ys, widths, heights);
+        return coordinates.stream().map(grid::getLocation).collect(Collectors.toList());
+    }
+
     /**
      * Setup a new presenter
      *
@@ -173,6 +328,164 @@ public class LayoutGenerator implements IGraphListener {
         return presenter;
     }
 
+    /**
+     * Enable or disable the incremental placement of new nodes.</br>
+     *
+     * When enabled, nodes added to the graph are placed near their linked neighbors and only the nodes of the same row
+     * which are in the way are shifted, other nodes keep their location. New nodes without any linked neighbor are
+     * still placed at the hot point.
+     *
+     * @param incremental
+     *            true to place new nodes near their neighbors
+     */
+    public void setIncremental(final boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Enable or disable the removal of overlaps caused by new nodes.</br>
+     *
+     * When enabled, nodes added to the graph keep the hot point location and the nodes they overlap are moved, see
+     * {@link #removeOverlaps(Collection)}. Incremental placement, if enabled, already avoids overlaps.
+     *
+     * @param removingOverlaps
+     *            true to move nodes overlapped by new nodes
+     */
+    public void setOverlapRemoval(final boolean removingOverlaps) {
+        this.removingOverlaps = removingOverlaps;
+    }
+
+    /**
+     * Enable or disable the placement of labels.</br>
+     *
+     * When enabled, each label is moved around its figure to avoid overlapping leaves, links and other labels, see
+     * {@link LabelPlacement}. Labels are placed again around the nodes moved afterwards. When disabled, labels are
+     * centered under their figure.
+     *
+     * @param placingLabels
+     *            true to move labels away from overlaps
+     */
+    public void setLabelPlacement(final boolean placingLabels) {
+        this.placingLabels = placingLabels;
+        disposeLabelPlacer();
+        if (placingLabels && displayed) {
+            createLabelPlacer();
+        } else {
+            Stream.concat(leafPresenters.values().stream(), groupPresenters.values().stream())
+                    .flatMap(presenter -> presenter.getDisplayableDecoration().stream())
+                    .filter(LabelFigure.class::isInstance)
+                    .forEach(label -> ((LabelFigure) label).setPosition(LabelPosition.BOTTOM));
+        }
+    }
+
+    private void createLabelPlacer() {
+        labelPlacer = new LabelPlacer(displayer,
+                Stream.concat(groupPresenters.values().stream(), leafPresenters.values().stream())
+                        .collect(Collectors.toList()),
+                linkFigures);
+    }
+
+    private void disposeLabelPlacer() {
+        if (labelPlacer != null) {
+            labelPlacer.dispose();
+            labelPlacer = null;
+        }
+    }
+
+    private void disposeOrthogonalRouter() {
+        if (orthogonalRouter != null) {
+            orthogonalRouter.dispose();
+            orthogonalRouter = null;
+            displayer.getConnectionLayer().setConnectionRouter(previousRouter);
+            previousRouter = null;
+        }
+    }
+
+    /**
+     * Enable or disable the orthogonal routing of links around leaves.</br>
+     *
+     * When enabled, links are routed by an {@link OrthogonalRouter} instead of the default router of the displayer:
+     * they go around leaf bodies and their routes are only computed again when their ends or a leaf move. When
+     * disabled, or when the generator is disposed, the router the displayer had before is restored.
+     *
+     * @param routing
+     *            true to route links around leaves
+     */
+    public void setOrthogonalRouting(final boolean routing) {
+        if (routing && orthogonalRouter == null) {
+            orthogonalRouter = new OrthogonalRouter();
+            orthogonalRouter.setBundling(bundlingLinks);
+            updateRouterObstacles();
+            previousRouter = displayer.getConnectionLayer().getConnectionRouter();
+            displayer.getConnectionLayer().setConnectionRouter(orthogonalRouter);
+        } else if (!routing) {
+            disposeOrthogonalRouter();
+        }
+    }
+
+    /**
+     * Enable or disable the bundling of parallel links, only used by the orthogonal routing.</br>
+     *
+     * When enabled, links prefer channels already used by other links, see {@link OrthogonalRouter#setBundling}.
+     *
+     * @param bundlingLinks
+     *            true to make parallel links share channels
+     */
+    public void setLinkBundling(final boolean bundlingLinks) {
+        this.bundlingLinks = bundlingLinks;
+        if (orthogonalRouter != null) {
+            orthogonalRouter.setBundling(bundlingLinks);
+        }
+    }
+
+    private void updateRouterObstacles() {
+        if (orthogonalRouter != null) {
+            orthogonalRouter.setObstacles(leafPresenters.values().stream().map(LeafPresenter::getNodeBody)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Move nodes overlapped by a node which has just been placed (e.g. moved by the user)
+     *
+     * @param node
+     *            the placed node
+     */
+    public void removeOverlaps(final INode node) {
+        removeOverlaps(Collections.singleton(node));
+    }
+
+    /**
+     * Move nodes overlapped by nodes which have just been placed.</br>
+     *
+     * Overlaps are removed between top level nodes, nodes inside groups being represented by their top level group.
+     * Placed nodes keep their location, only the nodes in their way are shifted to the right, see
+     * {@link OverlapRemoval}.
+     *
+     * @param nodes
+     *            the placed nodes
+     */
+    public void removeOverlaps(final Collection<? extends INode> nodes) {
+        final Graph graph = getGraph();
+        final List<IFigure> figures = new ArrayList<>();
+        graph.getLeaves().forEach(leaf -> figures.add(leafPresenters.get(leaf).getBoundsFigure()));
+        graph.getGroups().forEach(group -> figures.add(groupPresenters.get(group).getBoundsFigure()));
+
+        final List<IFigure> affected = new ArrayList<>();
+        for (final INode node : nodes) {
+            INode topLevelNode = node;
+            while (topLevelNode.getParent() instanceof Group) {
+                topLevelNode = (Group) topLevelNode.getParent();
+            }
+            if (topLevelNode.getParent() != graph) {
+                continue;
+            }
+            affected.add(topLevelNode instanceof Leaf ? leafPresenters.get(topLevelNode).getBoundsFigure()
+                    : groupPresenters.get(topLevelNode).getBoundsFigure());
+        }
+        new OverlapRemoval().apply(figures, affected);
+    }
+
     /**
      * @param hotPoint
      *            the point where the next presenter which will be registered will be located
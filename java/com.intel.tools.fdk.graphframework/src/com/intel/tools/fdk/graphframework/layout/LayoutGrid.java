@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.Arrays;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+/**
+ * Convert raw layout coordinates into figure locations.</br>
+ *
+ * Each raw column is as wide as its widest node and each raw row as tall as its tallest node, so a large node only
+ * widens its own column and row instead of the whole layout. Columns are spaced by half their width, rows by their
+ * height. Columns and rows without any node take {@link AutoLayoutGenerator#MIN_CELL_SIZE}.</br>
+ *
+ * Raw coordinates are binned by their integer part, the fractional part is interpolated between two consecutive
+ * columns or rows.
+ */
+public final class LayoutGrid {
+
+    /** Column pitch relative to the column width */
+    private static final double HORIZONTAL_SPACING = 1.5;
+    /** Row pitch relative to the row height */
+    private static final double VERTICAL_SPACING = 2;
+
+    private final int columnMin;
+    private final int rowMin;
+    /** Abscissa of each column, plus the one following the last column */
+    private final int[] columnPositions;
+    /** Ordinate of each row, plus the one above the last row */
+    private final int[] rowPositions;
+
+    /**
+     * Compute the grid of laid out nodes, all arrays are indexed by node
+     *
+     * @param xs
+     *            raw abscissas
+     * @param ys
+     *            raw ordinates, growing towards the upper side
+     * @param widths
+     *            node widths
+     * @param heights
+     *            node heights
+     */
+    public LayoutGrid(final double[] xs, final double[] ys, final int[] widths, final int[] heights) {
+        final int count = xs.length;
+        final int[] columns = new int[count];
+        final int[] rows = new int[count];
+        int columnMin = 0;
+        int columnMax = 0;
+        int rowMin = 0;
+        int rowMax = 0;
+        for (int i = 0; i < count; i++) {
+            columns[i] = (int) Math.floor(xs[i]);
+            rows[i] = (int) Math.floor(ys[i]);
+            if (i == 0 || columns[i] < columnMin) {
+                columnMin = columns[i];
+            }
+            if (i == 0 || columns[i] > columnMax) {
+                columnMax = columns[i];
+            }
+            if (i == 0 || rows[i] < rowMin) {
+                rowMin = rows[i];
+            }
+            if (i == 0 || rows[i] > rowMax) {
+                rowMax = rows[i];
+            }
+        }
+        this.columnMin = columnMin;
+        this.rowMin = rowMin;
+
+        final int[] columnWidths = new int[columnMax - columnMin + 1];
+        final int[] rowHeights = new int[rowMax - rowMin + 1];
+        Arrays.fill(columnWidths, AutoLayoutGenerator.MIN_CELL_SIZE);
+        Arrays.fill(rowHeights, AutoLayoutGenerator.MIN_CELL_SIZE);
+        for (int i = 0; i < count; i++) {
+            final int column = columns[i] - columnMin;
+            final int row = rows[i] - rowMin;
+            columnWidths[column] = Math.max(columnWidths[column], widths[i]);
+            rowHeights[row] = Math.max(rowHeights[row], heights[i]);
+        }
+
+        columnPositions = new int[columnWidths.length + 1];
+        for (int column = 0; column < columnWidths.length; column++) {
+            columnPositions[column + 1] = columnPositions[column]
+                    + (int) Math.round(columnWidths[column] * HORIZONTAL_SPACING);
+        }
+        /**
+         * Ordinates are negated because draw2d uses the upper left corner as origin but the algorithm uses a standard
+         * cartesian coordinates (ordinates grows towards the upper side of the view). A row is thus separated from
+         * the one under it by its own height.
+         */
+        rowPositions = new int[rowHeights.length + 1];
+        for (int row = 1; row <= rowHeights.length; row++) {
+            final int height = row < rowHeights.length ? rowHeights[row] : AutoLayoutGenerator.MIN_CELL_SIZE;
+            rowPositions[row] = rowPositions[row - 1] - (int) Math.round(height * VERTICAL_SPACING);
+        }
+    }
+
+    /**
+     * Convert raw coordinates into a figure location
+     *
+     * @param coordinates
+     *            raw coordinates of a node, in the range of the nodes the grid has been computed with
+     * @return the location of the node bounds figure
+     */
+    public PrecisionPoint getLocation(final PrecisionPoint coordinates) {
+        return new PrecisionPoint(interpolate(columnPositions, coordinates.preciseX() - columnMin),
+                interpolate(rowPositions, coordinates.preciseY() - rowMin));
+    }
+
+    private static double interpolate(final int[] positions, final double coordinate) {
+        final int index = Math.max(0, Math.min(positions.length - 2, (int) Math.floor(coordinate)));
+        return positions[index] + (coordinate - index) * (positions[index + 1] - positions[index]);
+    }
+
+}
@@ -0,0 +1,602 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.draw2d.AbstractRouter;
+import org.eclipse.draw2d.Connection;
+import org.eclipse.draw2d.FigureListener;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Connection router drawing orthogonal links around obstacle figures.</br>
+ *
+ * A link is searched with A* in the orthogonal visibility graph of the obstacles around its ends: the sparse grid made
+ * of the obstacle sides, moved away by a margin, and of the link ends. The cost of a path is its length plus a penalty
+ * per bend. Only the obstacles close to the link ends are considered, the searched area grows when no path is found.
+ * </br>
+ *
+ * When bundling is enabled, following a channel already used by another link costs half the length, parallel links
+ * thus share channels.</br>
+ *
+ * Routes are cached per connection and only computed again when an end moves or when an obstacle moves across or
+ * away from them: the segments of the cached routes are indexed, a moved obstacle only outdates the routes crossing
+ * its previous or new bounds. Obstacles must be in the coordinate system of the routed connections.
+ */
+public class OrthogonalRouter extends AbstractRouter {
+
+    /** Default space kept between links and obstacles */
+    public static final int DEFAULT_MARGIN = 12;
+
+    private static final int CELL_SIZE = 64;
+    /** Cost of a length unit, a bundled unit costs half */
+    private static final int LENGTH_COST = 2;
+    private static final int BEND_COST = 32 * LENGTH_COST;
+    /** Space searched around the link ends, doubled on each failure */
+    private static final int WINDOW_MARGIN = 160;
+    private static final int MAX_WINDOW_EXPANSIONS = 4;
+
+    private static final int HORIZONTAL = 0;
+    private static final int VERTICAL = 1;
+
+    private final int margin;
+    private final SpatialGrid<IFigure> obstacles = new SpatialGrid<>(CELL_SIZE);
+    private final FigureListener obstacleListener = this::obstacleMoved;
+    private final Map<Connection, Route> routes = new HashMap<>();
+    /** Segments of the cached routes, used to find the routes affected by a moved obstacle */
+    private final SpatialGrid<Segment> segments = new SpatialGrid<>(CELL_SIZE);
+    /** Channels used by routes, horizontal ones by ordinate, vertical ones by abscissa */
+    private final List<TreeMap<Integer, List<Segment>>> channels = Arrays.asList(new TreeMap<>(), new TreeMap<>());
+    private boolean bundling = false;
+
+    /** A* states, reused by searches: a state is only valid if its stamp is the one of the current search */
+    private int[] costs = new int[0];
+    private int[] parents = new int[0];
+    private int[] stamps = new int[0];
+    /** Edges leaving a node rightward or downward, indexed as states: marked with the stamp of the current search */
+    private int[] blockedEdges = new int[0];
+    private int[] bundledEdges = new int[0];
+    private int stamp = 0;
+    private final StateQueue queue = new StateQueue();
+
+    /**
+     * Create a router keeping {@link #DEFAULT_MARGIN} between links and obstacles
+     */
+    public OrthogonalRouter() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * @param margin
+     *            space kept between links and obstacles
+     */
+    public OrthogonalRouter(final int margin) {
+        this.margin = margin;
+    }
+
+    /**
+     * Replace the obstacles, their moves are followed until they are replaced or the router is disposed
+     *
+     * @param figures
+     *            figures links should go around
+     */
+    public void setObstacles(final Collection<? extends IFigure> figures) {
+        clearObstacles();
+        for (final IFigure figure : figures) {
+            obstacles.put(figure, figure.getBounds().getCopy());
+            figure.addFigureListener(obstacleListener);
+        }
+        invalidateRoutes();
+    }
+
+    /**
+     * @param bundling
+     *            true to make parallel links share channels
+     */
+    public void setBundling(final boolean bundling) {
+        if (this.bundling != bundling) {
+            this.bundling = bundling;
+            invalidateRoutes();
+        }
+    }
+
+    /**
+     * Stop following obstacles and forget routes
+     */
+    public void dispose() {
+        clearObstacles();
+        routes.values().forEach(this::unregister);
+        routes.clear();
+    }
+
+    @Override
+    public void route(final Connection connection) {
+        final Point start = getStartPoint(connection).getCopy();
+        connection.translateToRelative(start);
+        final Point end = getEndPoint(connection).getCopy();
+        connection.translateToRelative(end);
+
+        Route route = routes.get(connection);
+        if (route == null || route.outdated || !route.start.equals(start) || !route.end.equals(end)) {
+            if (route != null) {
+                unregister(route);
+            }
+            route = new Route(connection, start, end, computeRoute(start, end));
+            register(route);
+            routes.put(connection, route);
+        }
+        connection.setPoints(route.points.getCopy());
+    }
+
+    @Override
+    public void remove(final Connection connection) {
+        final Route route = routes.remove(connection);
+        if (route != null) {
+            unregister(route);
+        }
+    }
+
+    private void clearObstacles() {
+        for (final IFigure figure : new ArrayList<>(obstacles.getElements())) {
+            figure.removeFigureListener(obstacleListener);
+            obstacles.remove(figure);
+        }
+    }
+
+    private void obstacleMoved(final IFigure figure) {
+        final Rectangle previous = obstacles.getBounds(figure);
+        final Rectangle bounds = figure.getBounds().getCopy();
+        if (bounds.equals(previous)) {
+            return;
+        }
+        obstacles.put(figure, bounds);
+        // A route may only change if the obstacle now blocks it or if it was going around the obstacle
+        final Set<Route> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Rectangle area : new Rectangle[] { previous, bounds }) {
+            segments.query(area.getExpanded(margin, margin)).forEach(segment -> affected.add(segment.route));
+        }
+        affected.forEach(Route::invalidate);
+    }
+
+    private void invalidateRoutes() {
+        routes.values().forEach(Route::invalidate);
+    }
+
+    /**
+     * Compute the cheapest orthogonal path between two points
+     *
+     * @return the path points, ends included
+     */
+    PointList computeRoute(final Point start, final Point end) {
+        final Rectangle bounds = new Rectangle(Math.min(start.x, end.x), Math.min(start.y, end.y),
+                Math.abs(end.x - start.x), Math.abs(end.y - start.y));
+        for (int expansion = 0; expansion <= MAX_WINDOW_EXPANSIONS; expansion++) {
+            final int windowMargin = WINDOW_MARGIN << expansion;
+            final PointList points = search(start, end, bounds.getExpanded(windowMargin, windowMargin));
+            if (points != null) {
+                return points;
+            }
+        }
+        // Ends are enclosed, cross obstacles rather than leaving the link unrouted
+        final PointList points = new PointList();
+        final int middle = (start.x + end.x) / 2;
+        points.addPoint(start);
+        points.addPoint(middle, start.y);
+        points.addPoint(middle, end.y);
+        points.addPoint(end);
+        return simplify(points);
+    }
+
+    /**
+     * Search a path with A* in the visibility graph of the obstacles of a window.</br>
+     *
+     * The graph is not built: edges are checked against obstacles when they are reached, only the nodes close to the
+     * cheapest path are visited.
+     *
+     * @return the path, null if there is none in the window
+     */
+    private PointList search(final Point start, final Point end, final Rectangle window) {
+        final List<Rectangle> blocks = new ArrayList<>();
+        for (final IFigure figure : obstacles.query(window.getExpanded(margin, margin))) {
+            final Rectangle block = obstacles.getBounds(figure).getExpanded(margin, margin);
+            if (!isEnclosingEnd(block, start, end)) {
+                blocks.add(block);
+            }
+        }
+        final int[] xs = getLines(window.x, window.x + window.width, start.x, end.x, blocks, true,
+                channels.get(VERTICAL));
+        final int[] ys = getLines(window.y, window.y + window.height, start.y, end.y, blocks, false,
+                channels.get(HORIZONTAL));
+        final int width = xs.length;
+        final int height = ys.length;
+
+        // A state is a node reached horizontally or vertically, bends are counted on direction changes
+        final int stateCount = width * height * 2;
+        if (stamps.length < stateCount) {
+            costs = new int[stateCount];
+            parents = new int[stateCount];
+            stamps = new int[stateCount];
+            blockedEdges = new int[stateCount];
+            bundledEdges = new int[stateCount];
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            Arrays.fill(blockedEdges, 0);
+            Arrays.fill(bundledEdges, 0);
+            stamp = 1;
+        }
+        markBlockedEdges(xs, ys, blocks);
+        if (bundling) {
+            markBundledEdges(xs, ys, window);
+        }
+
+        final int source = Arrays.binarySearch(ys, start.y) * width + Arrays.binarySearch(xs, start.x);
+        final int target = Arrays.binarySearch(ys, end.y) * width + Arrays.binarySearch(xs, end.x);
+        final int unitCost = bundling ? LENGTH_COST / 2 : LENGTH_COST;
+        queue.clear();
+        for (final int direction : new int[] { HORIZONTAL, VERTICAL }) {
+            final int state = source * 2 + direction;
+            stamps[state] = stamp;
+            costs[state] = 0;
+            parents[state] = -1;
+            queue.push(0, unitCost * distance(xs, ys, width, source, target), state);
+        }
+        int reached = -1;
+        while (!queue.isEmpty()) {
+            final int cost = queue.peekCost();
+            final int state = queue.pop();
+            final int node = state / 2;
+            if (cost != costs[state]) {
+                // Outdated entry
+                continue;
+            }
+            if (node == target) {
+                reached = state;
+                break;
+            }
+            final int ix = node % width;
+            final int iy = node / width;
+            for (int move = 0; move < 4; move++) {
+                final int direction = move < 2 ? HORIZONTAL : VERTICAL;
+                final int step = move % 2 == 0 ? -1 : 1;
+                final int nextX = direction == HORIZONTAL ? ix + step : ix;
+                final int nextY = direction == VERTICAL ? iy + step : iy;
+                if (nextX < 0 || nextX >= width || nextY < 0 || nextY >= height) {
+                    continue;
+                }
+                final int next = nextY * width + nextX;
+                // Edges are marked on their left or top node
+                final int edge = Math.min(node, next) * 2 + direction;
+                if (blockedEdges[edge] == stamp) {
+                    continue;
+                }
+                final int length = Math.abs(xs[nextX] - xs[ix]) + Math.abs(ys[nextY] - ys[iy]);
+                final int nextCost = cost + length * (bundledEdges[edge] == stamp ? LENGTH_COST / 2 : LENGTH_COST)
+                        + (direction != state % 2 && parents[state] != -1 ? BEND_COST : 0);
+                final int nextState = next * 2 + direction;
+                if (stamps[nextState] != stamp || nextCost < costs[nextState]) {
+                    stamps[nextState] = stamp;
+                    costs[nextState] = nextCost;
+                    parents[nextState] = state;
+                    queue.push(nextCost, unitCost * distance(xs, ys, width, next, target), nextState);
+                }
+            }
+        }
+        if (reached < 0) {
+            return null;
+        }
+
+        final List<Point> path = new ArrayList<>();
+        for (int state = reached; state != -1; state = parents[state]) {
+            path.add(new Point(xs[state / 2 % width], ys[state / 2 / width]));
+        }
+        final PointList points = new PointList();
+        for (int i = path.size() - 1; i >= 0; i--) {
+            points.addPoint(path.get(i));
+        }
+        return simplify(points);
+    }
+
+    /**
+     * Grid lines follow obstacle sides, an edge between two adjacent nodes is thus either inside or outside of an
+     * obstacle: it is blocked if its middle is strictly inside one
+     */
+    private void markBlockedEdges(final int[] xs, final int[] ys, final List<Rectangle> blocks) {
+        final int width = xs.length;
+        for (final Rectangle block : blocks) {
+            final int left = lowerBound(xs, block.x);
+            final int right = upperBound(xs, block.x + block.width);
+            final int top = lowerBound(ys, block.y);
+            final int bottom = upperBound(ys, block.y + block.height);
+            // Horizontal edges on lines strictly inside the block, vertical ones on columns strictly inside
+            for (int iy = top; iy <= bottom; iy++) {
+                final boolean insideRow = ys[iy] > block.y && ys[iy] < block.y + block.height;
+                for (int ix = left; ix <= right; ix++) {
+                    final int node = iy * width + ix;
+                    if (insideRow && ix < right) {
+                        blockedEdges[node * 2 + HORIZONTAL] = stamp;
+                    }
+                    if (iy < bottom && xs[ix] > block.x && xs[ix] < block.x + block.width) {
+                        blockedEdges[node * 2 + VERTICAL] = stamp;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Edges covered by a channel segment of a registered route
+     */
+    private void markBundledEdges(final int[] xs, final int[] ys, final Rectangle window) {
+        final int width = xs.length;
+        for (final int direction : new int[] { HORIZONTAL, VERTICAL }) {
+            final int[] lines = direction == HORIZONTAL ? ys : xs;
+            final int[] positions = direction == HORIZONTAL ? xs : ys;
+            final int min = direction == HORIZONTAL ? window.y : window.x;
+            final int max = direction == HORIZONTAL ? window.y + window.height : window.x + window.width;
+            for (final Map.Entry<Integer, List<Segment>> channel : channels.get(direction)
+                    .subMap(min, true, max, true).entrySet()) {
+                final int line = Arrays.binarySearch(lines, channel.getKey());
+                for (final Segment segment : channel.getValue()) {
+                    final int last = upperBound(positions, segment.last);
+                    for (int position = lowerBound(positions, segment.first); position < last; position++) {
+                        final int node = direction == HORIZONTAL ? line * width + position : position * width + line;
+                        bundledEdges[node * 2 + direction] = stamp;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Obstacles enclosing an end cannot be avoided, they are ignored
+     */
+    private static boolean isEnclosingEnd(final Rectangle block, final Point start, final Point end) {
+        return containsStrictly(block, start) || containsStrictly(block, end);
+    }
+
+    private static int distance(final int[] xs, final int[] ys, final int width, final int from, final int to) {
+        return Math.abs(xs[from % width] - xs[to % width]) + Math.abs(ys[from / width] - ys[to / width]);
+    }
+
+    /**
+     * @return sorted distinct coordinates of the grid lines in the window
+     */
+    private int[] getLines(final int min, final int max, final int start, final int end, final List<Rectangle> blocks,
+            final boolean vertical, final TreeMap<Integer, List<Segment>> channelLines) {
+        final int[] lines = new int[blocks.size() * 2 + 4 + (bundling ? channelLines.size() : 0)];
+        int count = 0;
+        lines[count++] = min;
+        lines[count++] = max;
+        lines[count++] = start;
+        lines[count++] = end;
+        for (final Rectangle block : blocks) {
+            lines[count++] = vertical ? block.x : block.y;
+            lines[count++] = vertical ? block.x + block.width : block.y + block.height;
+        }
+        if (bundling) {
+            for (final Integer line : channelLines.subMap(min, true, max, true).keySet()) {
+                lines[count++] = line;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            lines[i] = Math.max(min, Math.min(max, lines[i]));
+        }
+        return Arrays.stream(lines, 0, count).sorted().distinct().toArray();
+    }
+
+    /** @return index of the first line greater than or equal to the value */
+    private static int lowerBound(final int[] lines, final int value) {
+        final int index = Arrays.binarySearch(lines, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /** @return index of the last line lower than or equal to the value */
+    private static int upperBound(final int[] lines, final int value) {
+        final int index = Arrays.binarySearch(lines, value);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static boolean containsStrictly(final Rectangle rectangle, final Point point) {
+        return point.x > rectangle.x && point.x < rectangle.x + rectangle.width && point.y > rectangle.y
+                && point.y < rectangle.y + rectangle.height;
+    }
+
+    /**
+     * Remove points in the middle of straight parts
+     */
+    private static PointList simplify(final PointList points) {
+        final PointList simplified = new PointList();
+        for (int i = 0; i < points.size(); i++) {
+            final Point point = points.getPoint(i);
+            if (i > 0 && i < points.size() - 1) {
+                final Point previous = simplified.getLastPoint();
+                final Point next = points.getPoint(i + 1);
+                if (point.equals(previous) || previous.x == point.x && point.x == next.x
+                        || previous.y == point.y && point.y == next.y) {
+                    continue;
+                }
+            }
+            simplified.addPoint(point);
+        }
+        return simplified;
+    }
+
+    private void register(final Route route) {
+        final PointList points = route.points;
+        for (int i = 1; i < points.size(); i++) {
+            final Point from = points.getPoint(i - 1);
+            final Point to = points.getPoint(i);
+            final Segment segment = from.y == to.y
+                    ? new Segment(route, HORIZONTAL, Math.min(from.x, to.x), Math.max(from.x, to.x), from.y)
+                    : new Segment(route, VERTICAL, Math.min(from.y, to.y), Math.max(from.y, to.y), from.x);
+            channels.get(segment.direction).computeIfAbsent(segment.line, key -> new ArrayList<>()).add(segment);
+            segments.put(segment, segment.getBounds());
+            route.segments.add(segment);
+        }
+    }
+
+    private void unregister(final Route route) {
+        for (final Segment segment : route.segments) {
+            final TreeMap<Integer, List<Segment>> lines = channels.get(segment.direction);
+            final List<Segment> lineSegments = lines.get(segment.line);
+            lineSegments.remove(segment);
+            if (lineSegments.isEmpty()) {
+                lines.remove(segment.line);
+            }
+            segments.remove(segment);
+        }
+        route.segments.clear();
+    }
+
+    /**
+     * Binary heap of A* states ordered by estimated total cost, ties are broken by the remaining estimate: on a grid
+     * many paths have the same cost, going on with the closest state avoids exploring all of them
+     */
+    private static final class StateQueue {
+
+        /** Estimated total cost in the high half, remaining estimate in the low half */
+        private long[] keys = new long[64];
+        private int[] costs = new int[64];
+        private int[] states = new int[64];
+        private int size = 0;
+
+        private void clear() {
+            size = 0;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void push(final int cost, final int estimate, final int state) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                costs = Arrays.copyOf(costs, size * 2);
+                states = Arrays.copyOf(states, size * 2);
+            }
+            final long key = ((long) (cost + estimate) << 32) | estimate;
+            int index = size++;
+            while (index > 0 && keys[(index - 1) / 2] > key) {
+                move((index - 1) / 2, index);
+                index = (index - 1) / 2;
+            }
+            set(index, key, cost, state);
+        }
+
+        private int peekCost() {
+            return costs[0];
+        }
+
+        private int pop() {
+            final int state = states[0];
+            size--;
+            final long key = keys[size];
+            final int cost = costs[size];
+            final int last = states[size];
+            int index = 0;
+            while (index * 2 + 1 < size) {
+                int child = index * 2 + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                move(child, index);
+                index = child;
+            }
+            set(index, key, cost, last);
+            return state;
+        }
+
+        private void move(final int from, final int to) {
+            set(to, keys[from], costs[from], states[from]);
+        }
+
+        private void set(final int index, final long key, final int cost, final int state) {
+            keys[index] = key;
+            costs[index] = cost;
+            states[index] = state;
+        }
+
+    }
+
+    /**
+     * Cached route of a connection
+     */
+    private static final class Route {
+
+        private final Connection connection;
+        private final Point start;
+        private final Point end;
+        private final PointList points;
+        private final List<Segment> segments = new ArrayList<>();
+        /** True if an obstacle moved around the route since it was computed */
+        private boolean outdated = false;
+
+        private Route(final Connection connection, final Point start, final Point end, final PointList points) {
+            this.connection = connection;
+            this.start = start;
+            this.end = end;
+            this.points = points;
+        }
+
+        private void invalidate() {
+            if (!outdated) {
+                outdated = true;
+                connection.revalidate();
+            }
+        }
+
+    }
+
+    /**
+     * Straight part of a cached route
+     */
+    private static final class Segment {
+
+        private final Route route;
+        private final int direction;
+        /** Lowest and highest coordinates along the segment */
+        private final int first;
+        private final int last;
+        /** Ordinate of a horizontal segment, abscissa of a vertical one */
+        private final int line;
+
+        private Segment(final Route route, final int direction, final int first, final int last, final int line) {
+            this.route = route;
+            this.direction = direction;
+            this.first = first;
+            this.last = last;
+            this.line = line;
+        }
+
+        private Rectangle getBounds() {
+            return direction == HORIZONTAL ? new Rectangle(first, line, last - first, 0)
+                    : new Rectangle(line, first, 0, last - first);
+        }
+
+    }
+
+}
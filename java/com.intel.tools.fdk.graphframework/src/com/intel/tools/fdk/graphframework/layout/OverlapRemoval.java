@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import com.intel.tools.fdk.graphframework.figure.IGraphFigure;
+
+/**
+ * Remove overlaps caused by a few figures, moving as few other figures as possible.</br>
+ *
+ * Figures are swept from left to right. A figure which overlaps an already swept figure is shifted on the right of it,
+ * then swept again at its new location, only overlaps involving an affected figure or a shifted one are removed:
+ * figures which are not in the way never move. An affected figure keeps its location when it overlaps any other
+ * figure, the other one being shifted instead, unless both are affected.</br>
+ * Figures only move rightwards, each sweep step is linear in the number of figures crossing the sweep line.
+ */
+public final class OverlapRemoval {
+
+    /** Default minimal distance between figures */
+    public static final int DEFAULT_MARGIN = IGraphFigure.SIZE_UNIT;
+
+    private final int margin;
+
+    public OverlapRemoval() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * @param margin
+     *            minimal distance kept between figures
+     */
+    public OverlapRemoval(final int margin) {
+        this.margin = margin;
+    }
+
+    /**
+     * Move figures overlapping the affected ones
+     *
+     * @param figures
+     *            sibling figures which should not overlap
+     * @param affected
+     *            figures which have just been placed, among the given figures
+     * @return figures which have been moved
+     */
+    public Set<IFigure> apply(final Collection<IFigure> figures, final Collection<IFigure> affected) {
+        final Set<IFigure> affectedFigures = Collections.newSetFromMap(new IdentityHashMap<>());
+        affectedFigures.addAll(affected);
+        final List<Item> items = new ArrayList<>();
+        for (final IFigure figure : figures) {
+            items.add(new Item(figure, items.size(), affectedFigures.contains(figure)));
+        }
+
+        final PriorityQueue<Item> pending = new PriorityQueue<>((first, second) -> first.bounds.x != second.bounds.x
+                ? Integer.compare(first.bounds.x, second.bounds.x) : Integer.compare(first.index, second.index));
+        pending.addAll(items);
+        // Swept figures which may overlap figures at or after the sweep line
+        final List<Item> active = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            final Item item = pending.poll();
+            final int sweep = item.bounds.x;
+            active.removeIf(swept -> swept.bounds.right() + margin <= sweep);
+
+            final List<Item> conflicts = new ArrayList<>();
+            for (final Item swept : active) {
+                if ((item.isDirty() || swept.isDirty()) && overlap(item.bounds, swept.bounds)) {
+                    conflicts.add(swept);
+                }
+            }
+            if (conflicts.isEmpty()) {
+                active.add(item);
+            } else if (!item.affected || conflicts.stream().anyMatch(swept -> swept.affected)) {
+                // The figure gives way to every swept figure it overlaps
+                item.bounds.x = conflicts.stream().mapToInt(swept -> swept.bounds.right()).max().getAsInt() + margin;
+                item.shifted = true;
+                pending.add(item);
+            } else {
+                // An affected figure keeps its location, swept figures in its way are swept again after it
+                for (final Item swept : conflicts) {
+                    active.remove(swept);
+                    swept.bounds.x = item.bounds.right() + margin;
+                    swept.shifted = true;
+                    pending.add(swept);
+                }
+                active.add(item);
+            }
+        }
+
+        final Set<IFigure> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Item item : items) {
+            if (item.bounds.x != item.figure.getBounds().x) {
+                item.figure.setLocation(item.bounds.getLocation());
+                moved.add(item.figure);
+            }
+        }
+        return moved;
+    }
+
+    private boolean overlap(final Rectangle first, final Rectangle second) {
+        return first.x < second.right() + margin && second.x < first.right() + margin
+                && first.y < second.bottom() + margin && second.y < first.bottom() + margin;
+    }
+
+    /**
+     * A figure being swept
+     */
+    private static final class Item {
+
+        private final IFigure figure;
+        /** Creation order, used to sweep figures of the same abscissa deterministically */
+        private final int index;
+        private final boolean affected;
+        /** Location the figure will be moved to */
+        private final Rectangle bounds;
+        private boolean shifted = false;
+
+        private Item(final IFigure figure, final int index, final boolean affected) {
+            this.figure = figure;
+            this.index = index;
+            this.affected = affected;
+            this.bounds = figure.getBounds().getCopy();
+        }
+
+        private boolean isDirty() {
+            return affected || shifted;
+        }
+
+    }
+
+}
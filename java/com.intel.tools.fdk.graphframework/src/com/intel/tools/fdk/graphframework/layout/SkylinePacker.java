@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.draw2d.geometry.Point;
+
+/**
+ * Bottom-left skyline packing of rectangles in a strip of fixed width.</br>
+ *
+ * The skyline is the upper outline of the packed rectangles, made of horizontal segments. A rectangle is placed on the
+ * skyline where its bottom is the lowest, then the leftmost, and the skyline is raised over it. Space below the
+ * skyline is lost, rectangles should thus be added by decreasing height.</br>
+ *
+ * Candidate locations are scanned with a sliding window over the segments covered by the rectangle, keeping the
+ * highest one in a monotonic queue, so that each addition is linear in the number of segments.
+ */
+final class SkylinePacker {
+
+    private final int width;
+    /** Segments from left to right, as abscissa, width and height */
+    private final List<int[]> skyline = new ArrayList<>();
+    private int height = 0;
+
+    /**
+     * @param width
+     *            width of the strip
+     */
+    SkylinePacker(final int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Strip width must be positive: " + width);
+        }
+        this.width = width;
+        this.skyline.add(new int[] { 0, width, 0 });
+    }
+
+    /**
+     * @param rectangleWidth
+     *            width of the rectangle, not larger than the strip
+     * @param rectangleHeight
+     *            height of the rectangle
+     * @return location of the bottom left corner of the rectangle
+     */
+    Point add(final int rectangleWidth, final int rectangleHeight) {
+        if (rectangleWidth > width) {
+            throw new IllegalArgumentException("Rectangle is wider than the strip: " + rectangleWidth);
+        }
+        final int count = skyline.size();
+        // Segments of the window by decreasing height, the first one is the highest covered segment
+        final int[] window = new int[count];
+        int head = 0;
+        int tail = 0;
+        // First segment after the window
+        int next = 0;
+        int bestIndex = -1;
+        int bestY = Integer.MAX_VALUE;
+        for (int index = 0; index < count; index++) {
+            final int x = skyline.get(index)[0];
+            if (x + rectangleWidth > width) {
+                break;
+            }
+            // Extend the window until it covers the rectangle, the window end only moves forward
+            while (next <= index || skyline.get(next - 1)[0] + skyline.get(next - 1)[1] - x < rectangleWidth) {
+                final int segmentHeight = skyline.get(next)[2];
+                while (tail > head && skyline.get(window[tail - 1])[2] <= segmentHeight) {
+                    tail--;
+                }
+                window[tail++] = next++;
+            }
+            while (window[head] < index) {
+                head++;
+            }
+            // The rectangle rests on the highest segment it covers
+            final int y = skyline.get(window[head])[2];
+            if (y < bestY) {
+                bestY = y;
+                bestIndex = index;
+            }
+        }
+
+        final int x = skyline.get(bestIndex)[0];
+        raise(bestIndex, x, rectangleWidth, bestY + rectangleHeight);
+        height = Math.max(height, bestY + rectangleHeight);
+        return new Point(x, bestY);
+    }
+
+    /**
+     * @return height of the packed rectangles
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Replace the skyline over [x, x + segmentWidth[ by a segment of the given height
+     */
+    private void raise(final int index, final int x, final int segmentWidth, final int segmentHeight) {
+        final int end = x + segmentWidth;
+        // Remove covered segments, the last one may only be shortened
+        while (index < skyline.size() && skyline.get(index)[0] < end) {
+            final int[] segment = skyline.get(index);
+            final int segmentEnd = segment[0] + segment[1];
+            if (segmentEnd <= end) {
+                skyline.remove(index);
+            } else {
+                segment[1] = segmentEnd - end;
+                segment[0] = end;
+                break;
+            }
+        }
+        skyline.add(index, new int[] { x, segmentWidth, segmentHeight });
+
+        // Merge with neighbors of the same height
+        if (index + 1 < skyline.size() && skyline.get(index + 1)[2] == segmentHeight) {
+            skyline.get(index)[1] += skyline.remove(index + 1)[1];
+        }
+        if (index > 0 && skyline.get(index - 1)[2] == segmentHeight) {
+            skyline.get(index - 1)[1] += skyline.remove(index)[1];
+        }
+    }
+
+}
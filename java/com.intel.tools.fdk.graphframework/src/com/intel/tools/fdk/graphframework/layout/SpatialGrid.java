@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Uniform grid indexing elements by their bounding rectangle.</br>
+ *
+ * An element is stored in every cell its rectangle covers, a query only visits the cells covered by the queried area.
+ * Queries are thus cheap as long as the cell size is close to the size of the stored rectangles.
+ *
+ * @param <T>
+ *            type of the indexed elements, compared by identity
+ */
+final class SpatialGrid<T> {
+
+    private final int cellSize;
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private final Map<T, Rectangle> bounds = new IdentityHashMap<>();
+
+    /**
+     * @param cellSize
+     *            width and height of the grid cells
+     */
+    SpatialGrid(final int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Grid cells must have a positive size");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add an element or move it if already indexed
+     *
+     * @param element
+     *            the element to index
+     * @param rectangle
+     *            bounding rectangle of the element, it must not be modified while indexed
+     */
+    void put(final T element, final Rectangle rectangle) {
+        remove(element);
+        bounds.put(element, rectangle);
+        forEachCell(rectangle, cell -> cells.computeIfAbsent(cell, key -> new ArrayList<>(2)).add(element));
+    }
+
+    /**
+     * @param element
+     *            the element to remove, nothing is done if it is not indexed
+     */
+    void remove(final T element) {
+        final Rectangle rectangle = bounds.remove(element);
+        if (rectangle != null) {
+            forEachCell(rectangle, cell -> {
+                final List<T> elements = cells.get(cell);
+                elements.remove(element);
+                if (elements.isEmpty()) {
+                    cells.remove(cell);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param element
+     *            an indexed element
+     * @return the bounding rectangle of the element, null if it is not indexed
+     */
+    Rectangle getBounds(final T element) {
+        return bounds.get(element);
+    }
+
+    /**
+     * @return all indexed elements
+     */
+    Set<T> getElements() {
+        return Collections.unmodifiableSet(bounds.keySet());
+    }
+
+    /**
+     * @param area
+     *            the queried area
+     * @return elements whose bounding rectangle intersects or touches the area
+     */
+    Set<T> query(final Rectangle area) {
+        final Set<T> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        final long cellCount = ((long) area.width / cellSize + 2) * ((long) area.height / cellSize + 2);
+        if (cellCount > bounds.size()) {
+            // Large areas have mostly empty cells, checking every element is cheaper
+            bounds.forEach((element, rectangle) -> {
+                if (intersects(rectangle, area)) {
+                    result.add(element);
+                }
+            });
+            return result;
+        }
+        forEachCell(area, cell -> {
+            final List<T> elements = cells.get(cell);
+            if (elements != null) {
+                for (final T element : elements) {
+                    if (intersects(bounds.get(element), area)) {
+                        result.add(element);
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Borders are included, thus degenerated rectangles such as the bounds of horizontal segments are found
+     */
+    private static boolean intersects(final Rectangle first, final Rectangle second) {
+        return first.x <= second.x + second.width && second.x <= first.x + first.width
+                && first.y <= second.y + second.height && second.y <= first.y + first.height;
+    }
+
+    private void forEachCell(final Rectangle rectangle, final CellConsumer consumer) {
+        final int left = Math.floorDiv(rectangle.x, cellSize);
+        final int right = Math.floorDiv(rectangle.x + rectangle.width, cellSize);
+        final int top = Math.floorDiv(rectangle.y, cellSize);
+        final int bottom = Math.floorDiv(rectangle.y + rectangle.height, cellSize);
+        for (int column = left; column <= right; column++) {
+            for (int row = top; row <= bottom; row++) {
+                consumer.accept(getCell(column, row));
+            }
+        }
+    }
+
+    /**
+     * The packed cell coordinates are scrambled with an invertible function (MurmurHash3 finalizer): the hash of a
+     * packed long mixes column and row with a XOR, neighbor cells would collide
+     */
+    private static long getCell(final int column, final int row) {
+        long cell = ((long) column << 32) | (row & 0xFFFFFFFFL);
+        cell ^= cell >>> 33;
+        cell *= 0xFF51AFD7ED558CCDL;
+        cell ^= cell >>> 33;
+        cell *= 0xC4CEB9FE1A85EC53L;
+        return cell ^ cell >>> 33;
+    }
+
+    @FunctionalInterface
+    private interface CellConsumer {
+        void accept(long cell);
+    }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+import com.intel.tools.fdk.graphframework.graph.impl.Pin;
+
+/**
+ * Canonical structural hash of a container and of everything it contains.</br>
+ *
+ * The hashed structure is made of the nested groups, the pin counts of the leaves, the links between pins of the
+ * container and, for each pin, whether it is linked outside of the container. Two containers have the same key if and
+ * only if (hash collisions excepted) they have the same structure, whatever the identifiers of their elements.</br>
+ *
+ * Elements are ordered canonically by Weisfeiler-Lehman color refinement, elements which cannot be distinguished are
+ * ordered by identifier. The key is the digest of the structure described in this order, the same key thus maps
+ * canonical positions of two containers onto structurally equivalent elements.</br>
+ *
+ * Refinement is limited to a logarithmic number of rounds: long chains would otherwise need as many rounds as
+ * elements, each round rehashing every element. Elements still undistinguished are ordered by identifier, two
+ * structures may then get different keys (a cache miss) but different structures never get the same key.
+ */
+final class StructuralKey {
+
+    /** Increase when the hashed structure changes */
+    private static final int VERSION = 1;
+
+    private static final int ROOT = 1;
+    private static final int GROUP = 2;
+    private static final int LEAF = 3;
+    private static final long INCOMING = 4;
+    private static final long OUTGOING = 5;
+
+    /** Edges are stored as source, target, source pin and target pin, pins of containment edges are -1 */
+    private static final int EDGE_SIZE = 4;
+
+    private static final int FREE = 0;
+    private static final int LINKED = 1;
+    private static final int EXTERNAL = 2;
+
+    private final String key;
+    /** Contained nodes in canonical order, the container excepted */
+    private final List<INode> nodes;
+
+    /** Container, nested groups then leaves, each part being sorted by identifier */
+    private final List<Object> elements = new ArrayList<>();
+    private final Map<Object, Integer> indexes = new HashMap<>();
+    /** Initial label of each element: kind, then pin states of leaves */
+    private final List<int[]> labels = new ArrayList<>();
+    private int[] edges = new int[0];
+    private int edgeCount = 0;
+
+    /**
+     * @param container
+     *            the container to hash
+     */
+    StructuralKey(final NodeContainer container) {
+        index(container);
+        final long[] colors = refine();
+
+        final Integer[] order = new Integer[elements.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> colors[first] != colors[second]
+                ? Long.compare(colors[first], colors[second]) : Integer.compare(first, second));
+        final int[] canonical = new int[order.length];
+        for (int position = 0; position < order.length; position++) {
+            canonical[order[position]] = position;
+        }
+
+        this.key = digest(order, canonical);
+        final List<INode> orderedNodes = new ArrayList<>();
+        for (final Integer element : order) {
+            if (element != 0) {
+                orderedNodes.add((INode) elements.get(element));
+            }
+        }
+        this.nodes = Collections.unmodifiableList(orderedNodes);
+    }
+
+    /**
+     * @return the hexadecimal key of the structure
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * @return leaves and groups of the container, at any depth, in canonical order
+     */
+    List<INode> getNodes() {
+        return nodes;
+    }
+
+    private void index(final NodeContainer container) {
+        final List<NodeContainer> containers = new ArrayList<>();
+        containers.add(container);
+        for (int i = 0; i < containers.size(); i++) {
+            containers.addAll(new TreeSet<>(containers.get(i).getGroups()));
+        }
+        containers.forEach(this::add);
+        final TreeSet<Leaf> leaves = new TreeSet<>(container.getAllLeaves());
+        leaves.forEach(this::add);
+
+        labels.add(new int[] { ROOT });
+        for (int i = 1; i < containers.size(); i++) {
+            labels.add(new int[] { GROUP });
+        }
+        for (final NodeContainer parent : containers) {
+            parent.getGroups().forEach(group -> addEdge(indexes.get(parent), indexes.get(group), -1, -1));
+            parent.getLeaves().forEach(leaf -> addEdge(indexes.get(parent), indexes.get(leaf), -1, -1));
+        }
+        for (final Leaf leaf : leaves) {
+            final int[] label = new int[3 + leaf.getInputs().size() + leaf.getOutputs().size()];
+            label[0] = LEAF;
+            label[1] = leaf.getInputs().size();
+            label[2] = leaf.getOutputs().size();
+            int position = 3;
+            for (final Pin pin : leaf.getInputs()) {
+                label[position++] = pinState(pin.getLink().map(Link::getOutput).orElse(null));
+            }
+            for (final Pin pin : leaf.getOutputs()) {
+                label[position++] = pinState(pin.getLink().map(Link::getInput).orElse(null));
+                // Links are described once, from their output
+                final Pin target = pin.getLink().map(Link::getInput).orElse(null);
+                if (target != null && indexes.containsKey(target.getLeaf())) {
+                    addEdge(indexes.get(leaf), indexes.get(target.getLeaf()), pin.getId(), target.getId());
+                }
+            }
+            labels.add(label);
+        }
+    }
+
+    private void add(final Object element) {
+        indexes.put(element, elements.size());
+        elements.add(element);
+    }
+
+    private int pinState(final Pin opposite) {
+        if (opposite == null) {
+            return FREE;
+        }
+        return indexes.containsKey(opposite.getLeaf()) ? LINKED : EXTERNAL;
+    }
+
+    private void addEdge(final int source, final int target, final int sourcePin, final int targetPin) {
+        if (edgeCount * EDGE_SIZE == edges.length) {
+            edges = Arrays.copyOf(edges, Math.max(EDGE_SIZE * 16, edges.length * 2));
+        }
+        final int offset = edgeCount * EDGE_SIZE;
+        edges[offset] = source;
+        edges[offset + 1] = target;
+        edges[offset + 2] = sourcePin;
+        edges[offset + 3] = targetPin;
+        edgeCount++;
+    }
+
+    /**
+     * Refine colors of elements with their neighborhood until no more element can be distinguished or until the
+     * maximal number of rounds is reached
+     *
+     * @return the color of each element
+     */
+    private long[] refine() {
+        final int count = elements.size();
+        long[] colors = new long[count];
+        for (int i = 0; i < count; i++) {
+            long color = 0;
+            for (final int value : labels.get(i)) {
+                color = mix(color, value);
+            }
+            colors[i] = color;
+        }
+
+        // Incident edges of each element
+        final int[] offsets = new int[count + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            offsets[edges[edge * EDGE_SIZE] + 1]++;
+            offsets[edges[edge * EDGE_SIZE + 1] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        final int[] incidences = new int[offsets[count]];
+        final int[] fill = Arrays.copyOf(offsets, count);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            incidences[fill[edges[edge * EDGE_SIZE]]++] = edge;
+            incidences[fill[edges[edge * EDGE_SIZE + 1]]++] = edge;
+        }
+
+        int classes = countClasses(colors);
+        final long[] signatures = new long[incidences.length];
+        // Enough for elements to be distinguished by neighborhoods of logarithmic radius
+        final int rounds = Integer.SIZE - Integer.numberOfLeadingZeros(count);
+        for (int round = 0; round < rounds; round++) {
+            final long[] refined = new long[count];
+            for (int element = 0; element < count; element++) {
+                for (int j = offsets[element]; j < offsets[element + 1]; j++) {
+                    final int edge = incidences[j] * EDGE_SIZE;
+                    final boolean outgoing = edges[edge] == element;
+                    final int neighbor = outgoing ? edges[edge + 1] : edges[edge];
+                    signatures[j] = mix(mix(mix(outgoing ? OUTGOING : INCOMING, edges[edge + 2]), edges[edge + 3]),
+                            colors[neighbor]);
+                }
+                Arrays.sort(signatures, offsets[element], offsets[element + 1]);
+                long color = colors[element];
+                for (int j = offsets[element]; j < offsets[element + 1]; j++) {
+                    color = mix(color, signatures[j]);
+                }
+                refined[element] = color;
+            }
+            colors = refined;
+            final int refinedClasses = countClasses(colors);
+            if (refinedClasses == classes) {
+                break;
+            }
+            classes = refinedClasses;
+        }
+        return colors;
+    }
+
+    private static int countClasses(final long[] colors) {
+        final long[] sorted = colors.clone();
+        Arrays.sort(sorted);
+        int classes = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                classes++;
+            }
+        }
+        return classes;
+    }
+
+    private static long mix(final long seed, final long value) {
+        long hash = (seed ^ value) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return hash ^ hash >>> 29;
+    }
+
+    /**
+     * Describe the structure in canonical order, colors are not part of the description
+     */
+    private String digest(final Integer[] order, final int[] canonical) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is supported by every Java platform", e);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 3);
+        update(digest, buffer.putInt(VERSION).putInt(elements.size()).putInt(edgeCount));
+        for (final Integer element : order) {
+            final int[] label = labels.get(element);
+            update(digest, buffer.putInt(label.length));
+            for (final int value : label) {
+                update(digest, buffer.putInt(value));
+            }
+        }
+
+        final int[][] canonicalEdges = new int[edgeCount][];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            final int offset = edge * EDGE_SIZE;
+            canonicalEdges[edge] = new int[] { canonical[edges[offset]], canonical[edges[offset + 1]],
+                edges[offset + 2], edges[offset + 3] };
+        }
+        Arrays.sort(canonicalEdges, (first, second) -> {
+            for (int i = 0; i < EDGE_SIZE; i++) {
+                if (first[i] != second[i]) {
+                    return Integer.compare(first[i], second[i]);
+                }
+            }
+            return 0;
+        });
+        for (final int[] edge : canonicalEdges) {
+            update(digest, buffer.putInt(edge[0]).putInt(edge[1]));
+            update(digest, buffer.putInt(edge[2]).putInt(edge[3]));
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for (final byte value : digest.digest()) {
+            builder.append(String.format("%02x", value));
+        }
+        return builder.toString();
+    }
+
+    private static void update(final MessageDigest digest, final ByteBuffer buffer) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+    }
+
+}
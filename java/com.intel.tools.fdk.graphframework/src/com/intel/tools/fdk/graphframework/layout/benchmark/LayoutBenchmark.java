@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.layout.ILayoutAlgorithm;
+import com.intel.tools.fdk.graphframework.layout.LayoutAlgorithms;
+
+/**
+ * Run registered layout algorithms on the standard {@link SyntheticGraphs} and report their cost and quality.</br>
+ *
+ * Each algorithm is run a few times on each graph to warm up the JVM, then measured. The reported time is the median
+ * of the measured runs, the allocation is the mean number of bytes allocated by all threads during a run (HotSpot
+ * only). Quality metrics are those of {@link LayoutMetrics}.</br>
+ *
+ * Usage: <code>LayoutBenchmark [warmup runs] [measured runs] [algorithm names...]</code>, every registered algorithm
+ * is run by default.
+ */
+public final class LayoutBenchmark {
+
+    private static final int DEFAULT_WARMUP = 3;
+    private static final int DEFAULT_RUNS = 5;
+    private static final String FORMAT = "%-16s %-16s %10s %10s %10s %12s %12s %8s %8s%n";
+
+    private LayoutBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final int warmup = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_WARMUP;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        final List<String> algorithms = args.length > 2 ? Arrays.asList(args).subList(2, args.length)
+                : LayoutAlgorithms.getNames();
+
+        System.out.printf(FORMAT, "graph", "algorithm", "time (ms)", "alloc (MB)", "crossings", "extent", "area",
+                "link", "overlaps");
+        for (final Map.Entry<String, Supplier<Graph>> entry : SyntheticGraphs.getStandardGraphs().entrySet()) {
+            final Graph graph = entry.getValue().get();
+            for (final String name : algorithms) {
+                final ILayoutAlgorithm algorithm = LayoutAlgorithms.get(name).orElseThrow(
+                        () -> new IllegalArgumentException("Unknown layout algorithm " + name));
+                run(entry.getKey(), graph, name, algorithm, warmup, runs);
+            }
+        }
+    }
+
+    private static void run(final String graphName, final Graph graph, final String name,
+            final ILayoutAlgorithm algorithm, final int warmup, final int runs) {
+        for (int i = 0; i < warmup; i++) {
+            algorithm.computeCoordinates(graph);
+        }
+        final long[] times = new long[runs];
+        final boolean allocationSupported = getAllocatedBytes() >= 0;
+        long allocated = 0;
+        Map<INode, PrecisionPoint> coordinates = null;
+        for (int i = 0; i < runs; i++) {
+            final long allocatedBefore = getAllocatedBytes();
+            final long start = System.nanoTime();
+            coordinates = algorithm.computeCoordinates(graph);
+            times[i] = System.nanoTime() - start;
+            allocated += getAllocatedBytes() - allocatedBefore;
+        }
+        Arrays.sort(times);
+
+        final LayoutMetrics metrics = new LayoutMetrics(graph, coordinates);
+        System.out.printf(FORMAT, graphName, name, String.format("%.1f", times[runs / 2] / 1e6),
+                !allocationSupported ? "n/a" : String.format("%.1f", allocated / (double) runs / (1 << 20)),
+                metrics.getCrossings(), String.format("%.0fx%.0f", metrics.getWidth(), metrics.getHeight()),
+                String.format("%.0f", metrics.getArea()),
+                String.format("%.2f", metrics.getMeanLinkLength()), metrics.getOverlaps());
+    }
+
+    /**
+     * @return bytes allocated by live threads since their start, negative if not supported
+     */
+    private static long getAllocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        final com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspotThreads.isThreadAllocatedMemorySupported() || !hotspotThreads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        // Threads which ended in the meantime are reported as -1
+        return Arrays.stream(hotspotThreads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+                .filter(allocated -> allocated > 0).sum();
+    }
+
+}
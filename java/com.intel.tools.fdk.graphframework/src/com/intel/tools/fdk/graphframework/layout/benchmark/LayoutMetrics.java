@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+
+/**
+ * Quality of a layout, measured on raw coordinates.</br>
+ *
+ * Links are drawn as straight segments between the centers of their leaves. Two nodes overlap when they are closer
+ * than half a node spacing.
+ */
+public final class LayoutMetrics {
+
+    private static final double OVERLAP_DISTANCE = 0.5;
+
+    private final long crossings;
+    private final double width;
+    private final double height;
+    private final double meanLinkLength;
+    private final long overlaps;
+
+    /**
+     * @param graph
+     *            the computed graph
+     * @param coordinates
+     *            raw coordinates of leaves and of groups without leaf
+     */
+    public LayoutMetrics(final Graph graph, final Map<INode, PrecisionPoint> coordinates) {
+        final List<double[]> segments = new ArrayList<>();
+        double length = 0;
+        for (final Link link : graph.getAllLinks()) {
+            final PrecisionPoint source = coordinates.get(link.getOutput().getLeaf());
+            final PrecisionPoint target = coordinates.get(link.getInput().getLeaf());
+            if (source != null && target != null) {
+                segments.add(new double[] { source.preciseX(), source.preciseY(), target.preciseX(),
+                    target.preciseY() });
+                length += Math.hypot(target.preciseX() - source.preciseX(), target.preciseY() - source.preciseY());
+            }
+        }
+        this.crossings = countCrossings(segments);
+        this.meanLinkLength = segments.isEmpty() ? 0 : length / segments.size();
+
+        double xMin = Double.POSITIVE_INFINITY;
+        double xMax = Double.NEGATIVE_INFINITY;
+        double yMin = Double.POSITIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+        for (final PrecisionPoint point : coordinates.values()) {
+            xMin = Math.min(xMin, point.preciseX());
+            xMax = Math.max(xMax, point.preciseX());
+            yMin = Math.min(yMin, point.preciseY());
+            yMax = Math.max(yMax, point.preciseY());
+        }
+        // Each node takes a unit square around its coordinates
+        this.width = coordinates.isEmpty() ? 0 : xMax - xMin + 1;
+        this.height = coordinates.isEmpty() ? 0 : yMax - yMin + 1;
+        this.overlaps = countOverlaps(coordinates);
+    }
+
+    /**
+     * @return number of pairs of links which cross, links sharing a leaf are not counted
+     */
+    public long getCrossings() {
+        return crossings;
+    }
+
+    /**
+     * @return width of the bounding box of the nodes, in node spacings
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return height of the bounding box of the nodes, in node spacings
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * @return area of the bounding box of the nodes, in squared node spacings
+     */
+    public double getArea() {
+        return width * height;
+    }
+
+    /**
+     * @return mean length of links, in node spacings
+     */
+    public double getMeanLinkLength() {
+        return meanLinkLength;
+    }
+
+    /**
+     * @return number of pairs of overlapping nodes
+     */
+    public long getOverlaps() {
+        return overlaps;
+    }
+
+    /**
+     * Sweep segments by abscissa, only segments which abscissa ranges overlap are tested
+     */
+    private static long countCrossings(final List<double[]> segments) {
+        final double[][] sorted = segments.toArray(new double[segments.size()][]);
+        Arrays.sort(sorted, (first, second) -> Double.compare(minX(first), minX(second)));
+        long count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            final double right = Math.max(sorted[i][0], sorted[i][2]);
+            for (int j = i + 1; j < sorted.length && minX(sorted[j]) <= right; j++) {
+                if (intersect(sorted[i], sorted[j])) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static double minX(final double[] segment) {
+        return Math.min(segment[0], segment[2]);
+    }
+
+    /**
+     * @return true if segments cross at a point which is not an end of both
+     */
+    private static boolean intersect(final double[] first, final double[] second) {
+        final double d1 = orientation(second[0], second[1], second[2], second[3], first[0], first[1]);
+        final double d2 = orientation(second[0], second[1], second[2], second[3], first[2], first[3]);
+        final double d3 = orientation(first[0], first[1], first[2], first[3], second[0], second[1]);
+        final double d4 = orientation(first[0], first[1], first[2], first[3], second[2], second[3]);
+        return d1 * d2 < 0 && d3 * d4 < 0;
+    }
+
+    private static double orientation(final double x1, final double y1, final double x2, final double y2,
+            final double x, final double y) {
+        return (x2 - x1) * (y - y1) - (y2 - y1) * (x - x1);
+    }
+
+    /**
+     * Nodes are hashed in cells of the overlap distance, only nodes of neighbor cells are compared
+     */
+    private static long countOverlaps(final Map<INode, PrecisionPoint> coordinates) {
+        final Map<Long, List<PrecisionPoint>> cells = new HashMap<>();
+        long count = 0;
+        for (final PrecisionPoint point : coordinates.values()) {
+            final long cellX = (long) Math.floor(point.preciseX() / OVERLAP_DISTANCE);
+            final long cellY = (long) Math.floor(point.preciseY() / OVERLAP_DISTANCE);
+            for (long x = cellX - 1; x <= cellX + 1; x++) {
+                for (long y = cellY - 1; y <= cellY + 1; y++) {
+                    for (final PrecisionPoint other : cells.getOrDefault(cell(x, y), new ArrayList<>())) {
+                        if (Math.hypot(other.preciseX() - point.preciseX(),
+                                other.preciseY() - point.preciseY()) < OVERLAP_DISTANCE) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            cells.computeIfAbsent(cell(cellX, cellY), key -> new ArrayList<>()).add(point);
+        }
+        return count;
+    }
+
+    private static Long cell(final long x, final long y) {
+        return x << Integer.SIZE | y & 0xFFFFFFFFL;
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.layout.ILayoutAlgorithm;
+import com.intel.tools.fdk.graphframework.layout.LayoutAlgorithms;
+
+/**
+ * Check that layout algorithms scale to the {@link SyntheticGraphs#getLargeGraphs() large graphs}.</br>
+ *
+ * Each algorithm is run a few times to warm up the JVM, then measured. The reported time is the median of the measured
+ * runs and is compared to a time budget. A failure, such as a {@link StackOverflowError} on a long chain, is reported
+ * instead of the time. Quality metrics are not computed, see {@link LayoutBenchmark}.</br>
+ *
+ * Usage: <code>ScaleBenchmark [measured runs] [budget ms] [algorithm names...]</code>, the
+ * {@link LayoutAlgorithms#AUTO} algorithm is run by default with a budget of one second. Large graphs allocate a lot,
+ * run with a fixed heap such as <code>-Xms2g -Xmx2g</code> so that heap resizing does not blur the measures.
+ */
+public final class ScaleBenchmark {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int DEFAULT_RUNS = 5;
+    private static final long DEFAULT_BUDGET_MILLIS = 1000;
+    private static final String FORMAT = "%-16s %-16s %10s %8s%n";
+
+    private ScaleBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        final long budget = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_BUDGET_MILLIS;
+        final List<String> algorithms = args.length > 2 ? Arrays.asList(args).subList(2, args.length)
+                : Arrays.asList(LayoutAlgorithms.AUTO);
+
+        boolean passed = true;
+        System.out.printf(FORMAT, "graph", "algorithm", "time (ms)", "result");
+        for (final Map.Entry<String, Supplier<Graph>> entry : SyntheticGraphs.getLargeGraphs().entrySet()) {
+            final Graph graph = entry.getValue().get();
+            for (final String name : algorithms) {
+                final ILayoutAlgorithm algorithm = LayoutAlgorithms.get(name).orElseThrow(
+                        () -> new IllegalArgumentException("Unknown layout algorithm " + name));
+                passed &= run(entry.getKey(), graph, name, algorithm, runs, budget);
+            }
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return true if the algorithm succeeded within the budget
+     */
+    private static boolean run(final String graphName, final Graph graph, final String name,
+            final ILayoutAlgorithm algorithm, final int runs, final long budget) {
+        final long[] times = new long[runs];
+        try {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                algorithm.computeCoordinates(graph);
+            }
+            for (int i = 0; i < runs; i++) {
+                final long start = System.nanoTime();
+                algorithm.computeCoordinates(graph);
+                times[i] = System.nanoTime() - start;
+            }
+        } catch (final RuntimeException | StackOverflowError e) {
+            System.out.printf(FORMAT, graphName, name, "-", e.getClass().getSimpleName());
+            return false;
+        }
+        Arrays.sort(times);
+        final double median = times[runs / 2] / 1e6;
+        final boolean passed = median <= budget;
+        System.out.printf(FORMAT, graphName, name, String.format("%.1f", median), passed ? "ok" : "too slow");
+        return passed;
+    }
+
+}
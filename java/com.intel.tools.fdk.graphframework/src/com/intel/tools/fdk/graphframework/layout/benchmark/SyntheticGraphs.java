@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Input;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.Output;
+
+/**
+ * Generators of graphs used to compare layout algorithms.</br>
+ *
+ * Random graphs are seeded, a generator always builds the same structure.
+ */
+public final class SyntheticGraphs {
+
+    private static final long SEED = 0x5EED;
+
+    private SyntheticGraphs() {
+    }
+
+    /**
+     * @return generators of the standard benchmark graphs, by name, each graph having a few thousand leaves
+     */
+    public static Map<String, Supplier<Graph>> getStandardGraphs() {
+        final Map<String, Supplier<Graph>> graphs = new LinkedHashMap<>();
+        graphs.put("chain-2000", () -> chain(2000));
+        graphs.put("grid-45x45", () -> grid(45, 45));
+        graphs.put("tree-5x4", () -> tree(5, 4));
+        graphs.put("dag-2000", () -> randomDag(2000, 3000));
+        graphs.put("nested-3x6", () -> nested(3, 6, 8));
+        graphs.put("components-200", () -> components(200, 20));
+        return graphs;
+    }
+
+    /**
+     * @return generators of the large benchmark graphs, by name, each graph having a hundred thousand leaves
+     */
+    public static Map<String, Supplier<Graph>> getLargeGraphs() {
+        final Map<String, Supplier<Graph>> graphs = new LinkedHashMap<>();
+        graphs.put("chain-100000", () -> chain(100_000));
+        graphs.put("dag-100000", () -> randomDag(100_000, 150_000));
+        return graphs;
+    }
+
+    /**
+     * @param length
+     *            number of leaves
+     * @return leaves linked one after the other
+     */
+    public static Graph chain(final int length) {
+        final List<Leaf> leaves = createLeaves(length, 1, 1);
+        for (int i = 1; i < length; i++) {
+            link(leaves.get(i - 1), 0, leaves.get(i), 0);
+        }
+        return new Graph(new HashSet<>(leaves), Collections.emptySet());
+    }
+
+    /**
+     * @param width
+     *            number of columns
+     * @param height
+     *            number of rows
+     * @return leaves linked to their right and bottom neighbors
+     */
+    public static Graph grid(final int width, final int height) {
+        final List<Leaf> leaves = createLeaves(width * height, 2, 2);
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                final Leaf leaf = leaves.get(row * width + column);
+                if (column + 1 < width) {
+                    link(leaf, 0, leaves.get(row * width + column + 1), 0);
+                }
+                if (row + 1 < height) {
+                    link(leaf, 1, leaves.get((row + 1) * width + column), 1);
+                }
+            }
+        }
+        return new Graph(new HashSet<>(leaves), Collections.emptySet());
+    }
+
+    /**
+     * @param depth
+     *            number of levels below the root
+     * @param fanout
+     *            number of children of each non terminal leaf
+     * @return a tree of leaves, each leaf being linked to its children
+     */
+    public static Graph tree(final int depth, final int fanout) {
+        final List<Leaf> leaves = new ArrayList<>();
+        List<Leaf> level = createLeaves(1, 1, fanout);
+        leaves.addAll(level);
+        for (int i = 0; i < depth; i++) {
+            final List<Leaf> next = createLeaves(level.size() * fanout, 1, i + 1 < depth ? fanout : 0);
+            for (int child = 0; child < next.size(); child++) {
+                link(level.get(child / fanout), child % fanout, next.get(child), 0);
+            }
+            leaves.addAll(next);
+            level = next;
+        }
+        return new Graph(new HashSet<>(leaves), Collections.emptySet());
+    }
+
+    /**
+     * @param size
+     *            number of leaves
+     * @param linkCount
+     *            number of links tried, links reaching an already linked pin are skipped
+     * @return leaves randomly linked from lower to higher creation order
+     */
+    public static Graph randomDag(final int size, final int linkCount) {
+        final Random random = new Random(SEED);
+        final List<Leaf> leaves = createLeaves(size, 3, 3);
+        for (int i = 0; i < linkCount; i++) {
+            final int source = random.nextInt(size - 1);
+            final int target = source + 1 + random.nextInt(Math.min(size - source - 1, 50));
+            tryLink(leaves.get(source), random.nextInt(3), leaves.get(target), random.nextInt(3));
+        }
+        return new Graph(new HashSet<>(leaves), Collections.emptySet());
+    }
+
+    /**
+     * @param count
+     *            number of components
+     * @param sizeMax
+     *            maximal number of leaves of a component
+     * @return random DAGs which are not linked together, of random sizes
+     */
+    public static Graph components(final int count, final int sizeMax) {
+        final Random random = new Random(SEED);
+        final Set<Leaf> leaves = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            final int size = 1 + random.nextInt(sizeMax);
+            final List<Leaf> component = createLeaves(size, 2, 2);
+            // A chain keeps the component connected, other links are random
+            for (int leaf = 1; leaf < size; leaf++) {
+                link(component.get(leaf - 1), 0, component.get(leaf), 0);
+            }
+            for (int link = 0; link < size / 2; link++) {
+                final int source = random.nextInt(size);
+                tryLink(component.get(source), 1, component.get(source + random.nextInt(size - source)), 1);
+            }
+            leaves.addAll(component);
+        }
+        return new Graph(leaves, Collections.emptySet());
+    }
+
+    /**
+     * @param depth
+     *            nesting depth of groups
+     * @param fanout
+     *            number of groups in the graph and in each non terminal group
+     * @param leafCount
+     *            number of leaves of each group
+     * @return nested groups, links being mostly between leaves of the same group
+     */
+    public static Graph nested(final int depth, final int fanout, final int leafCount) {
+        final Random random = new Random(SEED);
+        final List<Leaf> allLeaves = new ArrayList<>();
+        final Set<Group> groups = new HashSet<>();
+        for (int i = 0; i < fanout; i++) {
+            groups.add(createGroup(depth - 1, fanout, leafCount, random, allLeaves));
+        }
+        // A few links between groups
+        for (int i = 0; i < allLeaves.size() / 10; i++) {
+            tryLink(allLeaves.get(random.nextInt(allLeaves.size())), random.nextInt(2),
+                    allLeaves.get(random.nextInt(allLeaves.size())), random.nextInt(2));
+        }
+        return new Graph(Collections.emptySet(), groups);
+    }
+
+    private static Group createGroup(final int depth, final int fanout, final int leafCount, final Random random,
+            final List<Leaf> allLeaves) {
+        final List<Leaf> leaves = createLeaves(leafCount, 2, 2);
+        for (int i = 0; i < leafCount; i++) {
+            tryLink(leaves.get(random.nextInt(leafCount)), random.nextInt(2), leaves.get(random.nextInt(leafCount)),
+                    random.nextInt(2));
+        }
+        allLeaves.addAll(leaves);
+        final Set<Group> groups = new HashSet<>();
+        if (depth > 0) {
+            for (int i = 0; i < fanout; i++) {
+                groups.add(createGroup(depth - 1, fanout, leafCount, random, allLeaves));
+            }
+        }
+        return new Group(new HashSet<>(leaves), groups);
+    }
+
+    private static List<Leaf> createLeaves(final int count, final int inputs, final int outputs) {
+        final List<Leaf> leaves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            leaves.add(new Leaf(inputs, outputs));
+        }
+        return leaves;
+    }
+
+    private static void link(final Leaf source, final int output, final Leaf target, final int input) {
+        new Link(source.getOutputs().get(output), target.getInputs().get(input));
+    }
+
+    private static void tryLink(final Leaf source, final int output, final Leaf target, final int input) {
+        final Output out = source.getOutputs().get(output);
+        final Input in = target.getInputs().get(input);
+        if (source != target && !out.getLink().isPresent() && !in.getLink().isPresent()) {
+            new Link(out, in);
+        }
+    }
+
+}
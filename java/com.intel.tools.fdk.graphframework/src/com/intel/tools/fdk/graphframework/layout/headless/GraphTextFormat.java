@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout.headless;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import com.intel.tools.fdk.graphframework.graph.GraphException;
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Line based text serialization of a graph structure.</br>
+ *
+ * Each line declares an element, fields are separated by blanks, empty lines and lines starting with '#' are ignored:
+ * <ul>
+ * <li><code>group &lt;name&gt; [&lt;parent group&gt;]</code></li>
+ * <li><code>leaf &lt;name&gt; &lt;input count&gt; &lt;output count&gt; [&lt;parent group&gt;]</code></li>
+ * <li><code>link &lt;leaf&gt;.&lt;output index&gt; &lt;leaf&gt;.&lt;input index&gt;</code></li>
+ * </ul>
+ * Names are unique and an element must be declared before being referenced. Nodes without parent belong to the
+ * graph.
+ */
+public final class GraphTextFormat {
+
+    private static final String GROUP = "group";
+    private static final String LEAF = "leaf";
+    private static final String LINK = "link";
+    private static final String COMMENT = "#";
+    private static final Pattern SEPARATOR = Pattern.compile("\\s+");
+
+    private GraphTextFormat() {
+    }
+
+    /**
+     * Graph read from its text serialization, with the names of its nodes
+     */
+    public static final class NamedGraph {
+
+        private final Graph graph;
+        /** Nodes in declaration order */
+        private final Map<String, INode> nodes;
+
+        private NamedGraph(final Graph graph, final Map<String, INode> nodes) {
+            this.graph = graph;
+            this.nodes = Collections.unmodifiableMap(nodes);
+        }
+
+        /**
+         * @return the read graph
+         */
+        public Graph getGraph() {
+            return graph;
+        }
+
+        /**
+         * @return leaves and groups of the graph by name, in declaration order
+         */
+        public Map<String, INode> getNodes() {
+            return nodes;
+        }
+
+    }
+
+    /**
+     * Read a graph
+     *
+     * @param reader
+     *            the serialized graph
+     * @return the graph and the names of its nodes
+     * @throws IOException
+     *             if the reader fails
+     * @throws GraphException
+     *             if the serialization is invalid, the message gives the faulty line
+     */
+    public static NamedGraph read(final BufferedReader reader) throws IOException, GraphException {
+        final Graph graph = new Graph(new HashSet<>(), new HashSet<>());
+        final Map<String, INode> nodes = new LinkedHashMap<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(COMMENT)) {
+                continue;
+            }
+            try {
+                readLine(SEPARATOR.split(line), graph, nodes);
+            } catch (final GraphException e) {
+                throw new GraphException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return new NamedGraph(graph, nodes);
+    }
+
+    private static void readLine(final String[] fields, final Graph graph, final Map<String, INode> nodes)
+            throws GraphException {
+        switch (fields[0]) {
+        case GROUP:
+            checkFieldCount(fields, 2, 3);
+            final Group group = new Group(new HashSet<>(), new HashSet<>());
+            getParent(fields, 2, graph, nodes).add(group);
+            declare(fields[1], group, nodes);
+            break;
+        case LEAF:
+            checkFieldCount(fields, 4, 5);
+            final Leaf leaf = new Leaf(parseCount(fields[2]), parseCount(fields[3]));
+            getParent(fields, 4, graph, nodes).add(leaf);
+            declare(fields[1], leaf, nodes);
+            break;
+        case LINK:
+            checkFieldCount(fields, 3, 3);
+            final Leaf source = getLeaf(fields[1], nodes);
+            final Leaf target = getLeaf(fields[2], nodes);
+            final int output = getPinIndex(fields[1], source.getOutputs().size());
+            final int input = getPinIndex(fields[2], target.getInputs().size());
+            Link.create(source.getOutputs().get(output), target.getInputs().get(input));
+            break;
+        default:
+            throw new GraphException("Unknown element " + fields[0]);
+        }
+    }
+
+    private static void checkFieldCount(final String[] fields, final int min, final int max) throws GraphException {
+        if (fields.length < min || fields.length > max) {
+            throw new GraphException("Unexpected field count for " + fields[0]);
+        }
+    }
+
+    private static int parseCount(final String field) throws GraphException {
+        try {
+            final int count = Integer.parseInt(field);
+            if (count < 0) {
+                throw new GraphException("Negative pin count " + field);
+            }
+            return count;
+        } catch (final NumberFormatException e) {
+            throw new GraphException("Invalid pin count " + field, e);
+        }
+    }
+
+    private static void declare(final String name, final INode node, final Map<String, INode> nodes)
+            throws GraphException {
+        if (nodes.putIfAbsent(name, node) != null) {
+            throw new GraphException("Duplicated name " + name);
+        }
+    }
+
+    private static NodeContainer getParent(final String[] fields, final int index, final Graph graph,
+            final Map<String, INode> nodes) throws GraphException {
+        if (fields.length <= index) {
+            return graph;
+        }
+        final INode parent = nodes.get(fields[index]);
+        if (!(parent instanceof Group)) {
+            throw new GraphException("Unknown group " + fields[index]);
+        }
+        return (Group) parent;
+    }
+
+    /**
+     * @param pin
+     *            pin reference, as leaf name and pin index separated by a dot
+     */
+    private static Leaf getLeaf(final String pin, final Map<String, INode> nodes) throws GraphException {
+        final int separator = pin.lastIndexOf('.');
+        final INode leaf = separator > 0 ? nodes.get(pin.substring(0, separator)) : null;
+        if (!(leaf instanceof Leaf)) {
+            throw new GraphException("Unknown leaf in pin " + pin);
+        }
+        return (Leaf) leaf;
+    }
+
+    private static int getPinIndex(final String pin, final int pinCount) throws GraphException {
+        try {
+            final int index = Integer.parseInt(pin.substring(pin.lastIndexOf('.') + 1));
+            if (index < 0 || index >= pinCount) {
+                throw new GraphException("No such pin " + pin);
+            }
+            return index;
+        } catch (final NumberFormatException e) {
+            throw new GraphException("Invalid pin index in " + pin, e);
+        }
+    }
+
+    /**
+     * Write a graph, leaves and groups being named by kind then by declaration order
+     *
+     * @param graph
+     *            the graph to serialize
+     * @param writer
+     *            the destination
+     */
+    public static void write(final Graph graph, final PrintWriter writer) {
+        final Map<INode, String> names = new HashMap<>();
+        final List<NodeContainer> containers = new ArrayList<>();
+        containers.add(graph);
+        for (int i = 0; i < containers.size(); i++) {
+            final NodeContainer container = containers.get(i);
+            final String parent = container == graph ? "" : " " + names.get(container);
+            for (final Group group : new TreeSet<>(container.getGroups())) {
+                names.put(group, GROUP + names.size());
+                writer.println(GROUP + " " + names.get(group) + parent);
+                containers.add(group);
+            }
+            for (final Leaf leaf : new TreeSet<>(container.getLeaves())) {
+                names.put(leaf, LEAF + names.size());
+                writer.println(LEAF + " " + names.get(leaf) + " " + leaf.getInputs().size() + " "
+                        + leaf.getOutputs().size() + parent);
+            }
+        }
+        for (final Leaf leaf : new TreeSet<>(graph.getAllLeaves())) {
+            leaf.getOutputs().forEach(output -> output.getLink().ifPresent(link -> {
+                final Leaf target = link.getInput().getLeaf();
+                writer.println(LINK + " " + names.get(leaf) + "." + output.getId() + " " + names.get(target) + "."
+                        + link.getInput().getId());
+            }));
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout.headless;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import com.intel.tools.fdk.graphframework.figure.presenter.GroupPresenter;
+import com.intel.tools.fdk.graphframework.figure.presenter.LeafPresenter;
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Group;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.layout.AutoLayoutGenerator;
+import com.intel.tools.fdk.graphframework.layout.ILayoutAlgorithm;
+import com.intel.tools.fdk.graphframework.layout.LayoutGrid;
+
+/**
+ * Compute the bounds nodes would have once displayed, without creating any figure.</br>
+ *
+ * Sizes follow the presenter rules: a leaf is sized after its pin counts as in {@link LeafPresenter}, a group wraps
+ * its children as in {@link GroupPresenter}. Raw coordinates are converted by a {@link LayoutGrid} as in
+ * {@link AutoLayoutGenerator}. The layout does not need a display and can be used concurrently as long as the
+ * algorithm can.
+ */
+public class HeadlessLayout {
+
+    private final ILayoutAlgorithm algorithm;
+
+    /**
+     * @param algorithm
+     *            the algorithm computing raw coordinates
+     */
+    public HeadlessLayout(final ILayoutAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Lay out a graph
+     *
+     * @param graph
+     *            the graph to compute, it is not modified
+     * @return the bounds of every leaf and group of the graph
+     */
+    public Map<INode, Rectangle> computeBounds(final Graph graph) {
+        final Map<INode, PrecisionPoint> coordinates = algorithm.computeCoordinates(graph);
+
+        // Children are wrapped before their parent
+        final List<Group> groups = new ArrayList<>(graph.getGroups());
+        for (int i = 0; i < groups.size(); i++) {
+            groups.addAll(groups.get(i).getGroups());
+        }
+        Collections.reverse(groups);
+
+        // Leaves size the grid, empty groups only occupy their cell
+        final List<INode> nodes = new ArrayList<>(graph.getAllLeaves());
+        final int leafCount = nodes.size();
+        groups.stream().filter(HeadlessLayout::isEmpty).forEach(nodes::add);
+        final Dimension[] sizes = new Dimension[leafCount];
+        final double[] xs = new double[nodes.size()];
+        final double[] ys = new double[nodes.size()];
+        final int[] widths = new int[nodes.size()];
+        final int[] heights = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            final PrecisionPoint coordinate = getCoordinate(coordinates, nodes.get(i));
+            xs[i] = coordinate.preciseX();
+            ys[i] = coordinate.preciseY();
+            if (i < leafCount) {
+                sizes[i] = LeafPresenter.getBoundsSize((Leaf) nodes.get(i));
+                widths[i] = sizes[i].width;
+                heights[i] = sizes[i].height;
+            }
+        }
+        final LayoutGrid grid = new LayoutGrid(xs, ys, widths, heights);
+
+        final Map<INode, Rectangle> bounds = new HashMap<>();
+        for (int i = 0; i < leafCount; i++) {
+            bounds.put(nodes.get(i), new Rectangle(grid.getLocation(getCoordinate(coordinates, nodes.get(i))),
+                    sizes[i]));
+        }
+        for (final Group group : groups) {
+            bounds.put(group, computeGroupBounds(group, bounds, coordinates, grid));
+        }
+        return bounds;
+    }
+
+    private static boolean isEmpty(final Group group) {
+        return group.getLeaves().isEmpty() && group.getGroups().isEmpty();
+    }
+
+    private static Rectangle computeGroupBounds(final Group group, final Map<INode, Rectangle> bounds,
+            final Map<INode, PrecisionPoint> coordinates, final LayoutGrid grid) {
+        final Rectangle rectangle = new Rectangle();
+        if (isEmpty(group)) {
+            rectangle.setLocation(grid.getLocation(getCoordinate(coordinates, group)));
+        } else {
+            group.getLeaves().forEach(leaf -> union(rectangle, bounds.get(leaf)));
+            group.getGroups().forEach(child -> union(rectangle, bounds.get(child)));
+            rectangle.x -= GroupPresenter.OFFSET / 2;
+            rectangle.y -= GroupPresenter.OFFSET / 2;
+        }
+        rectangle.width += GroupPresenter.OFFSET;
+        rectangle.height += GroupPresenter.OFFSET;
+        return rectangle;
+    }
+
+    private static void union(final Rectangle rectangle, final Rectangle child) {
+        if (rectangle.isEmpty()) {
+            rectangle.setBounds(child);
+        } else {
+            rectangle.union(child);
+        }
+    }
+
+    private static PrecisionPoint getCoordinate(final Map<INode, PrecisionPoint> coordinates, final INode node) {
+        final PrecisionPoint coordinate = coordinates.get(node);
+        if (coordinate == null) {
+            throw new IllegalStateException("The layout algorithm did not place every node");
+        }
+        return coordinate;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.layout.headless;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import com.intel.tools.fdk.graphframework.graph.GraphException;
+import com.intel.tools.fdk.graphframework.graph.INode;
+import com.intel.tools.fdk.graphframework.layout.ILayoutAlgorithm;
+import com.intel.tools.fdk.graphframework.layout.LayoutAlgorithms;
+import com.intel.tools.fdk.graphframework.layout.headless.GraphTextFormat.NamedGraph;
+
+/**
+ * Command line tool laying out serialized graphs in batch, without display.</br>
+ *
+ * Each input file is read with {@link GraphTextFormat}, laid out with {@link HeadlessLayout} and its bounds are written
+ * in the output directory, in a file named after the input one with the {@value #EXTENSION} extension. Each line of a
+ * bounds file gives a node name then the x, y, width and height of the node, nodes being in declaration order. Input
+ * directories are expanded to their {@value #INPUT_EXTENSION} files. Graphs are processed in parallel, a failure does
+ * not stop the processing of other graphs but makes the tool exit with an error status.</br>
+ *
+ * Usage: <code>HeadlessLayoutTool [-a algorithm] [-j threads] -o output-directory inputs...</code>, the
+ * {@link LayoutAlgorithms#AUTO} algorithm and one thread per processor are used by default.
+ */
+public final class HeadlessLayoutTool {
+
+    /** Extension of the written bounds files */
+    public static final String EXTENSION = ".layout";
+    /** Extension of the graph files looked for in input directories */
+    public static final String INPUT_EXTENSION = ".graph";
+
+    private static final String USAGE = "Usage: HeadlessLayoutTool [-a algorithm] [-j threads] -o output-directory "
+            + "inputs...";
+
+    private final HeadlessLayout layout;
+    private final Path outputDirectory;
+
+    private HeadlessLayoutTool(final ILayoutAlgorithm algorithm, final Path outputDirectory) {
+        this.layout = new HeadlessLayout(algorithm);
+        this.outputDirectory = outputDirectory;
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        String algorithmName = LayoutAlgorithms.AUTO;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outputDirectory = null;
+        final List<Path> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "-a":
+                    algorithmName = args[++i];
+                    break;
+                case "-j":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-o":
+                    outputDirectory = Paths.get(args[++i]);
+                    break;
+                default:
+                    addInputs(Paths.get(args[i]), inputs);
+                }
+            }
+        } catch (final ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            exit(USAGE);
+        }
+        if (outputDirectory == null || inputs.isEmpty() || threads < 1) {
+            exit(USAGE);
+        }
+        final String name = algorithmName;
+        final ILayoutAlgorithm algorithm = LayoutAlgorithms.get(name)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown layout algorithm " + name
+                        + ", available algorithms: " + LayoutAlgorithms.getNames()));
+
+        Files.createDirectories(outputDirectory);
+        final long start = System.nanoTime();
+        final int failures = new HeadlessLayoutTool(algorithm, outputDirectory).run(inputs, threads);
+        System.out.printf("%d graphs laid out in %d ms, %d failed%n", inputs.size() - failures,
+                (System.nanoTime() - start) / 1000000, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void exit(final String message) {
+        System.err.println(message);
+        System.exit(2);
+    }
+
+    private static void addInputs(final Path input, final List<Path> inputs) throws IOException {
+        if (!Files.isDirectory(input)) {
+            inputs.add(input);
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(input, "*" + INPUT_EXTENSION)) {
+            files.forEach(inputs::add);
+        }
+    }
+
+    /**
+     * @return the number of graphs which could not be laid out
+     */
+    private int run(final List<Path> inputs, final int threads) throws InterruptedException {
+        final AtomicInteger failures = new AtomicInteger();
+        // A dedicated pool bounds the parallelism, algorithms running parallel streams also use it
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> inputs.parallelStream().forEach(input -> {
+                try {
+                    process(input);
+                } catch (final IOException | GraphException | RuntimeException e) {
+                    System.err.println(input + ": " + e.getMessage());
+                    failures.incrementAndGet();
+                }
+            })).get();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Unexpected layout failure", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return failures.get();
+    }
+
+    private void process(final Path input) throws IOException, GraphException {
+        final NamedGraph graph;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            graph = GraphTextFormat.read(reader);
+        }
+        final Map<INode, Rectangle> bounds = layout.computeBounds(graph.getGraph());
+
+        String fileName = input.getFileName().toString();
+        if (fileName.endsWith(INPUT_EXTENSION)) {
+            fileName = fileName.substring(0, fileName.length() - INPUT_EXTENSION.length());
+        }
+        try (PrintWriter writer = new PrintWriter(
+                Files.newBufferedWriter(outputDirectory.resolve(fileName + EXTENSION), StandardCharsets.UTF_8))) {
+            graph.getNodes().forEach((name, node) -> {
+                final Rectangle rectangle = bounds.get(node);
+                writer.println(name + " " + rectangle.x + " " + rectangle.y + " " + rectangle.width + " "
+                        + rectangle.height);
+            });
+            if (writer.checkError()) {
+                throw new IOException("Unable to write the layout of " + input);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.intel.tools.fdk.graphframework.runtime.probe.LinkProbe;
+
+/**
+ * Bounded queue carrying the values of a link.</br>
+ *
+ * A link has a single producer (the leaf of its output) and a single consumer (the leaf of its input), thus the queue
+ * is a lock free single producer / single consumer ring buffer.</br>
+ * The producer closes the channel when it will not send values anymore. The consumer discards the channel when it will
+ * not read values anymore, following values are then dropped to never block the producer.</br>
+ * When a probe is attached, one value every {@link LinkProbe#SAMPLING_INTERVAL} is timestamped to measure its
+ * latency. Positions of the ring buffer are used as message counter.
+ */
+final class Channel {
+
+    private final Object[] buffer;
+    private final int mask;
+
+    /** Position of the next value to read, only written by the consumer */
+    private final AtomicLong head = new AtomicLong();
+    /** Position of the next value to write, only written by the producer */
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile boolean closed = false;
+    private volatile boolean discarded = false;
+
+    /** Optional probe, attached before the execution starts */
+    private LinkProbe probe;
+    /** Send time of sampled values, indexed as the buffer */
+    private long[] timestamps;
+
+    /**
+     * @param capacity
+     *            the minimal capacity of the channel, rounded to the next power of two
+     */
+    Channel(final int capacity) {
+        assert capacity > 0 : "Channel capacity must be positive";
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Observe the traffic of the channel, must be called before any value is sent
+     *
+     * @param probe
+     *            the probe to update
+     */
+    void attach(final LinkProbe probe) {
+        this.probe = probe;
+        this.timestamps = new long[buffer.length];
+        probe.setQueueDepthSupplier(this::size);
+        probe.setMessageCountSupplier(tail::get);
+    }
+
+    /**
+     * @return true if a value can be sent without being refused
+     */
+    boolean hasCapacity() {
+        return discarded || tail.get() - head.get() < buffer.length;
+    }
+
+    /**
+     * Send a value, must be called by the producer only
+     *
+     * @param value
+     *            the non null value to send
+     * @return false if the channel is full
+     */
+    boolean offer(final Object value) {
+        if (discarded) {
+            return true;
+        }
+        final long position = tail.get();
+        if (position - head.get() == buffer.length) {
+            return false;
+        }
+        buffer[(int) position & mask] = value;
+        if (probe != null && (position & (LinkProbe.SAMPLING_INTERVAL - 1)) == 0) {
+            timestamps[(int) position & mask] = System.nanoTime();
+        }
+        // Publish the value after it has been written
+        tail.lazySet(position + 1);
+        return true;
+    }
+
+    /**
+     * Receive a value, must be called by the consumer only
+     *
+     * @return the oldest value or null if the channel is empty
+     */
+    Object poll() {
+        final long position = head.get();
+        if (position == tail.get()) {
+            return null;
+        }
+        final int index = (int) position & mask;
+        final Object value = buffer[index];
+        buffer[index] = null;
+        if (probe != null && (position & (LinkProbe.SAMPLING_INTERVAL - 1)) == 0) {
+            probe.recordLatency(System.nanoTime() - timestamps[index]);
+        }
+        head.lazySet(position + 1);
+        return value;
+    }
+
+    /**
+     * @return true if no value is available
+     */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * @return the number of values waiting to be read
+     */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return true if the channel is closed and every value has been read
+     */
+    boolean isDrained() {
+        // The closed flag is written after the last value, it must be read first
+        return closed && isEmpty();
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    void discard() {
+        discarded = true;
+    }
+
+}
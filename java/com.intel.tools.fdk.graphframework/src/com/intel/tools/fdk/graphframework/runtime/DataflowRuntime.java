@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+import com.intel.tools.fdk.graphframework.runtime.probe.LinkProbe;
+import com.intel.tools.fdk.graphframework.runtime.probe.LinkProbes;
+
+/**
+ * Execute a graph on a thread pool, the common work stealing pool by default.</br>
+ *
+ * Each leaf of the graph is bound to a {@link LeafFunction}. Values produced on an output are carried by its link to
+ * the linked input through a bounded channel. Links leaving the executed container are ignored.</br>
+ * A leaf is scheduled on the pool when one of its channels changes, it then fires as long as a value is available on
+ * every linked input and every linked output can accept a value: a full channel stops its producer until the consumer
+ * reads it (back-pressure). A leaf is never executed by two threads at the same time, distinct leaves run in
+ * parallel.</br>
+ * The execution ends when every source ended its stream and every value has been consumed. Leaves belonging to a cycle
+ * which is not fed by a source never fire, the execution then never ends by itself and must be cancelled.
+ */
+public class DataflowRuntime implements IDataflowRuntime {
+
+    /** Default channel capacity */
+    public static final int DEFAULT_CAPACITY = 64;
+    /** Maximal number of firings of a leaf before it yields its thread to other leaves */
+    private static final int BATCH_SIZE = 64;
+
+    private static final Object[] NO_INPUT = new Object[0];
+
+    private final Executor pool;
+    private final Actor[] actors;
+    private final Map<Link, Channel> channels = new HashMap<>();
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicInteger runningActors;
+
+    /**
+     * Prepare an execution on the common pool with default channel capacity
+     *
+     * @param graph
+     *            the graph to execute
+     * @param functions
+     *            provides the function executed by each leaf
+     */
+    public DataflowRuntime(final NodeContainer graph, final Function<ILeaf, LeafFunction> functions) {
+        this(graph, functions, ForkJoinPool.commonPool(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Prepare an execution
+     *
+     * @param graph
+     *            the graph to execute
+     * @param functions
+     *            provides the function executed by each leaf
+     * @param pool
+     *            the pool running leaves, a work stealing pool suits leaves which do not block
+     * @param capacity
+     *            the number of values a link can hold before blocking its producer
+     */
+    public DataflowRuntime(final NodeContainer graph, final Function<ILeaf, LeafFunction> functions,
+            final Executor pool, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Channel capacity must be positive");
+        }
+        this.pool = pool;
+
+        final Map<Leaf, Actor> leafActors = new HashMap<>();
+        new TreeSet<>(graph.getAllLeaves()).forEach(leaf -> {
+            final LeafFunction function = functions.apply(leaf);
+            if (function == null) {
+                throw new IllegalArgumentException("No function is bound to a leaf");
+            }
+            leafActors.put(leaf, new Actor(leaf, function));
+        });
+        leafActors.values().forEach(actor -> actor.leaf.getLinkedOutputLinks().forEach(link -> {
+            final Actor consumer = leafActors.get(link.getInput().getLeaf());
+            if (consumer != null) {
+                channels.put(link, connect(link, actor, consumer, capacity));
+            }
+        }));
+        this.actors = leafActors.values().toArray(new Actor[leafActors.size()]);
+        this.runningActors = new AtomicInteger(actors.length);
+    }
+
+    private static Channel connect(final Link link, final Actor producer, final Actor consumer, final int capacity) {
+        final Channel channel = new Channel(capacity);
+        producer.outputs[link.getOutput().getId()] = channel;
+        producer.consumers[link.getOutput().getId()] = consumer;
+        consumer.inputs[link.getInput().getId()] = channel;
+        consumer.producers[link.getInput().getId()] = producer;
+        consumer.source = false;
+        return channel;
+    }
+
+    @Override
+    public void setProbes(final LinkProbes probes) {
+        if (started.get()) {
+            throw new IllegalStateException("Probes must be set before starting the runtime");
+        }
+        channels.forEach((link, channel) -> {
+            final LinkProbe probe = probes.get(link);
+            if (probe != null) {
+                channel.attach(probe);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> start() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("The runtime has already been started");
+        }
+        if (actors.length == 0) {
+            completion.complete(null);
+        }
+        for (final Actor actor : actors) {
+            actor.signal();
+        }
+        return completion;
+    }
+
+    /**
+     * {@inheritDoc}</br>
+     * Leaves stop firing as soon as their current computation ends.
+     */
+    @Override
+    public void cancel() {
+        completion.cancel(false);
+    }
+
+    /**
+     * Execution state of a leaf.</br>
+     * Signals count channel updates received since the last run: the actor is submitted to the pool when the count
+     * leaves zero and keeps running until it goes back to zero.
+     */
+    private final class Actor implements Runnable {
+
+        private final Leaf leaf;
+        private final LeafFunction function;
+        private final AtomicInteger signals = new AtomicInteger();
+
+        /** Channels indexed by pin id, null if the pin is not linked */
+        private final Channel[] inputs;
+        private final Channel[] outputs;
+        /** Actors to notify when a channel changes, indexed by pin id */
+        private final Actor[] producers;
+        private final Actor[] consumers;
+
+        private boolean source = true;
+        private boolean finished = false;
+
+        private Actor(final Leaf leaf, final LeafFunction function) {
+            this.leaf = leaf;
+            this.function = function;
+            this.inputs = new Channel[leaf.getInputs().size()];
+            this.producers = new Actor[inputs.length];
+            this.outputs = new Channel[leaf.getOutputs().size()];
+            this.consumers = new Actor[outputs.length];
+        }
+
+        private void signal() {
+            if (signals.getAndIncrement() == 0) {
+                pool.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            final int received = signals.get();
+            try {
+                if (!finished && !completion.isDone() && fire()) {
+                    // The batch has been exhausted, run again after other leaves
+                    signals.incrementAndGet();
+                }
+            } catch (final Exception e) {
+                completion.completeExceptionally(e);
+            }
+            if (signals.addAndGet(-received) != 0) {
+                pool.execute(this);
+            }
+        }
+
+        /**
+         * Fire the leaf as long as possible
+         *
+         * @return true if the leaf stopped while still being able to fire
+         */
+        private boolean fire() throws Exception {
+            for (int count = 0; count < BATCH_SIZE; count++) {
+                if (!hasOutputCapacity()) {
+                    return false;
+                }
+                final Object[] results;
+                if (source) {
+                    results = function.compute(inputs.length == 0 ? NO_INPUT : new Object[inputs.length]);
+                    if (results == null) {
+                        finish();
+                        return false;
+                    }
+                } else {
+                    if (!hasInputValues()) {
+                        if (hasDrainedInput()) {
+                            finish();
+                        }
+                        return false;
+                    }
+                    results = function.compute(readInputs());
+                }
+                if (results != null) {
+                    writeOutputs(results);
+                }
+                if (completion.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasOutputCapacity() {
+            for (final Channel output : outputs) {
+                if (output != null && !output.hasCapacity()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasInputValues() {
+            for (final Channel input : inputs) {
+                if (input != null && input.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasDrainedInput() {
+            for (final Channel input : inputs) {
+                if (input != null && input.isDrained()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Object[] readInputs() {
+            final Object[] values = new Object[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                if (inputs[i] != null) {
+                    values[i] = inputs[i].poll();
+                    producers[i].signal();
+                }
+            }
+            return values;
+        }
+
+        private void writeOutputs(final Object[] values) {
+            for (int i = 0; i < outputs.length && i < values.length; i++) {
+                if (outputs[i] != null && values[i] != null) {
+                    final boolean sent = outputs[i].offer(values[i]);
+                    assert sent : "Output capacity is checked before firing";
+                    consumers[i].signal();
+                }
+            }
+        }
+
+        private void finish() {
+            finished = true;
+            for (int i = 0; i < outputs.length; i++) {
+                if (outputs[i] != null) {
+                    outputs[i].close();
+                    consumers[i].signal();
+                }
+            }
+            // Values still waiting on other inputs will never be read, do not block their producers
+            for (int i = 0; i < inputs.length; i++) {
+                if (inputs[i] != null) {
+                    inputs[i].discard();
+                    producers[i].signal();
+                }
+            }
+            if (runningActors.decrementAndGet() == 0) {
+                completion.complete(null);
+            }
+        }
+
+    }
+
+}
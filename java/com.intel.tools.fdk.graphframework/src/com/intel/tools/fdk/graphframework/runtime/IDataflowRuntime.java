@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.intel.tools.fdk.graphframework.runtime.probe.LinkProbes;
+
+/**
+ * Execution of a graph which leaves are bound to {@link LeafFunction}s.
+ */
+public interface IDataflowRuntime {
+
+    /**
+     * Observe the traffic of links during the execution, must be called before {@link #start()}
+     *
+     * @param probes
+     *            probes of the observed links, links without probe are not observed
+     */
+    void setProbes(LinkProbes probes);
+
+    /**
+     * Start the execution, this method can be called only once
+     *
+     * @return a future completed when the execution ends, or completed exceptionally if a leaf function fails
+     */
+    CompletableFuture<Void> start();
+
+    /**
+     * Stop the execution
+     */
+    void cancel();
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime;
+
+/**
+ * Computation executed by a leaf of a running graph.</br>
+ *
+ * A leaf fires when every linked input received a value. A leaf without linked input is a source, it fires as long as
+ * its outputs can accept values.</br>
+ * A function instance is never called concurrently with itself.
+ */
+@FunctionalInterface
+public interface LeafFunction {
+
+    /**
+     * Compute output values from input values
+     *
+     * @param inputs
+     *            values received on inputs, indexed by input id. Values of inputs which are not linked are null.
+     * @return values to send, indexed by output id. A null entry sends nothing on the corresponding output. For a
+     *         source, a null array ends the stream produced by the leaf, for other leaves it sends nothing.
+     * @throws Exception
+     *             if the computation fails, the whole execution is then stopped
+     */
+    Object[] compute(Object[] inputs) throws Exception;
+
+}
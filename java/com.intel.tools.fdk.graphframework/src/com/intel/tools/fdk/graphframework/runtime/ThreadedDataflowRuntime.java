@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+import com.intel.tools.fdk.graphframework.runtime.probe.LinkProbe;
+import com.intel.tools.fdk.graphframework.runtime.probe.LinkProbes;
+
+/**
+ * Execute a graph with one thread per leaf.</br>
+ *
+ * This mode suits leaves which block (file readers, sockets...): a leaf waits for its inputs and for room on its
+ * outputs by blocking its own thread. Links are bounded blocking queues.</br>
+ * Threads are virtual threads when the running JVM provides them, thousands of blocking leaves then run without a
+ * platform thread each. Otherwise platform threads are used.</br>
+ * Leaves fire with the same rules as {@link DataflowRuntime}.
+ */
+public class ThreadedDataflowRuntime implements IDataflowRuntime {
+
+    private static final Logger LOGGER = Logger.getLogger(ThreadedDataflowRuntime.class);
+
+    /** Value marking the end of a stream */
+    private static final Object END_OF_STREAM = new Object();
+    private static final Object[] NO_INPUT = new Object[0];
+    /** Prefix of the names of leaf threads */
+    private static final String THREAD_NAME = "Dataflow leaf ";
+
+    private final ThreadFactory threadFactory;
+    private final List<LeafRunner> runners = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final Map<Link, BlockingChannel> channels = new HashMap<>();
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicInteger runningLeaves;
+
+    /**
+     * Prepare an execution on virtual threads if available, with default channel capacity
+     *
+     * @param graph
+     *            the graph to execute
+     * @param functions
+     *            provides the function executed by each leaf
+     */
+    public ThreadedDataflowRuntime(final NodeContainer graph, final Function<ILeaf, LeafFunction> functions) {
+        this(graph, functions, createDefaultThreadFactory(), DataflowRuntime.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Prepare an execution
+     *
+     * @param graph
+     *            the graph to execute
+     * @param functions
+     *            provides the function executed by each leaf
+     * @param threadFactory
+     *            creates the thread of each leaf
+     * @param capacity
+     *            the number of values a link can hold before blocking its producer
+     */
+    public ThreadedDataflowRuntime(final NodeContainer graph, final Function<ILeaf, LeafFunction> functions,
+            final ThreadFactory threadFactory, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Channel capacity must be positive");
+        }
+        this.threadFactory = threadFactory;
+
+        final Map<Leaf, LeafRunner> leafRunners = new HashMap<>();
+        new TreeSet<>(graph.getAllLeaves()).forEach(leaf -> {
+            final LeafFunction function = functions.apply(leaf);
+            if (function == null) {
+                throw new IllegalArgumentException("No function is bound to a leaf");
+            }
+            final LeafRunner runner = new LeafRunner(leaf, function);
+            leafRunners.put(leaf, runner);
+            runners.add(runner);
+        });
+        runners.forEach(runner -> runner.leaf.getLinkedOutputLinks().forEach(link -> {
+            final LeafRunner consumer = leafRunners.get(link.getInput().getLeaf());
+            if (consumer != null) {
+                channels.put(link, connect(link, runner, consumer, capacity));
+            }
+        }));
+        this.runningLeaves = new AtomicInteger(runners.size());
+    }
+
+    private static BlockingChannel connect(final Link link, final LeafRunner producer, final LeafRunner consumer,
+            final int capacity) {
+        final BlockingChannel channel = new BlockingChannel(capacity);
+        producer.outputs[link.getOutput().getId()] = channel;
+        consumer.inputs[link.getInput().getId()] = channel;
+        consumer.source = false;
+        return channel;
+    }
+
+    @Override
+    public void setProbes(final LinkProbes probes) {
+        if (started.get()) {
+            throw new IllegalStateException("Probes must be set before starting the runtime");
+        }
+        channels.forEach((link, channel) -> {
+            final LinkProbe probe = probes.get(link);
+            if (probe != null) {
+                channel.probe = probe;
+                probe.setQueueDepthSupplier(channel.queue::size);
+            }
+        });
+    }
+
+    /**
+     * @return a factory of virtual threads if the JVM supports them, of daemon platform threads otherwise. Threads are
+     *         named "Dataflow leaf &lt;n&gt;" and never keep the JVM alive.
+     */
+    public static ThreadFactory createDefaultThreadFactory() {
+        try {
+            // Virtual threads are resolved at runtime as the bundle targets older JVMs
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (final ReflectiveOperationException e) {
+            LOGGER.debug("Virtual threads are not available, using platform threads");
+            // A leaf stuck in uninterruptible I/O must not keep the JVM alive once the execution is cancelled
+            final AtomicInteger count = new AtomicInteger();
+            return runnable -> {
+                final Thread thread = new Thread(runnable, THREAD_NAME + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> start() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("The runtime has already been started");
+        }
+        if (runners.isEmpty()) {
+            completion.complete(null);
+        }
+        completion.whenComplete((result, error) -> {
+            if (error != null) {
+                synchronized (threads) {
+                    threads.forEach(Thread::interrupt);
+                }
+            }
+        });
+        synchronized (threads) {
+            runners.forEach(runner -> threads.add(threadFactory.newThread(runner)));
+            threads.forEach(Thread::start);
+        }
+        return completion;
+    }
+
+    /**
+     * {@inheritDoc}</br>
+     * Leaf threads are interrupted.
+     */
+    @Override
+    public void cancel() {
+        completion.cancel(false);
+    }
+
+    /**
+     * Bounded blocking queue carrying the values of a link.</br>
+     * Once discarded by its consumer, values are dropped to never block the producer.</br>
+     * When a probe is attached, one value every {@link LinkProbe#SAMPLING_INTERVAL} travels with its send time.
+     */
+    private static final class BlockingChannel {
+
+        private final BlockingQueue<Object> queue;
+        private volatile boolean discarded = false;
+
+        private LinkProbe probe;
+        /** Number of values sent, only accessed by the producer thread */
+        private long sent = 0;
+
+        private BlockingChannel(final int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void put(final Object value) throws InterruptedException {
+            if (discarded) {
+                return;
+            }
+            if (probe != null && value != END_OF_STREAM) {
+                probe.recordMessage();
+                if ((sent++ & (LinkProbe.SAMPLING_INTERVAL - 1)) == 0) {
+                    queue.put(new TimedValue(value, System.nanoTime()));
+                    return;
+                }
+            }
+            queue.put(value);
+        }
+
+        private Object take() throws InterruptedException {
+            final Object value = queue.take();
+            if (value instanceof TimedValue) {
+                final TimedValue timedValue = (TimedValue) value;
+                probe.recordLatency(System.nanoTime() - timedValue.sendTime);
+                return timedValue.value;
+            }
+            return value;
+        }
+
+        private void discard() {
+            discarded = true;
+            // Wake up a producer blocked on a full queue, following values are dropped
+            queue.clear();
+        }
+
+    }
+
+    /** Sampled value carrying its send time */
+    private static final class TimedValue {
+        private final Object value;
+        private final long sendTime;
+
+        private TimedValue(final Object value, final long sendTime) {
+            this.value = value;
+            this.sendTime = sendTime;
+        }
+    }
+
+    /**
+     * Loop executed by the thread of a leaf
+     */
+    private final class LeafRunner implements Runnable {
+
+        private final Leaf leaf;
+        private final LeafFunction function;
+
+        /** Channels indexed by pin id, null if the pin is not linked */
+        private final BlockingChannel[] inputs;
+        private final BlockingChannel[] outputs;
+
+        private boolean source = true;
+
+        private LeafRunner(final Leaf leaf, final LeafFunction function) {
+            this.leaf = leaf;
+            this.function = function;
+            this.inputs = new BlockingChannel[leaf.getInputs().size()];
+            this.outputs = new BlockingChannel[leaf.getOutputs().size()];
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!completion.isDone()) {
+                    if (!fire()) {
+                        finish();
+                        return;
+                    }
+                }
+            } catch (final InterruptedException e) {
+                // The execution has been stopped
+                Thread.currentThread().interrupt();
+            } catch (final Exception e) {
+                completion.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * @return false once the leaf reached the end of its stream
+         */
+        private boolean fire() throws Exception {
+            final Object[] results;
+            if (source) {
+                results = function.compute(inputs.length == 0 ? NO_INPUT : new Object[inputs.length]);
+                if (results == null) {
+                    return false;
+                }
+            } else {
+                final Object[] values = new Object[inputs.length];
+                for (int i = 0; i < inputs.length; i++) {
+                    if (inputs[i] != null) {
+                        values[i] = inputs[i].take();
+                        if (values[i] == END_OF_STREAM) {
+                            return false;
+                        }
+                    }
+                }
+                results = function.compute(values);
+            }
+            if (results != null) {
+                for (int i = 0; i < outputs.length && i < results.length; i++) {
+                    if (outputs[i] != null && results[i] != null) {
+                        outputs[i].put(results[i]);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void finish() throws InterruptedException {
+            for (final BlockingChannel input : inputs) {
+                if (input != null) {
+                    input.discard();
+                }
+            }
+            for (final BlockingChannel output : outputs) {
+                if (output != null) {
+                    output.put(END_OF_STREAM);
+                }
+            }
+            if (runningLeaves.decrementAndGet() == 0) {
+                completion.complete(null);
+            }
+        }
+
+    }
+
+}
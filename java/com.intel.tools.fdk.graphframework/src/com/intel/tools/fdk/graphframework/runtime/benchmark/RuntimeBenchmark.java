@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.intel.tools.fdk.graphframework.graph.ILeaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Graph;
+import com.intel.tools.fdk.graphframework.graph.impl.Leaf;
+import com.intel.tools.fdk.graphframework.graph.impl.Link;
+import com.intel.tools.fdk.graphframework.runtime.DataflowRuntime;
+import com.intel.tools.fdk.graphframework.runtime.IDataflowRuntime;
+import com.intel.tools.fdk.graphframework.runtime.LeafFunction;
+import com.intel.tools.fdk.graphframework.runtime.ThreadedDataflowRuntime;
+
+/**
+ * Compare the execution of blocking leaves by {@link ThreadedDataflowRuntime} and by {@link DataflowRuntime} on a
+ * fixed thread pool, and report their throughput and latency.</br>
+ *
+ * The graph is made of parallel chains of leaves. Each leaf blocks its thread for a fixed time on each value, as a
+ * file reader or a socket would. Sources stamp values with their creation time, sinks record the end to end latency.
+ * Both runtimes execute the same graph a first time to warm up the JVM, then are measured.</br>
+ *
+ * Usage: <code>RuntimeBenchmark [chains] [chain length] [values per chain] [block ms] [pool threads]</code>, the pool
+ * has one thread per processor by default.
+ */
+public final class RuntimeBenchmark {
+
+    private static final int DEFAULT_CHAINS = 200;
+    private static final int DEFAULT_LENGTH = 5;
+    private static final int DEFAULT_VALUES = 20;
+    private static final int DEFAULT_BLOCK_MILLIS = 5;
+    private static final String FORMAT = "%-24s %8s %10s %14s %10s %10s%n";
+
+    private final Graph graph;
+    private final int values;
+    private final int blockMillis;
+
+    private RuntimeBenchmark(final int chains, final int length, final int values, final int blockMillis) {
+        final List<Leaf> leaves = new ArrayList<>();
+        for (int chain = 0; chain < chains; chain++) {
+            Leaf previous = new Leaf(0, 1);
+            leaves.add(previous);
+            for (int i = 1; i < length; i++) {
+                final Leaf leaf = new Leaf(1, i + 1 < length ? 1 : 0);
+                new Link(previous.getOutputs().get(0), leaf.getInputs().get(0));
+                leaves.add(leaf);
+                previous = leaf;
+            }
+        }
+        this.graph = new Graph(new HashSet<>(leaves), Collections.emptySet());
+        this.values = values;
+        this.blockMillis = blockMillis;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int chains = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CHAINS;
+        final int length = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LENGTH;
+        final int values = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_VALUES;
+        final int blockMillis = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BLOCK_MILLIS;
+        final int poolThreads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        if (chains < 1 || length < 2 || values < 1 || blockMillis < 0 || poolThreads < 1) {
+            throw new IllegalArgumentException("Invalid benchmark parameters: " + Arrays.toString(args));
+        }
+
+        final RuntimeBenchmark benchmark = new RuntimeBenchmark(chains, length, values, blockMillis);
+        System.out.printf("%d leaves in %d chains, %d values per chain, %d ms per value and leaf%n",
+                chains * length, chains, values, blockMillis);
+        System.out.printf(FORMAT, "runtime", "threads", "time (ms)", "values/s", "p50 (ms)", "p99 (ms)");
+        benchmark.run("thread per leaf", "per leaf",
+                functions -> new ThreadedDataflowRuntime(benchmark.graph, functions));
+        final ExecutorService pool = Executors.newFixedThreadPool(poolThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "Benchmark pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            benchmark.run("fixed pool", Integer.toString(poolThreads), functions -> new DataflowRuntime(
+                    benchmark.graph, functions, pool, DataflowRuntime.DEFAULT_CAPACITY));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Execute the graph once to warm up, then once measured
+     */
+    private void run(final String name, final String threads,
+            final Function<Function<ILeaf, LeafFunction>, IDataflowRuntime> runtimes) throws Exception {
+        execute(runtimes);
+        final Run run = execute(runtimes);
+        Arrays.sort(run.latencies);
+        final int count = run.latencies.length;
+        System.out.printf(FORMAT, name, threads, String.format("%.0f", run.time / 1e6),
+                String.format("%.0f", count / (run.time / 1e9)),
+                String.format("%.1f", run.latencies[count / 2] / 1e6),
+                String.format("%.1f", run.latencies[Math.min(count - 1, (int) (count * 0.99))] / 1e6));
+    }
+
+    private Run execute(final Function<Function<ILeaf, LeafFunction>, IDataflowRuntime> runtimes) throws Exception {
+        final int chains = (int) graph.getLeaves().stream().filter(leaf -> leaf.getInputs().isEmpty()).count();
+        final long[] latencies = new long[chains * values];
+        final AtomicInteger received = new AtomicInteger();
+        final IDataflowRuntime runtime = runtimes.apply(leaf -> {
+            if (leaf.getInputs().isEmpty()) {
+                return source();
+            }
+            if (leaf.getOutputs().isEmpty()) {
+                return inputs -> {
+                    block();
+                    latencies[received.getAndIncrement()] = System.nanoTime() - (Long) inputs[0];
+                    return null;
+                };
+            }
+            return inputs -> {
+                block();
+                return inputs;
+            };
+        });
+        final long start = System.nanoTime();
+        runtime.start().get(1, TimeUnit.HOURS);
+        return new Run(System.nanoTime() - start, latencies);
+    }
+
+    /**
+     * @return a source sending values stamped with their creation time
+     */
+    private LeafFunction source() {
+        final AtomicInteger sent = new AtomicInteger();
+        return inputs -> {
+            if (sent.getAndIncrement() == values) {
+                return null;
+            }
+            block();
+            return new Object[] { System.nanoTime() };
+        };
+    }
+
+    private void block() throws InterruptedException {
+        if (blockMillis > 0) {
+            Thread.sleep(blockMillis);
+        }
+    }
+
+    /** Measures of an execution */
+    private static final class Run {
+        private final long time;
+        private final long[] latencies;
+
+        private Run(final long time, final long[] latencies) {
+            this.time = time;
+            this.latencies = latencies;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime.probe;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in nanoseconds.</br>
+ *
+ * Buckets are log-linear (as in HDR histograms): each power of two range is split in {@value #SUB_BUCKET_COUNT}
+ * linear buckets, the relative error of a reported value is thus under 1/{@value #SUB_BUCKET_COUNT} for any
+ * magnitude, with a fixed and small memory footprint.
+ */
+public final class LatencyHistogram {
+
+    /** Number of linear buckets per power of two */
+    private static final int SUB_BUCKET_COUNT = 16;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKET_COUNT);
+    /** Enough buckets to index any positive long value */
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    /** Copy of counts used by {@link #drainValueAtPercentile(double)} */
+    private final long[] drained = new long[BUCKET_COUNT];
+
+    /**
+     * @param value
+     *            the latency to record, negative values are recorded as zero
+     */
+    public void record(final long value) {
+        counts.getAndIncrement(indexOf(Math.max(0, value)));
+    }
+
+    /**
+     * Reset the histogram and compute a percentile of the values recorded since the previous call.</br>
+     * This method must not be called concurrently with itself.
+     *
+     * @param percentile
+     *            the percentile in [0, 100]
+     * @return the highest value of the bucket holding the percentile, -1 if no value has been recorded
+     */
+    public long drainValueAtPercentile(final double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            drained[i] = counts.get(i) == 0 ? 0 : counts.getAndSet(i, 0);
+            total += drained[i];
+        }
+        if (total == 0) {
+            return -1;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += drained[i];
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(BUCKET_COUNT - 1);
+    }
+
+    private static int indexOf(final long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Shift keeping SUB_BUCKET_BITS + 1 significant bits, the highest one being always set
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(final int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long lowest = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+}
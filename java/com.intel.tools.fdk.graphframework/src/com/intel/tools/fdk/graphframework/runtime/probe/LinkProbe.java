@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime.probe;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import com.intel.tools.fdk.graphframework.graph.ILink;
+
+/**
+ * Counters of the traffic carried by a link during an execution.</br>
+ *
+ * Runtimes record every message but only measure the latency of one message every {@link #SAMPLING_INTERVAL} to keep
+ * the overhead low. Counters are lock free and can be updated from any thread. A runtime already counting messages of
+ * a link can supply its own counter instead of recording each message.
+ */
+public final class LinkProbe {
+
+    /** Latency is measured once every SAMPLING_INTERVAL messages, must be a power of two */
+    public static final int SAMPLING_INTERVAL = 64;
+
+    private final ILink link;
+    private final LongAdder messages = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private volatile LongSupplier messageCount = messages::sum;
+    private volatile IntSupplier queueDepth = () -> 0;
+
+    /**
+     * @param link
+     *            the observed link
+     */
+    public LinkProbe(final ILink link) {
+        this.link = link;
+    }
+
+    /** @return the observed link */
+    public ILink getLink() {
+        return link;
+    }
+
+    /** Count a message sent on the link */
+    public void recordMessage() {
+        messages.increment();
+    }
+
+    /**
+     * @param nanos
+     *            time spent by a sampled message in the link
+     */
+    public void recordLatency(final long nanos) {
+        latencies.record(nanos);
+    }
+
+    /**
+     * @param messageCount
+     *            supplies the number of messages sent on the link, replacing {@link #recordMessage()}
+     */
+    public void setMessageCountSupplier(final LongSupplier messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    /**
+     * @param queueDepth
+     *            supplies the number of messages waiting in the link
+     */
+    public void setQueueDepthSupplier(final IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /** @return the number of messages sent since the beginning of the execution */
+    public long getMessageCount() {
+        return messageCount.getAsLong();
+    }
+
+    /** @return the number of messages currently waiting in the link */
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    /** @return latencies of sampled messages */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+}
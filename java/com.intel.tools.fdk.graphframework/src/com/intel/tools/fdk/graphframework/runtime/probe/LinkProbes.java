@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime.probe;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.intel.tools.fdk.graphframework.graph.ILink;
+import com.intel.tools.fdk.graphframework.graph.impl.NodeContainer;
+
+/**
+ * Set of probes observing every link of a container
+ */
+public final class LinkProbes {
+
+    private final Map<ILink, LinkProbe> probes = new HashMap<>();
+
+    /**
+     * @param graph
+     *            the container which links are observed
+     */
+    public LinkProbes(final NodeContainer graph) {
+        graph.getAllLinks().forEach(link -> probes.put(link, new LinkProbe(link)));
+    }
+
+    /**
+     * @param link
+     *            an observed link
+     * @return the probe of the link, null if the link is not observed
+     */
+    public LinkProbe get(final ILink link) {
+        return probes.get(link);
+    }
+
+    /** @return all probes */
+    public Collection<LinkProbe> getProbes() {
+        return Collections.unmodifiableCollection(probes.values());
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime.probe;
+
+/**
+ * Traffic of a link measured over a sampling period
+ */
+public final class LinkStatistics {
+
+    private final double messagesPerSecond;
+    private final int queueDepth;
+    private final long p99Latency;
+
+    /**
+     * @param messagesPerSecond
+     *            message rate over the period
+     * @param queueDepth
+     *            messages waiting in the link at the end of the period
+     * @param p99Latency
+     *            99th percentile of sampled latencies in nanoseconds, -1 if no latency was sampled
+     */
+    public LinkStatistics(final double messagesPerSecond, final int queueDepth, final long p99Latency) {
+        this.messagesPerSecond = messagesPerSecond;
+        this.queueDepth = queueDepth;
+        this.p99Latency = p99Latency;
+    }
+
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /** @return 99th percentile of sampled latencies in nanoseconds, -1 if no latency was sampled */
+    public long getP99Latency() {
+        return p99Latency;
+    }
+
+    /** @return a short text such as "12.5k msg/s q=3 p99=40us" */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        if (messagesPerSecond >= 1e6) {
+            builder.append(String.format("%.1fM", messagesPerSecond / 1e6));
+        } else if (messagesPerSecond >= 1e3) {
+            builder.append(String.format("%.1fk", messagesPerSecond / 1e3));
+        } else {
+            builder.append(String.format("%.0f", messagesPerSecond));
+        }
+        builder.append(" msg/s q=").append(queueDepth);
+        if (p99Latency >= 0) {
+            builder.append(" p99=");
+            if (p99Latency >= 1_000_000) {
+                builder.append(p99Latency / 1_000_000).append("ms");
+            } else if (p99Latency >= 1_000) {
+                builder.append(p99Latency / 1_000).append("us");
+            } else {
+                builder.append(p99Latency).append("ns");
+            }
+        }
+        return builder.toString();
+    }
+
+}
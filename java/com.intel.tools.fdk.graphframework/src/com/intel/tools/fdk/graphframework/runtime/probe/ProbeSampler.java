@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2013-2017 Intel Corporation
+ *
+ * This Program is subject to the terms of the Eclipse Public License, v. 1.0.
+ * If a copy of the license was not distributed with this file,
+ * you can obtain one at <http://www.eclipse.org/legal/epl-v10.html>
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package com.intel.tools.fdk.graphframework.runtime.probe;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.intel.tools.fdk.graphframework.graph.ILink;
+
+/**
+ * Periodically turn probe counters into {@link LinkStatistics}.</br>
+ *
+ * Statistics of all links are computed on a dedicated thread and delivered together to the listener, which is thus
+ * called once per period whatever the number of links.
+ */
+public final class ProbeSampler {
+
+    private final LinkProbes probes;
+    private final Consumer<Map<ILink, LinkStatistics>> listener;
+    private final Map<LinkProbe, Long> lastCounts = new HashMap<>();
+
+    private ScheduledExecutorService executor;
+    private long lastSample;
+
+    /**
+     * @param probes
+     *            the sampled probes
+     * @param listener
+     *            receives statistics of every link at each period
+     */
+    public ProbeSampler(final LinkProbes probes, final Consumer<Map<ILink, LinkStatistics>> listener) {
+        this.probes = probes;
+        this.listener = listener;
+    }
+
+    /**
+     * Start sampling
+     *
+     * @param period
+     *            the sampling period
+     * @param unit
+     *            the unit of the period
+     */
+    public synchronized void start(final long period, final TimeUnit unit) {
+        if (executor != null) {
+            throw new IllegalStateException("The sampler is already started");
+        }
+        probes.getProbes().forEach(probe -> lastCounts.put(probe, probe.getMessageCount()));
+        lastSample = System.nanoTime();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "Link probe sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sample, period, period, unit);
+    }
+
+    /** Stop sampling */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void sample() {
+        final long now = System.nanoTime();
+        final double elapsedSeconds = (now - lastSample) / 1e9;
+        lastSample = now;
+
+        final Map<ILink, LinkStatistics> statistics = new HashMap<>();
+        probes.getProbes().forEach(probe -> {
+            final long count = probe.getMessageCount();
+            final long previous = lastCounts.put(probe, count);
+            statistics.put(probe.getLink(), new LinkStatistics((count - previous) / elapsedSeconds,
+                    probe.getQueueDepth(), probe.getLatencies().drainValueAtPercentile(99)));
+        });
+        listener.accept(statistics);
+    }
+
+}